@@ -18,6 +18,11 @@ import run.halo.app.utils.JsonUtils;
 @Slf4j
 public abstract class AbstractStringCacheStore extends AbstractCacheStore<String, String> {
 
+    /**
+     * Codec of the typed values, only used when the store has to persist them.
+     */
+    protected CacheValueCodec valueCodec = new JsonCacheValueCodec();
+
     protected Optional<CacheWrapper<String>> jsonToCacheWrapper(String json) {
         Assert.hasText(json, "json value must not be null");
         CacheWrapper<String> cacheWrapper = null;
@@ -58,4 +63,71 @@ public abstract class AbstractStringCacheStore extends AbstractCacheStore<String
             }
         });
     }
+
+    /**
+     * Puts a non-expired typed value.
+     *
+     * <p>The value should be immutable, because stores which keep live objects in memory return
+     * the same instance on {@link #getObject(String, Class)}. Other stores encode it with the
+     * {@link CacheValueCodec}.
+     *
+     * @param key cache key must not be blank
+     * @param value cache value must not be null
+     * @param <T> value type
+     */
+    public <T> void putObject(@NonNull String key, @NonNull T value) {
+        put(key, encodeValue(value));
+    }
+
+    /**
+     * Puts a typed value which will be expired.
+     *
+     * @param key cache key must not be blank
+     * @param value cache value must not be null
+     * @param timeout the key expiration must not be less than 1
+     * @param timeUnit timeout unit must not be null
+     * @param <T> value type
+     * @see #putObject(String, Object)
+     */
+    public <T> void putObject(@NonNull String key, @NonNull T value, long timeout,
+        @NonNull TimeUnit timeUnit) {
+        put(key, encodeValue(value), timeout, timeUnit);
+    }
+
+    /**
+     * Gets a typed value put by {@link #putObject(String, Object)}.
+     *
+     * @param key cache key must not be blank
+     * @param type value type must not be null
+     * @param <T> value type
+     * @return an optional typed value
+     */
+    @NonNull
+    public <T> Optional<T> getObject(@NonNull String key, @NonNull Class<T> type) {
+        Assert.notNull(type, "Type must not be null");
+
+        return get(key).map(value -> {
+            try {
+                return valueCodec.decode(value, type);
+            } catch (IOException e) {
+                log.error("Failed to decode cache value to type: " + type.getName(), e);
+                return null;
+            }
+        });
+    }
+
+    public void setValueCodec(@NonNull CacheValueCodec valueCodec) {
+        Assert.notNull(valueCodec, "Cache value codec must not be null");
+        this.valueCodec = valueCodec;
+    }
+
+    @NonNull
+    private String encodeValue(@NonNull Object value) {
+        Assert.notNull(value, "Cache value must not be null");
+        try {
+            return valueCodec.encode(value);
+        } catch (IOException e) {
+            throw new ServiceException("Failed to encode cache value " + value, e);
+        }
+    }
 }
@@ -0,0 +1,34 @@
+package run.halo.app.cache;
+
+import java.io.IOException;
+import org.springframework.lang.NonNull;
+
+/**
+ * Codec of the objects put into a string cache store which has to persist them.
+ *
+ * @author guqing
+ */
+public interface CacheValueCodec {
+
+    /**
+     * Encodes the value into string.
+     *
+     * @param value value must not be null
+     * @return encoded value
+     * @throws IOException throws when fail to encode
+     */
+    @NonNull
+    String encode(@NonNull Object value) throws IOException;
+
+    /**
+     * Decodes the string into the value of specified type.
+     *
+     * @param encoded encoded value must not be blank
+     * @param type value type must not be null
+     * @param <T> value type
+     * @return decoded value
+     * @throws IOException throws when fail to decode
+     */
+    @NonNull
+    <T> T decode(@NonNull String encoded, @NonNull Class<T> type) throws IOException;
+}
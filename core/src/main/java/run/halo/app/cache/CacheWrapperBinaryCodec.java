@@ -0,0 +1,84 @@
+package run.halo.app.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Optional;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Compact binary codec of string cache wrapper.
+ *
+ * <p>Layout: {@code [version:1][createAt:8][expireAt:8][data:utf-8]}, timestamps are epoch
+ * millis and an expireAt of 0 means never expired.
+ *
+ * @author guqing
+ */
+final class CacheWrapperBinaryCodec {
+
+    /**
+     * Version of the layout, it never collides with the first byte of a json object.
+     */
+    static final byte VERSION = 1;
+
+    private static final int HEADER_LENGTH = 1 + Long.BYTES + Long.BYTES;
+
+    private CacheWrapperBinaryCodec() {
+    }
+
+    @NonNull
+    static byte[] encode(@NonNull CacheWrapper<String> cacheWrapper) {
+        Assert.notNull(cacheWrapper, "Cache wrapper must not be null");
+
+        byte[] data = cacheWrapper.getData().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(HEADER_LENGTH + data.length)
+            .put(VERSION)
+            .putLong(toMillis(cacheWrapper.getCreateAt()))
+            .putLong(toMillis(cacheWrapper.getExpireAt()))
+            .put(data)
+            .array();
+    }
+
+    @NonNull
+    static Optional<CacheWrapper<String>> decode(@Nullable byte[] bytes) {
+        if (!isEncoded(bytes)) {
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.get();
+        Date createAt = toDate(buffer.getLong());
+        Date expireAt = toDate(buffer.getLong());
+        String data = new String(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH,
+            StandardCharsets.UTF_8);
+        return Optional.of(new CacheWrapper<>(data, expireAt, createAt));
+    }
+
+    /**
+     * Reads expireAt without decoding the data.
+     *
+     * @param bytes encoded bytes
+     * @return expireAt millis, 0 if never expired or the bytes are not encoded by this codec
+     */
+    static long readExpireAt(@Nullable byte[] bytes) {
+        if (!isEncoded(bytes)) {
+            return 0L;
+        }
+        return ByteBuffer.wrap(bytes, 1 + Long.BYTES, Long.BYTES).getLong();
+    }
+
+    static boolean isEncoded(@Nullable byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_LENGTH && bytes[0] == VERSION;
+    }
+
+    private static long toMillis(@Nullable Date date) {
+        return date == null ? 0L : date.getTime();
+    }
+
+    @Nullable
+    private static Date toDate(long millis) {
+        return millis == 0L ? null : new Date(millis);
+    }
+}
@@ -0,0 +1,311 @@
+package run.halo.app.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.hash.Hashing;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Cache of the rendered content pages for anonymous visitors.
+ *
+ * <p>While a page is rendered, the code reading the data of it records dependency tags with
+ * {@link #addTags(String...)}, and pages which must not be shared among visitors call
+ * {@link #bypass()}. Invalidating a tag marks the pages depending on it stale, a stale page is
+ * still served for {@link #STALE_WHILE_REVALIDATE} while one request renders it again. A page
+ * whose rendering overlaps an invalidation is not cached, it may have read outdated data.
+ *
+ * @author guqing
+ */
+@Slf4j
+@Component
+public class ContentPageCache {
+
+    public static final String TAG_POSTS = "posts";
+
+    public static final String TAG_CATEGORIES = "categories";
+
+    public static final String TAG_COMMENTS = "comments";
+
+    public static final String POST_TAG_PREFIX = "post:";
+
+    public static final String SHEET_TAG_PREFIX = "sheet:";
+
+    private static final String TAGS_ATTRIBUTE = ContentPageCache.class.getName() + ".TAGS";
+
+    private static final String BYPASS_ATTRIBUTE = ContentPageCache.class.getName() + ".BYPASS";
+
+    private static final String GENERATION_ATTRIBUTE =
+        ContentPageCache.class.getName() + ".GENERATION";
+
+    private static final long MAX_WEIGHT = 64 * 1024 * 1024;
+
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    private static final Duration STALE_WHILE_REVALIDATE = Duration.ofSeconds(30);
+
+    private final Cache<String, Page> pages = Caffeine.newBuilder()
+        .maximumWeight(MAX_WEIGHT)
+        .weigher((String key, Page page) -> key.length() + page.body.length)
+        .expireAfterWrite(TIME_TO_LIVE)
+        .executor(Runnable::run)
+        .removalListener(this::onRemoval)
+        .build();
+
+    /**
+     * Keys of the pages keyed by their dependency tags.
+     */
+    private final Map<String, Set<String>> tagKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Increased on every invalidation.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Records dependency tags of the page being rendered in the current request.
+     *
+     * @param tags dependency tags
+     */
+    @SuppressWarnings("unchecked")
+    public static void addTags(@NonNull String... tags) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        Object recordedTags =
+            attributes.getAttribute(TAGS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (recordedTags instanceof Set) {
+            Collections.addAll((Set<String>) recordedTags, tags);
+        }
+    }
+
+    /**
+     * Prevents the page being rendered in the current request from being cached.
+     */
+    public static void bypass() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(BYPASS_ATTRIBUTE, true, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    @NonNull
+    public static String postTag(@NonNull Integer postId) {
+        return POST_TAG_PREFIX + postId;
+    }
+
+    @NonNull
+    public static String sheetTag(@NonNull Integer sheetId) {
+        return SHEET_TAG_PREFIX + sheetId;
+    }
+
+    /**
+     * Starts recording the dependency tags of the page rendered in the current request.
+     */
+    public void startRecording() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(TAGS_ATTRIBUTE, ConcurrentHashMap.newKeySet(),
+                RequestAttributes.SCOPE_REQUEST);
+            attributes.setAttribute(GENERATION_ATTRIBUTE, generation.get(),
+                RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * Builds the page rendered in the current request, with the tags recorded.
+     *
+     * @param body response body must not be null
+     * @param headers response headers to replay must not be null
+     * @return page or null if the page bypasses the cache or was rendered during an
+     * invalidation
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public Page buildPage(@NonNull byte[] body, @NonNull Map<String, String> headers) {
+        Assert.notNull(body, "Body must not be null");
+        Assert.notNull(headers, "Headers must not be null");
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null
+            || attributes.getAttribute(BYPASS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+            != null) {
+            return null;
+        }
+        Object recordedGeneration =
+            attributes.getAttribute(GENERATION_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (!Long.valueOf(generation.get()).equals(recordedGeneration)) {
+            return null;
+        }
+        Object tags = attributes.getAttribute(TAGS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return new Page(body, headers,
+            tags instanceof Set ? new HashSet<>((Set<String>) tags) : Collections.emptySet(),
+            (Long) recordedGeneration);
+    }
+
+    @Nullable
+    public Page get(@NonNull String key) {
+        return pages.getIfPresent(key);
+    }
+
+    /**
+     * Caches the page, unless an invalidation happened since its rendering started.
+     *
+     * @param key page key must not be blank
+     * @param page page built by {@link #buildPage(byte[], Map)} must not be null
+     */
+    public void put(@NonNull String key, @NonNull Page page) {
+        Assert.hasText(key, "Key must not be blank");
+        Assert.notNull(page, "Page must not be null");
+
+        page.tags.forEach(tag -> tagKeys.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet())
+            .add(key));
+        pages.put(key, page);
+        // An invalidation increases the generation before dropping the tags, so one missing
+        // the tags registered above is noticed here
+        if (generation.get() != page.generation) {
+            pages.asMap().remove(key, page);
+        }
+    }
+
+    /**
+     * Removes the page if it is still the cached one.
+     */
+    public void remove(@NonNull String key, @NonNull Page page) {
+        pages.asMap().remove(key, page);
+    }
+
+    /**
+     * Marks the pages depending on any of the tags stale.
+     *
+     * @param tags dependency tags
+     */
+    public void invalidate(@NonNull String... tags) {
+        generation.incrementAndGet();
+        long now = System.currentTimeMillis();
+        for (String tag : tags) {
+            Set<String> keys = tagKeys.remove(tag);
+            if (keys == null) {
+                continue;
+            }
+            keys.forEach(key -> {
+                Page page = pages.getIfPresent(key);
+                if (page != null) {
+                    page.markStale(now);
+                }
+            });
+            log.debug("Marked [{}] pages depending on [{}] stale", keys.size(), tag);
+        }
+    }
+
+    /**
+     * Removes all pages.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        pages.invalidateAll();
+        tagKeys.clear();
+    }
+
+    private void onRemoval(String key, Page page, RemovalCause cause) {
+        if (key == null || page == null || cause == RemovalCause.REPLACED
+            || pages.asMap().containsKey(key)) {
+            return;
+        }
+        page.tags.forEach(tag -> {
+            Set<String> keys = tagKeys.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+            }
+        });
+    }
+
+    /**
+     * A rendered page.
+     */
+    public static class Page {
+
+        private final byte[] body;
+
+        private final Map<String, String> headers;
+
+        private final Set<String> tags;
+
+        private final String etag;
+
+        /**
+         * Generation of the cache when the rendering of the page started.
+         */
+        private final long generation;
+
+        /**
+         * Millis since when the page is stale, 0 if it is fresh.
+         */
+        private volatile long staleTime;
+
+        private final AtomicBoolean revalidating = new AtomicBoolean();
+
+        Page(byte[] body, Map<String, String> headers, Set<String> tags, long generation) {
+            this.body = body;
+            this.headers = Collections.unmodifiableMap(headers);
+            this.tags = Collections.unmodifiableSet(tags);
+            this.etag = "\"" + Hashing.sha256().hashBytes(body).toString().substring(0, 32) + "\"";
+            this.generation = generation;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        public Set<String> getTags() {
+            return tags;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public boolean isFresh() {
+            return staleTime == 0;
+        }
+
+        /**
+         * Claims the revalidation of the stale page.
+         *
+         * @return true if the caller should render the page again; false if the stale page
+         * should be served while another request renders it
+         */
+        public boolean startRevalidating() {
+            if (System.currentTimeMillis() - staleTime > STALE_WHILE_REVALIDATE.toMillis()) {
+                // Stale for too long, the page is rendered by every request until replaced
+                return true;
+            }
+            return revalidating.compareAndSet(false, true);
+        }
+
+        void markStale(long now) {
+            if (staleTime == 0) {
+                staleTime = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package run.halo.app.cache;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.Assert;
+import run.halo.app.event.category.CategoryUpdatedEvent;
+import run.halo.app.event.options.OptionUpdatedEvent;
+import run.halo.app.event.post.PostUpdatedEvent;
+import run.halo.app.event.post.PostsRenderedEvent;
+import run.halo.app.event.user.UserUpdatedEvent;
+
+/**
+ * Cache of the generated feed and sitemap documents.
+ *
+ * <p>A document is generated on the first request and kept as bytes until something it depends
+ * on changes. Post, option and user updates and bulk renderings drop all documents, category
+ * updates only drop the documents generated with {@code dependsOnCategories}. Documents are
+ * generated again after {@link #MAX_AGE} at the latest, since tags and some other data shown in
+ * them publish no events. A document whose generation overlaps an invalidation is not kept.
+ *
+ * @author guqing
+ */
+@Slf4j
+@Component
+public class FeedDocumentCache {
+
+    private static final Duration MAX_AGE = Duration.ofMinutes(10);
+
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+
+    /**
+     * Locks by document key, so a document is generated by one request at a time. Striped, as
+     * keys of unknown categories are never kept.
+     */
+    private final Striped<Lock> locks = Striped.lock(16);
+
+    /**
+     * Increased on every invalidation.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Gets the document, generating it if it is missing or expired.
+     *
+     * @param key document key must not be blank
+     * @param dependsOnCategories whether the document shows categories
+     * @param generator generator of the document body must not be null
+     * @return document
+     * @throws Exception if the generator fails
+     */
+    @NonNull
+    public Document get(@NonNull String key, boolean dependsOnCategories,
+        @NonNull Generator generator) throws Exception {
+        Assert.hasText(key, "Document key must not be blank");
+        Assert.notNull(generator, "Generator must not be null");
+
+        Document document = documents.get(key);
+        if (document != null && !document.isExpired()) {
+            return document;
+        }
+        Lock lock = locks.get(key);
+        lock.lock();
+        try {
+            document = documents.get(key);
+            if (document != null && !document.isExpired()) {
+                return document;
+            }
+            long startGeneration = generation.get();
+            Generated generated = generator.generate();
+            document = new Document(generated, dependsOnCategories);
+            documents.put(key, document);
+            // An invalidation increases the generation before removing documents, so one
+            // missing the document put above is noticed here
+            if (generation.get() != startGeneration) {
+                documents.remove(key, document);
+            }
+            log.debug("Generated document [{}] of [{}] bytes", key, generated.body.length);
+            return document;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all documents.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        documents.clear();
+    }
+
+    /**
+     * Removes the documents showing categories.
+     */
+    public void invalidateCategoryDependents() {
+        generation.incrementAndGet();
+        documents.values().removeIf(document -> document.dependsOnCategories);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostUpdated(PostUpdatedEvent event) {
+        invalidateAll();
+    }
+
+    @EventListener
+    public void onPostsRendered(PostsRenderedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryUpdated(CategoryUpdatedEvent event) {
+        invalidateCategoryDependents();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOptionUpdated(OptionUpdatedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        invalidateAll();
+    }
+
+    /**
+     * Generator of a document.
+     */
+    @FunctionalInterface
+    public interface Generator {
+
+        /**
+         * Generates the document.
+         *
+         * @return generated body and last modified time
+         * @throws Exception if the document cannot be generated
+         */
+        @NonNull
+        Generated generate() throws Exception;
+    }
+
+    /**
+     * A generated document body with the time its content was last modified.
+     */
+    public static class Generated {
+
+        private final byte[] body;
+
+        private final long lastModified;
+
+        public Generated(@NonNull byte[] body, long lastModified) {
+            Assert.notNull(body, "Body must not be null");
+            this.body = body;
+            this.lastModified = lastModified;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    /**
+     * A cached document.
+     */
+    public static class Document {
+
+        private final byte[] body;
+
+        /**
+         * Last modified millis, truncated to seconds as in http dates.
+         */
+        private final long lastModified;
+
+        private final String etag;
+
+        private final boolean dependsOnCategories;
+
+        private final long createTime = System.currentTimeMillis();
+
+        Document(Generated generated, boolean dependsOnCategories) {
+            this.body = generated.body;
+            this.lastModified = generated.lastModified / 1000 * 1000;
+            this.etag = "\"" + Hashing.sha256().hashBytes(generated.body).toString()
+                .substring(0, 32) + "\"";
+            this.dependsOnCategories = dependsOnCategories;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - createTime > MAX_AGE.toMillis();
+        }
+    }
+}
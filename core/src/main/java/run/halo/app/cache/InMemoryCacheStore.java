@@ -1,46 +1,93 @@
 package run.halo.app.cache;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Date;
 import java.util.Optional;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import run.halo.app.config.properties.HaloProperties;
+import run.halo.app.utils.DateUtils;
 
 /**
  * In-memory cache store.
  *
+ * <p>Entries are kept in a Caffeine cache. Each entry expires on its own
+ * {@link CacheWrapper#getExpireAt()} via Caffeine's hierarchical timing wheel, so no periodic
+ * full scan is needed. When {@link HaloProperties#getCacheMaxWeight()} is greater than 0 the
+ * store is bounded and evicts with W-TinyLFU once the total weight (characters of keys plus
+ * values) exceeds it.
+ *
+ * <p>Typed values put by {@link #putObject(String, Object)} are kept as live objects in a
+ * separate tier without any encoding. It is bounded by the same max weight, with every object
+ * weighed as {@link #OBJECT_WEIGHT} characters, since the size of a live object is unknown.
+ * A key lives in one tier only, writing it to either tier removes it from the other.
+ *
  * @author johnniang
  */
 @Slf4j
-public class InMemoryCacheStore extends AbstractStringCacheStore {
+public class InMemoryCacheStore extends AbstractStringCacheStore implements MeterBinder {
 
     /**
-     * Cleaner schedule period. (ms)
+     * Metric name of the cache.
      */
-    private static final long PERIOD = 60 * 1000;
+    private static final String CACHE_NAME = "halo.cache.memory";
 
     /**
-     * Cache container.
+     * Metric name of the typed object tier.
      */
-    private static final ConcurrentHashMap<String, CacheWrapper<String>> CACHE_CONTAINER =
-        new ConcurrentHashMap<>();
+    private static final String OBJECT_CACHE_NAME = CACHE_NAME + ".object";
 
-    private final Timer timer;
+    /**
+     * Estimated weight of a typed object.
+     */
+    private static final int OBJECT_WEIGHT = 1024;
 
     /**
-     * Lock.
+     * Cache container.
      */
-    private final Lock lock = new ReentrantLock();
+    private final Cache<String, CacheWrapper<String>> cacheContainer;
 
-    public InMemoryCacheStore() {
-        // Run a cache store cleaner
-        timer = new Timer();
-        timer.scheduleAtFixedRate(new CacheExpiryCleaner(), 0, PERIOD);
+    /**
+     * Typed object container.
+     */
+    private final Cache<String, CacheWrapper<Object>> objectContainer;
+
+    public InMemoryCacheStore(HaloProperties haloProperties) {
+        super.haloProperties = haloProperties;
+
+        Caffeine<String, CacheWrapper<String>> builder = Caffeine.newBuilder()
+            .expireAfter(new CacheWrapperExpiry<String>())
+            .scheduler(Scheduler.systemScheduler())
+            .recordStats();
+
+        Caffeine<String, CacheWrapper<Object>> objectBuilder = Caffeine.newBuilder()
+            .expireAfter(new CacheWrapperExpiry<Object>())
+            .scheduler(Scheduler.systemScheduler())
+            .recordStats();
+
+        long maxWeight = haloProperties.getCacheMaxWeight();
+        if (maxWeight > 0) {
+            builder.maximumWeight(maxWeight)
+                .weigher((String key, CacheWrapper<String> cacheWrapper) ->
+                    key.length() + cacheWrapper.getData().length());
+            objectBuilder.maximumWeight(maxWeight)
+                .weigher((String key, CacheWrapper<Object> cacheWrapper) ->
+                    key.length() + OBJECT_WEIGHT);
+            log.info("In-memory cache store is bounded to weight: [{}]", maxWeight);
+        }
+
+        this.cacheContainer = builder.build();
+        this.objectContainer = objectBuilder.build();
     }
 
     @Override
@@ -48,7 +95,7 @@ public class InMemoryCacheStore extends AbstractStringCacheStore {
     Optional<CacheWrapper<String>> getInternal(@NonNull String key) {
         Assert.hasText(key, "Cache key must not be blank");
 
-        return Optional.ofNullable(CACHE_CONTAINER.get(key));
+        return Optional.ofNullable(cacheContainer.getIfPresent(key));
     }
 
     @Override
@@ -57,10 +104,10 @@ public class InMemoryCacheStore extends AbstractStringCacheStore {
         Assert.notNull(cacheWrapper, "Cache wrapper must not be null");
 
         // Put the cache wrapper
-        CacheWrapper<String> putCacheWrapper = CACHE_CONTAINER.put(key, cacheWrapper);
+        cacheContainer.put(key, cacheWrapper);
+        objectContainer.invalidate(key);
 
-        log.debug("Put [{}] cache result: [{}], original cache wrapper: [{}]", key, putCacheWrapper,
-            cacheWrapper);
+        log.debug("Put [{}] cache, original cache wrapper: [{}]", key, cacheWrapper);
     }
 
     @Override
@@ -70,60 +117,113 @@ public class InMemoryCacheStore extends AbstractStringCacheStore {
 
         log.debug("Preparing to put key: [{}], value: [{}]", key, cacheWrapper);
 
-        lock.lock();
-        try {
-            // Get the value before
-            Optional<String> valueOptional = get(key);
-
-            if (valueOptional.isPresent()) {
-                log.warn("Failed to put the cache, because the key: [{}] has been present already",
-                    key);
-                return false;
-            }
-
-            // Put the cache wrapper
-            putInternal(key, cacheWrapper);
-            log.debug("Put successfully");
-            return true;
-        } finally {
-            lock.unlock();
+        // Expired entries are treated as absent by the cache view
+        CacheWrapper<String> previous = cacheContainer.asMap().putIfAbsent(key, cacheWrapper);
+        if (previous != null) {
+            log.warn("Failed to put the cache, because the key: [{}] has been present already",
+                key);
+            return false;
         }
+        objectContainer.invalidate(key);
+
+        log.debug("Put successfully");
+        return true;
     }
 
     @Override
     public void delete(@NonNull String key) {
         Assert.hasText(key, "Cache key must not be blank");
 
-        CACHE_CONTAINER.remove(key);
+        cacheContainer.invalidate(key);
+        objectContainer.invalidate(key);
         log.debug("Removed key: [{}]", key);
     }
 
+    @Override
+    public <T> void putObject(@NonNull String key, @NonNull T value) {
+        putObjectInternal(key, value, 0, null);
+    }
+
+    @Override
+    public <T> void putObject(@NonNull String key, @NonNull T value, long timeout,
+        @NonNull TimeUnit timeUnit) {
+        putObjectInternal(key, value, timeout, timeUnit);
+    }
+
+    @Override
+    @NonNull
+    public <T> Optional<T> getObject(@NonNull String key, @NonNull Class<T> type) {
+        Assert.hasText(key, "Cache key must not be blank");
+        Assert.notNull(type, "Type must not be null");
+
+        return Optional.ofNullable(objectContainer.getIfPresent(key))
+            .map(CacheWrapper::getData)
+            .filter(type::isInstance)
+            .map(type::cast);
+    }
+
+    private void putObjectInternal(@NonNull String key, @NonNull Object value, long timeout,
+        @Nullable TimeUnit timeUnit) {
+        Assert.hasText(key, "Cache key must not be blank");
+        Assert.notNull(value, "Cache value must not be null");
+        Assert.isTrue(timeout >= 0, "Cache expiration timeout must not be less than 1");
+
+        Date now = DateUtils.now();
+        Date expireAt = timeout > 0 && timeUnit != null
+            ? DateUtils.add(now, timeout, timeUnit) : null;
+
+        objectContainer.put(key, new CacheWrapper<>(value, expireAt, now));
+        cacheContainer.invalidate(key);
+        log.debug("Put [{}] typed cache of type: [{}]", key, value.getClass());
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cacheContainer, CACHE_NAME);
+        CaffeineCacheMetrics.monitor(registry, objectContainer, OBJECT_CACHE_NAME);
+    }
+
     @PreDestroy
     public void preDestroy() {
-        log.debug("Cancelling all timer tasks");
-        timer.cancel();
+        log.debug("Clearing in-memory cache store");
         clear();
     }
 
     private void clear() {
-        CACHE_CONTAINER.clear();
+        cacheContainer.invalidateAll();
+        cacheContainer.cleanUp();
+        objectContainer.invalidateAll();
+        objectContainer.cleanUp();
     }
 
     /**
-     * Cache cleaner.
-     *
-     * @author johnniang
-     * @date 03/28/19
+     * Expires every entry at the expiry time carried by its cache wrapper.
      */
-    private class CacheExpiryCleaner extends TimerTask {
+    private static class CacheWrapperExpiry<V> implements Expiry<String, CacheWrapper<V>> {
+
+        @Override
+        public long expireAfterCreate(@NonNull String key,
+            @NonNull CacheWrapper<V> cacheWrapper, long currentTime) {
+            Date expireAt = cacheWrapper.getExpireAt();
+            if (expireAt == null) {
+                return Long.MAX_VALUE;
+            }
+            long remainingMillis = expireAt.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(@NonNull String key,
+            @NonNull CacheWrapper<V> cacheWrapper, long currentTime,
+            long currentDuration) {
+            return expireAfterCreate(key, cacheWrapper, currentTime);
+        }
 
         @Override
-        public void run() {
-            CACHE_CONTAINER.keySet().forEach(key -> {
-                if (!InMemoryCacheStore.this.get(key).isPresent()) {
-                    log.debug("Deleted the cache: [{}] for expiration", key);
-                }
-            });
+        public long expireAfterRead(@NonNull String key,
+            @NonNull CacheWrapper<V> cacheWrapper, long currentTime,
+            long currentDuration) {
+            return currentDuration;
         }
     }
 }
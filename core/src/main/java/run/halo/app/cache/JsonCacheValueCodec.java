@@ -0,0 +1,25 @@
+package run.halo.app.cache;
+
+import java.io.IOException;
+import org.springframework.lang.NonNull;
+import run.halo.app.utils.JsonUtils;
+
+/**
+ * Json cache value codec.
+ *
+ * @author guqing
+ */
+public class JsonCacheValueCodec implements CacheValueCodec {
+
+    @Override
+    @NonNull
+    public String encode(@NonNull Object value) throws IOException {
+        return JsonUtils.objectToJson(value);
+    }
+
+    @Override
+    @NonNull
+    public <T> T decode(@NonNull String encoded, @NonNull Class<T> type) throws IOException {
+        return JsonUtils.jsonToObject(encoded, type);
+    }
+}
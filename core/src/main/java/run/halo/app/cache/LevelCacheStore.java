@@ -1,14 +1,16 @@
 package run.halo.app.cache;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.util.Date;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
@@ -20,13 +22,18 @@ import org.iq80.leveldb.WriteBatch;
 import org.iq80.leveldb.impl.Iq80DBFactory;
 import org.springframework.lang.NonNull;
 import org.springframework.util.Assert;
-import org.springframework.util.StringUtils;
 import run.halo.app.config.properties.HaloProperties;
-import run.halo.app.utils.JsonUtils;
 
 /**
  * level-db cache store
  * Create by Pencilso on 2020/1/9 7:20 下午
+ *
+ * <p>Values are stored with {@link CacheWrapperBinaryCodec}. Every expiring entry also has an
+ * expiry index key {@code [0x00]['x'][expireAt:8][key]}, which sorts by expiry timestamp, so the
+ * cleaner only seeks over the expired entries. Stale index keys left by updates or deletions are
+ * dropped when they are reached.
+ *
+ * <p>Existing stores of json values are migrated once on startup.
  */
 @Slf4j
 public class LevelCacheStore extends AbstractStringCacheStore {
@@ -35,10 +42,29 @@ public class LevelCacheStore extends AbstractStringCacheStore {
      */
     private static final long PERIOD = 60 * 1000;
 
+    /**
+     * Prefix of internal keys, cache keys never start with it.
+     */
+    private static final byte INTERNAL_KEY_PREFIX = 0;
+
+    private static final byte[] EXPIRY_INDEX_PREFIX = {INTERNAL_KEY_PREFIX, 'x'};
+
+    private static final byte[] VERSION_KEY = {INTERNAL_KEY_PREFIX, 'v'};
+
+    /**
+     * Size of write batch while migrating.
+     */
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
     private static DB LEVEL_DB;
 
     private Timer timer;
 
+    /**
+     * Lock.
+     */
+    private final Lock lock = new ReentrantLock();
+
     public LevelCacheStore(HaloProperties haloProperties) {
         super.haloProperties = haloProperties;
     }
@@ -56,6 +82,7 @@ public class LevelCacheStore extends AbstractStringCacheStore {
             options.createIfMissing(true);
             //open leveldb store folder
             LEVEL_DB = factory.open(folder, options);
+            migrateIfNecessary();
             timer = new Timer();
             timer.scheduleAtFixedRate(new CacheExpiryCleaner(), 0, PERIOD);
         } catch (Exception ex) {
@@ -80,50 +107,137 @@ public class LevelCacheStore extends AbstractStringCacheStore {
     @NonNull
     Optional<CacheWrapper<String>> getInternal(@NonNull String key) {
         Assert.hasText(key, "Cache key must not be blank");
-        byte[] bytes = LEVEL_DB.get(stringToBytes(key));
-        if (bytes != null) {
-            String valueJson = bytesToString(bytes);
-            return StringUtils.isEmpty(valueJson) ? Optional.empty() :
-                jsonToCacheWrapper(valueJson);
-        }
-        return Optional.empty();
+        return CacheWrapperBinaryCodec.decode(LEVEL_DB.get(stringToBytes(key)));
     }
 
     @Override
     void putInternal(@NonNull String key, @NonNull CacheWrapper<String> cacheWrapper) {
-        putInternalIfAbsent(key, cacheWrapper);
+        Assert.hasText(key, "Cache key must not be blank");
+        Assert.notNull(cacheWrapper, "Cache wrapper must not be null");
+
+        byte[] keyBytes = stringToBytes(key);
+        byte[] valueBytes = CacheWrapperBinaryCodec.encode(cacheWrapper);
+
+        WriteBatch writeBatch = LEVEL_DB.createWriteBatch();
+        try {
+            putEncoded(writeBatch, keyBytes, valueBytes);
+            LEVEL_DB.write(writeBatch);
+        } finally {
+            closeQuietly(writeBatch);
+        }
+        log.debug("Cache key: [{}], original cache wrapper: [{}]", key, cacheWrapper);
     }
 
     @Override
     Boolean putInternalIfAbsent(@NonNull String key, @NonNull CacheWrapper<String> cacheWrapper) {
         Assert.hasText(key, "Cache key must not be blank");
         Assert.notNull(cacheWrapper, "Cache wrapper must not be null");
+
+        lock.lock();
         try {
-            LEVEL_DB.put(
-                stringToBytes(key),
-                stringToBytes(JsonUtils.objectToJson(cacheWrapper))
-            );
+            if (get(key).isPresent()) {
+                log.warn("Failed to put the cache, because the key: [{}] has been present already",
+                    key);
+                return false;
+            }
+            putInternal(key, cacheWrapper);
             return true;
-        } catch (JsonProcessingException e) {
-            log.warn("Put cache fail json2object key: [{}] value:[{}]", key, cacheWrapper);
+        } finally {
+            lock.unlock();
         }
-        log.debug("Cache key: [{}], original cache wrapper: [{}]", key, cacheWrapper);
-        return false;
     }
 
     @Override
     public void delete(@NonNull String key) {
+        // The expiry index key will be dropped by the cleaner
         LEVEL_DB.delete(stringToBytes(key));
         log.debug("cache remove key: [{}]", key);
     }
 
+    private void putEncoded(WriteBatch writeBatch, byte[] keyBytes, byte[] valueBytes) {
+        writeBatch.put(keyBytes, valueBytes);
 
-    private byte[] stringToBytes(String str) {
-        return str.getBytes(Charset.defaultCharset());
+        long expireAt = CacheWrapperBinaryCodec.readExpireAt(valueBytes);
+        if (expireAt != 0L) {
+            writeBatch.put(buildExpiryIndexKey(expireAt, keyBytes), new byte[0]);
+        }
     }
 
-    private String bytesToString(byte[] bytes) {
-        return new String(bytes, Charset.defaultCharset());
+    /**
+     * Re-encodes the json values written by the previous versions and builds the expiry index.
+     */
+    private void migrateIfNecessary() throws IOException {
+        if (LEVEL_DB.get(VERSION_KEY) != null) {
+            return;
+        }
+
+        log.info("Migrating leveldb cache store to binary values with expiry index");
+        int migrated = 0;
+        WriteBatch writeBatch = LEVEL_DB.createWriteBatch();
+        try (DBIterator iterator = LEVEL_DB.iterator()) {
+            iterator.seekToFirst();
+            int batchSize = 0;
+            while (iterator.hasNext()) {
+                Map.Entry<byte[], byte[]> next = iterator.next();
+                byte[] keyBytes = next.getKey();
+                byte[] valueBytes = next.getValue();
+                if (keyBytes == null || keyBytes.length == 0
+                    || keyBytes[0] == INTERNAL_KEY_PREFIX
+                    || CacheWrapperBinaryCodec.isEncoded(valueBytes)) {
+                    continue;
+                }
+
+                Optional<CacheWrapper<String>> cacheWrapper = valueBytes == null
+                    || valueBytes.length == 0 ? Optional.empty()
+                    : jsonToCacheWrapper(new String(valueBytes, StandardCharsets.UTF_8));
+                if (cacheWrapper.isPresent() && cacheWrapper.get().getData() != null) {
+                    putEncoded(writeBatch, keyBytes,
+                        CacheWrapperBinaryCodec.encode(cacheWrapper.get()));
+                    migrated++;
+                } else {
+                    writeBatch.delete(keyBytes);
+                }
+
+                if (++batchSize >= MIGRATION_BATCH_SIZE) {
+                    LEVEL_DB.write(writeBatch);
+                    writeBatch.close();
+                    writeBatch = LEVEL_DB.createWriteBatch();
+                    batchSize = 0;
+                }
+            }
+            writeBatch.put(VERSION_KEY, new byte[] {CacheWrapperBinaryCodec.VERSION});
+            LEVEL_DB.write(writeBatch);
+        } finally {
+            closeQuietly(writeBatch);
+        }
+        log.info("Migrated [{}] leveldb cache entries", migrated);
+    }
+
+    private static byte[] buildExpiryIndexKey(long expireAt, byte[] keyBytes) {
+        return ByteBuffer.allocate(EXPIRY_INDEX_PREFIX.length + Long.BYTES + keyBytes.length)
+            .put(EXPIRY_INDEX_PREFIX)
+            .putLong(expireAt)
+            .put(keyBytes)
+            .array();
+    }
+
+    private static boolean isExpiryIndexKey(byte[] bytes) {
+        return bytes != null
+            && bytes.length >= EXPIRY_INDEX_PREFIX.length + Long.BYTES
+            && bytes[0] == EXPIRY_INDEX_PREFIX[0]
+            && bytes[1] == EXPIRY_INDEX_PREFIX[1];
+    }
+
+    private static void closeQuietly(WriteBatch writeBatch) {
+        try {
+            writeBatch.close();
+        } catch (IOException e) {
+            log.warn("Failed to close leveldb write batch", e);
+        }
+    }
+
+    private byte[] stringToBytes(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
     }
 
     private class CacheExpiryCleaner extends TimerTask {
@@ -133,33 +247,41 @@ public class LevelCacheStore extends AbstractStringCacheStore {
             //batch
             WriteBatch writeBatch = LEVEL_DB.createWriteBatch();
 
-            DBIterator iterator = LEVEL_DB.iterator();
             long currentTimeMillis = System.currentTimeMillis();
-            while (iterator.hasNext()) {
-                Map.Entry<byte[], byte[]> next = iterator.next();
-                if (next.getKey() == null || next.getValue() == null) {
-                    continue;
-                }
+            try (DBIterator iterator = LEVEL_DB.iterator()) {
+                // Only seek over the expired range of the expiry index
+                iterator.seek(EXPIRY_INDEX_PREFIX);
+                while (iterator.hasNext()) {
+                    byte[] indexKey = iterator.peekNext().getKey();
+                    if (!isExpiryIndexKey(indexKey)) {
+                        break;
+                    }
+
+                    long expireAt = ByteBuffer.wrap(indexKey, EXPIRY_INDEX_PREFIX.length,
+                        Long.BYTES).getLong();
+                    if (expireAt > currentTimeMillis) {
+                        break;
+                    }
+                    iterator.next();
 
-                String valueJson = bytesToString(next.getValue());
-                Optional<CacheWrapper<String>> stringCacheWrapper =
-                    StringUtils.isEmpty(valueJson) ? Optional.empty() :
-                        jsonToCacheWrapper(valueJson);
-                if (stringCacheWrapper.isPresent()) {
-                    //get expireat time
-                    long expireAtTime = stringCacheWrapper.map(CacheWrapper::getExpireAt)
-                        .map(Date::getTime)
-                        .orElse(0L);
-                    //if expire
-                    if (expireAtTime != 0 && currentTimeMillis > expireAtTime) {
-                        writeBatch.delete(next.getKey());
+                    writeBatch.delete(indexKey);
+
+                    byte[] keyBytes = Arrays.copyOfRange(indexKey,
+                        EXPIRY_INDEX_PREFIX.length + Long.BYTES, indexKey.length);
+                    // The entry may be updated with another expiry since it was indexed
+                    if (CacheWrapperBinaryCodec.readExpireAt(LEVEL_DB.get(keyBytes))
+                        == expireAt) {
+                        writeBatch.delete(keyBytes);
                         log.debug("deleted the cache: [{}] for expiration",
-                            bytesToString(next.getKey()));
+                            new String(keyBytes, StandardCharsets.UTF_8));
                     }
                 }
+                LEVEL_DB.write(writeBatch);
+            } catch (IOException e) {
+                log.error("Failed to clean expired leveldb cache", e);
+            } finally {
+                closeQuietly(writeBatch);
             }
-            LEVEL_DB.write(writeBatch);
         }
     }
 }
-
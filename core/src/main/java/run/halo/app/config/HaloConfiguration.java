@@ -1,6 +1,7 @@
 package run.halo.app.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -73,11 +74,20 @@ public class HaloConfiguration {
             case "memory":
             default:
                 //memory or default
-                stringCacheStore = new InMemoryCacheStore();
+                stringCacheStore = new InMemoryCacheStore(this.haloProperties);
                 break;
         }
         log.info("Halo cache store load impl : [{}]", stringCacheStore.getClass());
         return stringCacheStore;
 
     }
+
+    @Bean
+    MeterBinder stringCacheStoreMetrics(AbstractStringCacheStore stringCacheStore) {
+        return registry -> {
+            if (stringCacheStore instanceof MeterBinder) {
+                ((MeterBinder) stringCacheStore).bindTo(registry);
+            }
+        };
+    }
 }
@@ -48,6 +48,12 @@ public class HaloProperties {
     private String backupDir =
         ensureSuffix(TEMP_DIR, FILE_SEPARATOR) + "halo-backup" + FILE_SEPARATOR;
 
+    /**
+     * Whether work directory backups are incremental snapshots, which only store the files added
+     * or changed since the latest snapshot.
+     */
+    private boolean incrementalBackup = false;
+
     /**
      * Halo backup markdown directory.(Not recommended to modify this config);
      */
@@ -76,4 +82,15 @@ public class HaloProperties {
      * level
      */
     private String cache = "memory";
+
+    /**
+     * Maximum weight (characters of keys plus values) of the in-memory cache store, the store
+     * is unbounded if it is less than 1.
+     */
+    private long cacheMaxWeight = 0;
+
+    /**
+     * Interval of flushing the pending post and sheet visits into database.
+     */
+    private Duration visitFlushInterval = Duration.ofSeconds(10);
 }
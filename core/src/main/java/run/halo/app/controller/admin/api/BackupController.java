@@ -114,8 +114,7 @@ public class BackupController {
         log.info("Trying to download backup file: [{}]", filename);
 
         // Load file as resource
-        Resource backupResource =
-            backupService.loadFileAsResource(haloProperties.getBackupDir(), filename);
+        Resource backupResource = backupService.loadWorkDirBackupAsResource(filename);
 
         String contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
         // Try to determine file's content type
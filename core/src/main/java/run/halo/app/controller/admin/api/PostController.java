@@ -24,6 +24,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.model.dto.PostRenderingDTO;
 import run.halo.app.model.dto.post.BasePostDetailDTO;
 import run.halo.app.model.dto.post.BasePostMinimalDTO;
 import run.halo.app.model.dto.post.BasePostSimpleDTO;
@@ -34,7 +35,9 @@ import run.halo.app.model.params.PostParam;
 import run.halo.app.model.params.PostQuery;
 import run.halo.app.model.vo.PostDetailVO;
 import run.halo.app.service.OptionService;
+import run.halo.app.service.PostSearchService;
 import run.halo.app.service.PostService;
+import run.halo.app.task.PostRenderingTask;
 import run.halo.app.utils.HaloUtils;
 
 /**
@@ -55,12 +58,20 @@ public class PostController {
 
     private final OptionService optionService;
 
+    private final PostRenderingTask postRenderingTask;
+
+    private final PostSearchService postSearchService;
+
     public PostController(PostService postService,
         AbstractStringCacheStore cacheStore,
-        OptionService optionService) {
+        OptionService optionService,
+        PostRenderingTask postRenderingTask,
+        PostSearchService postSearchService) {
         this.postService = postService;
         this.cacheStore = cacheStore;
         this.optionService = optionService;
+        this.postRenderingTask = postRenderingTask;
+        this.postSearchService = postSearchService;
     }
 
     @GetMapping
@@ -177,6 +188,25 @@ public class PostController {
         return postService.removeByIds(ids);
     }
 
+    @PostMapping("rendering")
+    @ApiOperation("Renders all posts and sheets again in background")
+    public PostRenderingDTO renderAll(
+        @RequestParam(value = "resume", defaultValue = "true") Boolean resume) {
+        return postRenderingTask.start(resume);
+    }
+
+    @GetMapping("rendering")
+    @ApiOperation("Gets the progress of rendering all posts and sheets")
+    public PostRenderingDTO getRenderingProgress() {
+        return postRenderingTask.getProgress();
+    }
+
+    @PostMapping("search-index")
+    @ApiOperation("Rebuilds the full-text search index of posts in background")
+    public void rebuildSearchIndex() {
+        postSearchService.rebuild();
+    }
+
     @GetMapping(value = {"preview/{postId:\\d+}", "{postId:\\d+}/preview"})
     @ApiOperation("Gets a post preview link")
     public String preview(@PathVariable("postId") Integer postId)
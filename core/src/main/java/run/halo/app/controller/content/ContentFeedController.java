@@ -5,12 +5,10 @@ import static org.springframework.data.domain.Sort.Direction.DESC;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
 import java.util.List;
-import java.util.Locale;
 import java.util.OptionalLong;
-import javax.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.RegExUtils;
 import org.springframework.data.domain.Page;
@@ -19,6 +17,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -28,6 +27,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.view.freemarker.FreeMarkerConfigurer;
+import run.halo.app.cache.ContentPageCache;
+import run.halo.app.cache.FeedDocumentCache;
 import run.halo.app.model.dto.CategoryDTO;
 import run.halo.app.model.entity.Category;
 import run.halo.app.model.entity.Post;
@@ -52,7 +53,8 @@ public class ContentFeedController {
 
     private static final String XML_MEDIA_TYPE = MediaType.APPLICATION_XML_VALUE + UTF_8_SUFFIX;
 
-    private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+    private static final Pageable SITEMAP_PAGEABLE =
+        PageRequest.of(0, Integer.MAX_VALUE, Sort.by(DESC, "createTime"));
 
     private final PostService postService;
 
@@ -64,16 +66,20 @@ public class ContentFeedController {
 
     private final FreeMarkerConfigurer freeMarker;
 
+    private final FeedDocumentCache feedDocumentCache;
+
     public ContentFeedController(PostService postService,
         CategoryService categoryService,
         PostCategoryService postCategoryService,
         OptionService optionService,
-        FreeMarkerConfigurer freeMarker) {
+        FreeMarkerConfigurer freeMarker,
+        FeedDocumentCache feedDocumentCache) {
         this.postService = postService;
         this.categoryService = categoryService;
         this.postCategoryService = postCategoryService;
         this.optionService = optionService;
         this.freeMarker = freeMarker;
+        this.feedDocumentCache = feedDocumentCache;
     }
 
     /**
@@ -81,20 +87,13 @@ public class ContentFeedController {
      *
      * @param model model
      * @return rss xml content
-     * @throws IOException       throw IOException
-     * @throws TemplateException throw TemplateException
+     * @throws Exception if the document cannot be generated
      */
     @GetMapping(value = {"feed", "feed.xml", "rss", "rss.xml"}, produces = XML_MEDIA_TYPE)
-    @ResponseBody
-    public String feed(Model model, HttpServletResponse response)
-        throws IOException, TemplateException {
-        List<PostDetailVO> posts = buildPosts(buildPostPageable(optionService.getRssPageSize()));
-        model.addAttribute("posts", posts);
-        Timestamp lastModified = this.getLastModifiedTime(posts);
-        this.lastModified2ResponseHeader(response, lastModified);
-        model.addAttribute("lastModified", lastModified);
-        Template template = freeMarker.getConfiguration().getTemplate("common/web/rss.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    public ResponseEntity<byte[]> feed(Model model) throws Exception {
+        return toResponse(feedDocumentCache.get("rss", false, () -> renderFeed(model,
+            buildPosts(buildPostPageable(optionService.getRssPageSize())),
+            "common/web/rss.ftl")));
     }
 
     /**
@@ -103,26 +102,14 @@ public class ContentFeedController {
      * @param model model
      * @param slug slug
      * @return rss xml content
-     * @throws IOException       throw IOException
-     * @throws TemplateException throw TemplateException
+     * @throws Exception if the document cannot be generated
      */
     @GetMapping(value = {"feed/categories/{slug}",
         "feed/categories/{slug}.xml"}, produces = XML_MEDIA_TYPE)
-    @ResponseBody
-    public String feed(Model model, @PathVariable(name = "slug") String slug,
-        HttpServletResponse response)
-        throws IOException, TemplateException {
-        Category category = categoryService.getBySlugOfNonNull(slug);
-        CategoryDTO categoryDTO = categoryService.convertTo(category);
-        List<PostDetailVO> posts =
-            buildCategoryPosts(buildPostPageable(optionService.getRssPageSize()), categoryDTO);
-        model.addAttribute("category", categoryDTO);
-        model.addAttribute("posts", posts);
-        Timestamp lastModified = this.getLastModifiedTime(posts);
-        this.lastModified2ResponseHeader(response, lastModified);
-        model.addAttribute("lastModified", lastModified);
-        Template template = freeMarker.getConfiguration().getTemplate("common/web/rss.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    public ResponseEntity<byte[]> feed(Model model, @PathVariable(name = "slug") String slug)
+        throws Exception {
+        return toResponse(feedDocumentCache.get("rss:categories:" + slug, true,
+            () -> renderCategoryFeed(model, slug, "common/web/rss.ftl")));
     }
 
     /**
@@ -130,20 +117,13 @@ public class ContentFeedController {
      *
      * @param model model
      * @return atom xml content
-     * @throws IOException       IOException
-     * @throws TemplateException TemplateException
+     * @throws Exception if the document cannot be generated
      */
     @GetMapping(value = {"atom", "atom.xml"}, produces = XML_MEDIA_TYPE)
-    @ResponseBody
-    public String atom(Model model, HttpServletResponse response)
-        throws IOException, TemplateException {
-        List<PostDetailVO> posts = buildPosts(buildPostPageable(optionService.getRssPageSize()));
-        model.addAttribute("posts", posts);
-        Timestamp lastModified = this.getLastModifiedTime(posts);
-        this.lastModified2ResponseHeader(response, lastModified);
-        model.addAttribute("lastModified", lastModified);
-        Template template = freeMarker.getConfiguration().getTemplate("common/web/atom.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    public ResponseEntity<byte[]> atom(Model model) throws Exception {
+        return toResponse(feedDocumentCache.get("atom", false, () -> renderFeed(model,
+            buildPosts(buildPostPageable(optionService.getRssPageSize())),
+            "common/web/atom.ftl")));
     }
 
     /**
@@ -152,26 +132,14 @@ public class ContentFeedController {
      * @param model model
      * @param slug slug
      * @return atom xml content
-     * @throws IOException       throw IOException
-     * @throws TemplateException throw TemplateException
+     * @throws Exception if the document cannot be generated
      */
     @GetMapping(value = {"atom/categories/{slug}",
         "atom/categories/{slug}.xml"}, produces = XML_MEDIA_TYPE)
-    @ResponseBody
-    public String atom(Model model, @PathVariable(name = "slug") String slug,
-        HttpServletResponse response)
-        throws IOException, TemplateException {
-        Category category = categoryService.getBySlugOfNonNull(slug);
-        CategoryDTO categoryDTO = categoryService.convertTo(category);
-        List<PostDetailVO> posts =
-            buildCategoryPosts(buildPostPageable(optionService.getRssPageSize()), categoryDTO);
-        model.addAttribute("category", categoryDTO);
-        model.addAttribute("posts", posts);
-        Timestamp lastModified = this.getLastModifiedTime(posts);
-        this.lastModified2ResponseHeader(response, lastModified);
-        model.addAttribute("lastModified", lastModified);
-        Template template = freeMarker.getConfiguration().getTemplate("common/web/atom.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    public ResponseEntity<byte[]> atom(Model model, @PathVariable(name = "slug") String slug)
+        throws Exception {
+        return toResponse(feedDocumentCache.get("atom:categories:" + slug, true,
+            () -> renderCategoryFeed(model, slug, "common/web/atom.ftl")));
     }
 
     /**
@@ -179,17 +147,30 @@ public class ContentFeedController {
      *
      * @param model model
      * @return sitemap xml content.
-     * @throws IOException       IOException
-     * @throws TemplateException TemplateException
+     * @throws Exception if the document cannot be generated
      */
     @GetMapping(value = {"sitemap", "sitemap.xml"}, produces = XML_MEDIA_TYPE)
-    @ResponseBody
-    public String sitemapXml(Model model,
+    public ResponseEntity<byte[]> sitemapXml(Model model,
         @PageableDefault(size = Integer.MAX_VALUE, sort = "createTime", direction = DESC)
-            Pageable pageable) throws IOException, TemplateException {
-        model.addAttribute("posts", buildPosts(pageable));
-        Template template = freeMarker.getConfiguration().getTemplate("common/web/sitemap_xml.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+            Pageable pageable) throws Exception {
+        FeedDocumentCache.Generator generator = () -> {
+            model.addAttribute("posts", buildPosts(pageable));
+            Template template =
+                freeMarker.getConfiguration().getTemplate("common/web/sitemap_xml.ftl");
+            return new FeedDocumentCache.Generated(
+                FreeMarkerTemplateUtils.processTemplateIntoString(template, model)
+                    .getBytes(StandardCharsets.UTF_8),
+                System.currentTimeMillis());
+        };
+        if (!SITEMAP_PAGEABLE.equals(pageable)) {
+            // Only the full sitemap is kept
+            FeedDocumentCache.Generated generated = generator.generate();
+            return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(XML_MEDIA_TYPE))
+                .lastModified(generated.getLastModified())
+                .body(generated.getBody());
+        }
+        return toResponse(feedDocumentCache.get("sitemap", true, generator));
     }
 
     /**
@@ -241,6 +222,7 @@ public class ContentFeedController {
     private List<PostDetailVO> buildPosts(@NonNull Pageable pageable) {
         Assert.notNull(pageable, "Pageable must not be null");
 
+        ContentPageCache.addTags(ContentPageCache.TAG_POSTS, ContentPageCache.TAG_CATEGORIES);
         Page<Post> postPage = postService.pageBy(PostStatus.PUBLISHED, pageable);
         Page<PostDetailVO> posts = postService.convertToDetailVo(postPage);
         posts.getContent().forEach(postDetailVO -> {
@@ -285,9 +267,42 @@ public class ContentFeedController {
         return new Timestamp(lastModifiedTimestamp.getAsLong());
     }
 
-    private void lastModified2ResponseHeader(HttpServletResponse response, Timestamp time) {
-        SimpleDateFormat dateFormat =
-            new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.ENGLISH);
-        response.setHeader(LAST_MODIFIED_HEADER, dateFormat.format(time));
+    private FeedDocumentCache.Generated renderFeed(Model model, List<PostDetailVO> posts,
+        String templateName) throws IOException, TemplateException {
+        model.addAttribute("posts", posts);
+        Timestamp lastModified = this.getLastModifiedTime(posts);
+        model.addAttribute("lastModified", lastModified);
+        Template template = freeMarker.getConfiguration().getTemplate(templateName);
+        return new FeedDocumentCache.Generated(
+            FreeMarkerTemplateUtils.processTemplateIntoString(template, model)
+                .getBytes(StandardCharsets.UTF_8),
+            lastModified.getTime());
+    }
+
+    private FeedDocumentCache.Generated renderCategoryFeed(Model model, String slug,
+        String templateName) throws IOException, TemplateException {
+        Category category = categoryService.getBySlugOfNonNull(slug);
+        CategoryDTO categoryDTO = categoryService.convertTo(category);
+        model.addAttribute("category", categoryDTO);
+        return renderFeed(model,
+            buildCategoryPosts(buildPostPageable(optionService.getRssPageSize()), categoryDTO),
+            templateName);
+    }
+
+    /**
+     * Builds the response of a document, answered with {@code 304} if the conditional headers
+     * of the request match.
+     *
+     * @param document document
+     * @return response entity
+     */
+    private ResponseEntity<byte[]> toResponse(FeedDocumentCache.Document document) {
+        // Already kept by the feed document cache
+        ContentPageCache.bypass();
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(XML_MEDIA_TYPE))
+            .eTag(document.getEtag())
+            .lastModified(document.getLastModified())
+            .body(document.getBody());
     }
 }
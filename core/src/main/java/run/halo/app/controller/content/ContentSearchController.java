@@ -1,12 +1,9 @@
 package run.halo.app.controller.content;
 
-import static org.springframework.data.domain.Sort.Direction.DESC;
-
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.web.SortDefault;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,6 +14,7 @@ import org.springframework.web.util.HtmlUtils;
 import run.halo.app.model.entity.Post;
 import run.halo.app.model.vo.PostListVO;
 import run.halo.app.service.OptionService;
+import run.halo.app.service.PostSearchService;
 import run.halo.app.service.PostService;
 import run.halo.app.service.ThemeService;
 
@@ -36,11 +34,14 @@ public class ContentSearchController {
 
     private final ThemeService themeService;
 
+    private final PostSearchService postSearchService;
+
     public ContentSearchController(PostService postService, OptionService optionService,
-        ThemeService themeService) {
+        ThemeService themeService, PostSearchService postSearchService) {
         this.postService = postService;
         this.optionService = optionService;
         this.themeService = themeService;
+        this.postSearchService = postSearchService;
     }
 
     /**
@@ -53,11 +54,12 @@ public class ContentSearchController {
     @GetMapping
     public String search(Model model,
         @RequestParam(value = "keyword") String keyword) {
-        return this.search(model, HtmlUtils.htmlEscape(keyword), 1, Sort.by(DESC, "createTime"));
+        return this.search(model, HtmlUtils.htmlEscape(keyword), 1, Sort.unsorted());
     }
 
     /**
-     * Render post search page.
+     * Render post search page. Posts are ranked by relevance with highlighted summaries unless
+     * a sort is given.
      *
      * @param model model
      * @param keyword keyword
@@ -67,11 +69,17 @@ public class ContentSearchController {
     public String search(Model model,
         @RequestParam(value = "keyword") String keyword,
         @PathVariable(value = "page") Integer page,
-        @SortDefault(sort = "createTime", direction = DESC) Sort sort) {
+        Sort sort) {
         final Pageable pageable = PageRequest.of(page - 1, optionService.getPostPageSize(), sort);
         final Page<Post> postPage = postService.pageBy(keyword, pageable);
 
         final Page<PostListVO> posts = postService.convertToListVo(postPage);
+        if (postSearchService.isReady()) {
+            for (int i = 0; i < posts.getNumberOfElements(); i++) {
+                posts.getContent().get(i).setSummary(
+                    postSearchService.highlight(postPage.getContent().get(i), keyword));
+            }
+        }
 
         model.addAttribute("is_search", true);
         model.addAttribute("keyword", keyword);
@@ -13,6 +13,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 import org.springframework.ui.Model;
+import run.halo.app.cache.ContentPageCache;
 import run.halo.app.model.dto.CategoryDTO;
 import run.halo.app.model.entity.Category;
 import run.halo.app.model.entity.Post;
@@ -88,6 +89,7 @@ public class CategoryModel {
         final Category category = categoryService.getBySlugOfNonNull(slug, true);
 
         if (!authenticationService.categoryAuthentication(category.getId(), null)) {
+            ContentPageCache.bypass();
             model.addAttribute("slug", category.getSlug());
             model.addAttribute("type", EncryptTypeEnum.CATEGORY.getName());
             if (themeService.templateExists(POST_PASSWORD_TEMPLATE + SUFFIX_FTL)) {
@@ -99,6 +101,7 @@ public class CategoryModel {
         Set<PostStatus> statuses = Sets.immutableEnumSet(PostStatus.PUBLISHED);
         if (StringUtils.isNotBlank(category.getPassword())) {
             statuses = Sets.immutableEnumSet(PostStatus.INTIMATE);
+            ContentPageCache.bypass();
         }
 
         CategoryDTO categoryDTO = categoryService.convertTo(category);
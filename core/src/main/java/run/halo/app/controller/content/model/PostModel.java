@@ -13,6 +13,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 import org.springframework.ui.Model;
 import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.cache.ContentPageCache;
 import run.halo.app.exception.ForbiddenException;
 import run.halo.app.exception.NotFoundException;
 import run.halo.app.model.entity.Category;
@@ -107,6 +108,7 @@ public class PostModel {
             && !authenticationService.postAuthentication(post, null)
         ) {
             // Encrypted articles must has the correct password before they can be accessed.
+            ContentPageCache.bypass();
 
             model.addAttribute("slug", post.getSlug());
             model.addAttribute("type", EncryptTypeEnum.POST.getName());
@@ -118,6 +120,13 @@ public class PostModel {
 
         post = postService.getById(post.getId());
 
+        if (PostStatus.INTIMATE.equals(post.getStatus())) {
+            ContentPageCache.bypass();
+        }
+        ContentPageCache.addTags(ContentPageCache.postTag(post.getId()),
+            ContentPageCache.TAG_POSTS, ContentPageCache.TAG_CATEGORIES,
+            ContentPageCache.TAG_COMMENTS);
+
         if (post.getEditorType().equals(PostEditorType.MARKDOWN)) {
             post.setFormatContent(MarkdownUtils.renderHtml(post.getOriginalContent()));
         } else {
@@ -5,6 +5,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.ui.Model;
 import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.cache.ContentPageCache;
 import run.halo.app.exception.ForbiddenException;
 import run.halo.app.model.entity.Sheet;
 import run.halo.app.model.entity.SheetMeta;
@@ -77,6 +78,8 @@ public class SheetModel {
         }
 
         sheetService.publishVisitEvent(sheet.getId());
+        ContentPageCache.addTags(ContentPageCache.sheetTag(sheet.getId()),
+            ContentPageCache.TAG_COMMENTS);
 
         SheetDetailVO sheetDetailVO = sheetService.convertToDetailVo(sheet);
 
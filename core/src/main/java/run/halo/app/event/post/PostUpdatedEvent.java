@@ -0,0 +1,28 @@
+package run.halo.app.event.post;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Post updated event, published after a post is created, updated or removed.
+ *
+ * @author guqing
+ */
+public class PostUpdatedEvent extends ApplicationEvent {
+
+    private final Integer postId;
+
+    /**
+     * Create a new ApplicationEvent.
+     *
+     * @param source the object on which the event initially occurred (never {@code null})
+     * @param postId post id
+     */
+    public PostUpdatedEvent(Object source, Integer postId) {
+        super(source);
+        this.postId = postId;
+    }
+
+    public Integer getPostId() {
+        return postId;
+    }
+}
@@ -0,0 +1,21 @@
+package run.halo.app.event.post;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Posts rendered event, published after the format content of posts and sheets is rendered again
+ * in bulk, which publishes no {@link PostUpdatedEvent} for each of them.
+ *
+ * @author guqing
+ */
+public class PostsRenderedEvent extends ApplicationEvent {
+
+    /**
+     * Create a new ApplicationEvent.
+     *
+     * @param source the object on which the event initially occurred (never {@code null})
+     */
+    public PostsRenderedEvent(Object source) {
+        super(source);
+    }
+}
@@ -1,6 +1,9 @@
 package run.halo.app.extensions;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.pf4j.PluginWrapper;
@@ -13,7 +16,10 @@ import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.lang.NonNull;
 import org.springframework.util.Assert;
 import org.springframework.util.StopWatch;
+import run.halo.app.extensions.registry.ExtensionClassRegistry;
+import run.halo.app.extensions.registry.ExtensionClassRegistry.ClassDescriptor;
 import run.halo.app.extensions.registry.ExtensionContextRegistry;
+import run.halo.pluggable.processor.ComponentMetadata;
 
 /**
  * @author guqing
@@ -25,6 +31,8 @@ public class PluginApplicationInitializer {
 
     private final ExtensionContextRegistry contextRegistry = ExtensionContextRegistry.getInstance();
 
+    private final ExtensionClassRegistry classRegistry = ExtensionClassRegistry.getInstance();
+
     public PluginApplicationInitializer(SpringPluginManager springPluginManager) {
         this.springPluginManager = springPluginManager;
     }
@@ -109,6 +117,7 @@ public class PluginApplicationInitializer {
         if (removed != null) {
             removed.close();
         }
+        classRegistry.unregister(pluginId);
     }
 
     private Set<Class<?>> findCandidateComponents(String pluginId) {
@@ -120,8 +129,12 @@ public class PluginApplicationInitializer {
 
         // add extensions for each started plugin
         PluginWrapper plugin = springPluginManager.getPlugin(pluginId);
+        Map<String, ComponentMetadata> componentMetadata =
+            springPluginManager.getComponentMetadata(pluginId);
         log.debug("Registering extensions of the plugin '{}' as beans", pluginId);
         Set<Class<?>> candidateComponents = new HashSet<>();
+        List<ClassDescriptor> classDescriptors = new ArrayList<>();
+        List<ComponentMetadata> resolvedMetadata = new ArrayList<>();
         for (String extensionClassName : extensionClassNames) {
             log.debug("Load extension class '{}'", extensionClassName);
             try {
@@ -131,10 +144,37 @@ public class PluginApplicationInitializer {
                 stopWatch.stop();
 
                 candidateComponents.add(extensionClass);
+                ComponentMetadata metadata = componentMetadata.get(extensionClassName);
+                if (metadata == null) {
+                    // plugins built without the metadata index are described by reflection
+                    metadata = ClassDescriptor.resolveMetadata(extensionClass);
+                    resolvedMetadata.add(metadata);
+                }
+                classDescriptors.add(new ClassDescriptor(extensionClass, metadata));
             } catch (ClassNotFoundException e) {
                 log.error(e.getMessage(), e);
             }
         }
+
+        // entities are indexed but not registered as beans
+        for (ComponentMetadata metadata : componentMetadata.values()) {
+            if (SpringComponentsFinder.isCandidate(metadata)) {
+                continue;
+            }
+            try {
+                classDescriptors.add(new ClassDescriptor(
+                    plugin.getPluginClassLoader().loadClass(metadata.getClassName()), metadata));
+            } catch (ClassNotFoundException e) {
+                log.error(e.getMessage(), e);
+            }
+        }
+
+        classRegistry.register(pluginId, classDescriptors);
+
+        PluginMetadataCache metadataCache = springPluginManager.getMetadataCache();
+        if (metadataCache != null && !resolvedMetadata.isEmpty()) {
+            metadataCache.put(plugin, resolvedMetadata);
+        }
         System.out.println(
             "total millis: " + stopWatch.getTotalTimeMillis() + "ms ->" + stopWatch.prettyPrint());
         return candidateComponents;
@@ -0,0 +1,216 @@
+package run.halo.app.extensions;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.pf4j.PluginWrapper;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import run.halo.pluggable.processor.ComponentMetadata;
+import run.halo.pluggable.processor.ComponentMetadataIndex;
+
+/**
+ * On-disk cache of the component metadata of plugin archives, keyed by the SHA-256 of the
+ * archive, so an unchanged plugin is neither scanned nor reflected on again after a restart.
+ *
+ * <p>Each plugin has a file {@code <pluginId>.idx} holding the archive hash followed by a
+ * {@link ComponentMetadataIndex}. Only plugins packaged as a single archive are cached, plugin
+ * directories of the development mode always miss. The file is evicted when the plugin is
+ * unloaded or deleted.
+ *
+ * <p>Only plugins built without the binary index of the annotation processor are cached, the
+ * others read the index from their archive. Such plugins list no entities apart from their
+ * components, so the entity flags of the cached metadata are the whole entity list.
+ *
+ * @author guqing
+ */
+@Slf4j
+public class PluginMetadataCache {
+
+    private static final String FILE_SUFFIX = ".idx";
+
+    private final Path cacheDir;
+
+    /**
+     * Archive hashes of this run, keyed by archive path.
+     */
+    private final Map<Path, ArchiveHash> archiveHashes = new ConcurrentHashMap<>();
+
+    public PluginMetadataCache(@NonNull Path cacheDir) {
+        Assert.notNull(cacheDir, "The cacheDir must not be null.");
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Gets the cached metadata of the plugin.
+     *
+     * @param plugin plugin wrapper
+     * @return metadata keyed by class name, or null if absent or the archive has changed
+     */
+    @Nullable
+    public Map<String, ComponentMetadata> get(@NonNull PluginWrapper plugin) {
+        String hash = hash(plugin.getPluginPath());
+        if (hash == null) {
+            return null;
+        }
+
+        Path cacheFile = resolveCacheFile(plugin.getPluginId());
+        try (InputStream inputStream = new ByteArrayInputStream(Files.readAllBytes(cacheFile))) {
+            DataInputStream in = new DataInputStream(inputStream);
+            if (!hash.equals(in.readUTF())) {
+                log.debug("Plugin archive of [{}] has changed since it was cached",
+                    plugin.getPluginId());
+                return null;
+            }
+            return ComponentMetadataIndex.read(inputStream);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read the metadata cache of plugin [{}]", plugin.getPluginId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Caches the metadata of the plugin, replacing the previous one.
+     *
+     * @param plugin plugin wrapper
+     * @param metadata metadata of all classes registered for the plugin
+     */
+    public void put(@NonNull PluginWrapper plugin,
+        @NonNull Collection<ComponentMetadata> metadata) {
+        String hash = hash(plugin.getPluginPath());
+        if (hash == null) {
+            return;
+        }
+
+        Path cacheFile = resolveCacheFile(plugin.getPluginId());
+        try {
+            Files.createDirectories(cacheDir);
+            Path tempFile = Files.createTempFile(cacheDir, plugin.getPluginId(), ".tmp");
+            try {
+                try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                    DataOutputStream out = new DataOutputStream(outputStream);
+                    out.writeUTF(hash);
+                    ComponentMetadataIndex.write(out, metadata);
+                }
+                moveReplacing(tempFile, cacheFile);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            log.debug("Cached metadata of [{}] classes for plugin [{}]", metadata.size(),
+                plugin.getPluginId());
+        } catch (IOException e) {
+            log.warn("Failed to cache the metadata of plugin [{}]", plugin.getPluginId(), e);
+        }
+    }
+
+    /**
+     * Removes the cached metadata of the plugin.
+     *
+     * @param pluginId plugin id
+     */
+    public void evict(@NonNull String pluginId) {
+        try {
+            Files.deleteIfExists(resolveCacheFile(pluginId));
+        } catch (IOException e) {
+            log.warn("Failed to evict the metadata cache of plugin [{}]", pluginId, e);
+        }
+    }
+
+    private Path resolveCacheFile(String pluginId) {
+        return cacheDir.resolve(pluginId + FILE_SUFFIX);
+    }
+
+    /**
+     * Hashes the plugin archive, the hash is reused in this run until the archive is modified.
+     *
+     * @return hex hash of the archive, or null if the plugin is not a single archive
+     */
+    @Nullable
+    private String hash(@Nullable Path pluginPath) {
+        if (pluginPath == null) {
+            return null;
+        }
+        try {
+            BasicFileAttributes attributes =
+                Files.readAttributes(pluginPath, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            long size = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+
+            ArchiveHash archiveHash = archiveHashes.get(pluginPath);
+            if (archiveHash == null || archiveHash.size != size
+                || archiveHash.lastModified != lastModified) {
+                archiveHash = new ArchiveHash(size, lastModified, digest(pluginPath));
+                archiveHashes.put(pluginPath, archiveHash);
+            }
+            return archiveHash.hash;
+        } catch (IOException e) {
+            log.warn("Failed to hash the plugin archive [{}]", pluginPath, e);
+            return null;
+        }
+    }
+
+    private static String digest(Path path) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] buffer = new byte[8192];
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : messageDigest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static class ArchiveHash {
+        final long size;
+        final long lastModified;
+        final String hash;
+
+        ArchiveHash(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
@@ -13,14 +13,26 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.pf4j.AbstractExtensionFinder;
 import org.pf4j.PluginWrapper;
 import org.pf4j.processor.ExtensionStorage;
 import org.pf4j.processor.LegacyExtensionStorage;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import run.halo.pluggable.processor.ComponentMetadata;
+import run.halo.pluggable.processor.ComponentMetadataIndex;
 import run.halo.pluggable.processor.SpringComponentStorage;
 
 /**
+ * Finds the components of plugins from the index generated by the pluggable annotation
+ * processor.
+ *
+ * <p>The binary {@link ComponentMetadataIndex#INDEX_RESOURCE} is preferred since it also carries
+ * the {@link ComponentMetadata} of components, the plain {@link #EXTENSIONS_RESOURCE} is read
+ * for plugins built without it.
+ *
  * @author guqing
  * @since 2.0.0
  */
@@ -28,8 +40,14 @@ import run.halo.pluggable.processor.SpringComponentStorage;
 public class SpringComponentsFinder extends AbstractExtensionFinder {
     public static final String EXTENSIONS_RESOURCE = SpringComponentStorage.EXTENSIONS_RESOURCE;
 
+    private final Map<String, Map<String, ComponentMetadata>> componentMetadata =
+        new ConcurrentHashMap<>();
+
+    private final SpringPluginManager springPluginManager;
+
     public SpringComponentsFinder(SpringPluginManager pluginManager) {
         super(pluginManager);
+        this.springPluginManager = pluginManager;
     }
 
     @Override
@@ -50,14 +68,27 @@ public class SpringComponentsFinder extends AbstractExtensionFinder {
             Set<String> bucket = new HashSet<>();
 
             try {
-                log.debug("Read '{}'", EXTENSIONS_RESOURCE);
                 ClassLoader pluginClassLoader = plugin.getPluginClassLoader();
-                try (InputStream resourceStream = pluginClassLoader.getResourceAsStream(
-                    EXTENSIONS_RESOURCE)) {
-                    if (resourceStream == null) {
-                        log.debug("Cannot find '{}'", EXTENSIONS_RESOURCE);
-                    } else {
-                        collectExtensions(resourceStream, bucket);
+                Map<String, ComponentMetadata> metadata = readMetadata(pluginClassLoader);
+                if (metadata == null) {
+                    metadata = readCachedMetadata(plugin);
+                }
+                if (metadata != null) {
+                    metadata.values().stream()
+                        .filter(SpringComponentsFinder::isCandidate)
+                        .map(ComponentMetadata::getClassName)
+                        .forEach(bucket::add);
+                    componentMetadata.put(pluginId, metadata);
+                } else {
+                    componentMetadata.remove(pluginId);
+                    log.debug("Read '{}'", EXTENSIONS_RESOURCE);
+                    try (InputStream resourceStream = pluginClassLoader.getResourceAsStream(
+                        EXTENSIONS_RESOURCE)) {
+                        if (resourceStream == null) {
+                            log.debug("Cannot find '{}'", EXTENSIONS_RESOURCE);
+                        } else {
+                            collectExtensions(resourceStream, bucket);
+                        }
                     }
                 }
 
@@ -72,6 +103,55 @@ public class SpringComponentsFinder extends AbstractExtensionFinder {
         return result;
     }
 
+    /**
+     * Gets the component metadata of the plugin read from its index.
+     *
+     * @param pluginId plugin id
+     * @return metadata keyed by class name, empty if the plugin has no binary index
+     */
+    @NonNull
+    public Map<String, ComponentMetadata> getComponentMetadata(String pluginId) {
+        return componentMetadata.getOrDefault(pluginId, Collections.emptyMap());
+    }
+
+    /**
+     * Whether the class is a candidate component, entities are indexed but not components.
+     */
+    static boolean isCandidate(ComponentMetadata metadata) {
+        return metadata.isComponent() || !metadata.isEntity();
+    }
+
+    @Nullable
+    private Map<String, ComponentMetadata> readCachedMetadata(PluginWrapper plugin) {
+        PluginMetadataCache metadataCache = springPluginManager.getMetadataCache();
+        if (metadataCache == null) {
+            return null;
+        }
+        Map<String, ComponentMetadata> metadata = metadataCache.get(plugin);
+        if (metadata != null) {
+            log.debug("Read the cached metadata of plugin '{}'", plugin.getPluginId());
+            return Collections.unmodifiableMap(metadata);
+        }
+        return null;
+    }
+
+    @Nullable
+    private Map<String, ComponentMetadata> readMetadata(ClassLoader pluginClassLoader) {
+        log.debug("Read '{}'", ComponentMetadataIndex.INDEX_RESOURCE);
+        try (InputStream resourceStream = pluginClassLoader.getResourceAsStream(
+            ComponentMetadataIndex.INDEX_RESOURCE)) {
+            if (resourceStream == null) {
+                log.debug("Cannot find '{}'", ComponentMetadataIndex.INDEX_RESOURCE);
+                return null;
+            }
+            return Collections.unmodifiableMap(ComponentMetadataIndex.read(resourceStream));
+        } catch (IOException e) {
+            log.warn("Failed to read '{}', fall back to '{}'",
+                ComponentMetadataIndex.INDEX_RESOURCE, EXTENSIONS_RESOURCE, e);
+            return null;
+        }
+    }
+
     private void collectExtensions(Enumeration<URL> urls, Set<String> bucket) throws IOException {
         while (urls.hasMoreElements()) {
             URL url = urls.nextElement();
@@ -5,8 +5,18 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import lombok.extern.slf4j.Slf4j;
 import org.pf4j.DefaultPluginManager;
@@ -25,6 +35,7 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.util.StopWatch;
 import run.halo.app.extensions.config.model.PluginStartingError;
 import run.halo.app.extensions.event.HaloPluginStartedEvent;
@@ -32,6 +43,8 @@ import run.halo.app.extensions.event.HaloPluginStateChangedEvent;
 import run.halo.app.extensions.event.HaloPluginStoppedEvent;
 import run.halo.app.extensions.internal.PluginRequestMappingManager;
 import run.halo.app.extensions.internal.SpringExtensionFactory;
+import run.halo.app.extensions.registry.JpaRepositoryFactoryRegistry;
+import run.halo.pluggable.processor.ComponentMetadata;
 
 /**
  * PluginManager to hold the main ApplicationContext
@@ -44,7 +57,13 @@ public class SpringPluginManager extends DefaultPluginManager
     implements ApplicationContextAware, InitializingBean {
 
     private final Map<String, PluginStartingError> startingErrors = new HashMap<>();
+    private final Map<String, Long> startupMillis = new LinkedHashMap<>();
     private final ReentrantLock lock = new ReentrantLock();
+    private boolean parallelStartup = false;
+    private int startupThreads = Runtime.getRuntime().availableProcessors();
+    private PluginMetadataCache metadataCache;
+    private volatile Map<Class<?>, List<?>> extensionSnapshots = new ConcurrentHashMap<>();
+    private final AtomicLong extensionsGeneration = new AtomicLong();
     private ApplicationContext rootApplicationContext;
     private PluginApplicationInitializer pluginApplicationInitializer;
     private PluginRequestMappingManager requestMappingManager;
@@ -80,6 +99,20 @@ public class SpringPluginManager extends DefaultPluginManager
         return new SpringComponentsFinder(this);
     }
 
+    /**
+     * Gets the build-time component metadata of the plugin.
+     *
+     * @param pluginId plugin id
+     * @return metadata keyed by class name, empty if the plugin has no metadata index
+     */
+    @NonNull
+    public Map<String, ComponentMetadata> getComponentMetadata(String pluginId) {
+        if (extensionFinder instanceof SpringComponentsFinder) {
+            return ((SpringComponentsFinder) extensionFinder).getComponentMetadata(pluginId);
+        }
+        return Collections.emptyMap();
+    }
+
     public PluginRepository getPluginRepository() {
         return super.pluginRepository;
     }
@@ -112,9 +145,67 @@ public class SpringPluginManager extends DefaultPluginManager
         return startingErrors.get(pluginId);
     }
 
+    /**
+     * Gets the time taken by the plugin in the last {@link #startPlugins()}.
+     *
+     * @param pluginId plugin id
+     * @return startup millis or null if the plugin was not started by it
+     */
+    public Long getPluginStartupMillis(String pluginId) {
+        return startupMillis.get(pluginId);
+    }
+
+    public void setParallelStartup(boolean parallelStartup) {
+        this.parallelStartup = parallelStartup;
+    }
+
+    public void setStartupThreads(int startupThreads) {
+        this.startupThreads = startupThreads;
+    }
+
+    @Nullable
+    public PluginMetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    public void setMetadataCache(@Nullable PluginMetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
+    /**
+     * Gets the extensions of the type, from a snapshot which is reused until
+     * {@link #invalidateExtensions()}.
+     *
+     * @param type extension type
+     * @param <T> extension type
+     * @return unmodifiable extensions
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public <T> List<T> getExtensions(Class<T> type) {
-        return this.getExtensions(extensionFinder.find(type));
+        Map<Class<?>, List<?>> snapshots = this.extensionSnapshots;
+        List<?> extensions = snapshots.get(type);
+        if (extensions == null) {
+            extensions = Collections.unmodifiableList(
+                this.getExtensions(extensionFinder.find(type)));
+            snapshots.putIfAbsent(type, extensions);
+        }
+        return (List<T>) extensions;
+    }
+
+    /**
+     * Drops the extension snapshots once plugins are started or stopped.
+     */
+    public void invalidateExtensions() {
+        this.extensionSnapshots = new ConcurrentHashMap<>();
+        this.extensionsGeneration.incrementAndGet();
+    }
+
+    /**
+     * Gets the generation of extensions, it changes whenever the extensions are invalidated.
+     */
+    public long getExtensionsGeneration() {
+        return extensionsGeneration.get();
     }
 
     @Override
@@ -205,43 +296,197 @@ public class SpringPluginManager extends DefaultPluginManager
     @Override
     public void startPlugins() {
         startingErrors.clear();
+        startupMillis.clear();
         long ts = System.currentTimeMillis();
 
+        List<PluginWrapper> pluginsToStart = new ArrayList<>();
         for (PluginWrapper pluginWrapper : resolvedPlugins) {
             PluginState pluginState = pluginWrapper.getPluginState();
             if ((PluginState.DISABLED != pluginState) && (PluginState.STARTED != pluginState)) {
-                try {
-                    log.info("Start plugin '{}'", getPluginLabel(pluginWrapper.getDescriptor()));
-                    // inject bean
-                    pluginApplicationInitializer.onStartUp(pluginWrapper.getPluginId());
+                pluginsToStart.add(pluginWrapper);
+            }
+        }
 
-                    pluginWrapper.getPlugin().start();
+        if (parallelStartup && pluginsToStart.size() > 1) {
+            startPluginsInParallel(pluginsToStart);
+        } else {
+            startPluginsSequentially(pluginsToStart);
+        }
 
-                    requestMappingManager.registerControllers(pluginWrapper);
+        log.info("[Halo] {} plugins are started in {}ms. {} failed",
+            getPlugins(PluginState.STARTED).size(),
+            System.currentTimeMillis() - ts, startingErrors.size());
+        if (log.isDebugEnabled()) {
+            startupMillis.forEach((pluginId, millis) ->
+                log.debug("Plugin '{}' took {}ms to start", pluginId, millis));
+        }
+    }
 
-                    pluginWrapper.setPluginState(PluginState.STARTED);
-                    pluginWrapper.setFailedException(null);
-                    startedPlugins.add(pluginWrapper);
+    private void startPluginsSequentially(List<PluginWrapper> pluginsToStart) {
+        for (PluginWrapper pluginWrapper : pluginsToStart) {
+            PluginState pluginState = pluginWrapper.getPluginState();
+            long startNanos = System.nanoTime();
+            try {
+                log.info("Start plugin '{}'", getPluginLabel(pluginWrapper.getDescriptor()));
+                // inject bean
+                pluginApplicationInitializer.onStartUp(pluginWrapper.getPluginId());
+
+                completePluginStart(pluginWrapper);
+            } catch (Exception | LinkageError e) {
+                failPluginStart(pluginWrapper, e);
+            } finally {
+                startupMillis.put(pluginWrapper.getPluginId(), millisSince(startNanos));
+                firePluginStateEvent(new PluginStateEvent(this, pluginWrapper, pluginState));
+            }
+        }
+    }
 
-                    rootApplicationContext.publishEvent(
-                        new HaloPluginStartedEvent(this, pluginWrapper));
+    /**
+     * Starts plugins with their application contexts created concurrently.
+     *
+     * <p>The plugin application contexts, the expensive part of startup, are refreshed on a
+     * bounded pool, each one after its dependencies are fully started, so plugins without
+     * dependencies between them are refreshed concurrently. Starting the plugin instances,
+     * registering controllers, recording errors and publishing events still happen on the
+     * calling thread in the resolved order, so they are as deterministic as the sequential
+     * startup. A plugin whose required dependency failed is failed without being refreshed.
+     *
+     * @param pluginsToStart plugins to start in resolved order
+     */
+    private void startPluginsInParallel(List<PluginWrapper> pluginsToStart) {
+        // The extension index is lazily read, read it before going concurrent
+        pluginsToStart.forEach(
+            pluginWrapper -> getExtensionClassNames(pluginWrapper.getPluginId()));
+
+        int threads = Math.max(1, Math.min(startupThreads, pluginsToStart.size()));
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable,
+                "plugin-startup-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            // Completed on the calling thread once the plugin is started or failed
+            Map<String, CompletableFuture<Void>> startFutures = new HashMap<>();
+            Map<String, CompletableFuture<Long>> contextFutures = new HashMap<>();
+            // Resolved plugins are sorted by dependencies, so dependency futures already exist
+            for (PluginWrapper pluginWrapper : pluginsToStart) {
+                String pluginId = pluginWrapper.getPluginId();
+                CompletableFuture<?>[] dependencyFutures =
+                    pluginWrapper.getDescriptor().getDependencies().stream()
+                        .map(dependency -> dependencyStartFuture(pluginId, dependency,
+                            startFutures.get(dependency.getPluginId())))
+                        .filter(Objects::nonNull)
+                        .toArray(CompletableFuture[]::new);
+
+                startFutures.put(pluginId, new CompletableFuture<>());
+                contextFutures.put(pluginId, CompletableFuture.allOf(dependencyFutures)
+                    .thenApplyAsync(result -> {
+                        long startNanos = System.nanoTime();
+                        pluginApplicationInitializer.onStartUp(pluginId);
+                        return millisSince(startNanos);
+                    }, executor));
+            }
+
+            for (PluginWrapper pluginWrapper : pluginsToStart) {
+                PluginState pluginState = pluginWrapper.getPluginState();
+                String pluginId = pluginWrapper.getPluginId();
+                long startNanos = System.nanoTime();
+                long contextMillis = 0;
+                try {
+                    log.info("Start plugin '{}'", getPluginLabel(pluginWrapper.getDescriptor()));
+                    contextMillis = contextFutures.get(pluginId).join();
+
+                    checkDependenciesStarted(pluginWrapper);
+
+                    completePluginStart(pluginWrapper);
+                } catch (CompletionException e) {
+                    failPluginStart(pluginWrapper, e.getCause());
                 } catch (Exception | LinkageError e) {
-                    pluginWrapper.setPluginState(PluginState.FAILED);
-                    pluginWrapper.setFailedException(e);
-                    startingErrors.put(pluginWrapper.getPluginId(), PluginStartingError.of(
-                        pluginWrapper.getPluginId(), e.getMessage(), e.toString()));
-                    releaseAdditionalResources(pluginWrapper.getPluginId());
-                    log.error("Unable to start plugin '{}'",
-                        getPluginLabel(pluginWrapper.getDescriptor()), e);
+                    failPluginStart(pluginWrapper, e);
                 } finally {
+                    CompletableFuture<Void> startFuture = startFutures.get(pluginId);
+                    if (PluginState.STARTED == pluginWrapper.getPluginState()) {
+                        startFuture.complete(null);
+                    } else {
+                        startFuture.completeExceptionally(new PluginRuntimeException(
+                            "Plugin '{}' failed to start", pluginId));
+                    }
+                    startupMillis.put(pluginId, contextMillis + millisSince(startNanos));
                     firePluginStateEvent(new PluginStateEvent(this, pluginWrapper, pluginState));
                 }
             }
+        } finally {
+            executor.shutdown();
         }
+    }
 
-        log.info("[Halo] {} plugins are started in {}ms. {} failed",
-            getPlugins(PluginState.STARTED).size(),
-            System.currentTimeMillis() - ts, startingErrors.size());
+    /**
+     * Gets the future the plugin waits for before its context is refreshed.
+     *
+     * @param pluginId id of the dependent plugin
+     * @param dependency dependency
+     * @param startFuture start future of the dependency, null if it is not started now
+     * @return future failing if a required dependency failed, or null if there is none
+     */
+    @Nullable
+    private static CompletableFuture<Void> dependencyStartFuture(String pluginId,
+        PluginDependency dependency, @Nullable CompletableFuture<Void> startFuture) {
+        if (startFuture == null) {
+            return null;
+        }
+        if (dependency.isOptional()) {
+            return startFuture.exceptionally(e -> null);
+        }
+        return startFuture.exceptionally(e -> {
+            throw new CompletionException(new PluginRuntimeException(
+                "Dependency '{}' of plugin '{}' failed to start",
+                dependency.getPluginId(), pluginId));
+        });
+    }
+
+    private void checkDependenciesStarted(PluginWrapper pluginWrapper) {
+        for (PluginDependency dependency : pluginWrapper.getDescriptor().getDependencies()) {
+            PluginWrapper dependencyWrapper = getPlugin(dependency.getPluginId());
+            if (dependencyWrapper == null) {
+                continue;
+            }
+            if (!dependency.isOptional()
+                && PluginState.STARTED != dependencyWrapper.getPluginState()) {
+                throw new PluginRuntimeException(
+                    "Dependency '{}' of plugin '{}' is not started, its state is '{}'",
+                    dependency.getPluginId(), pluginWrapper.getPluginId(),
+                    dependencyWrapper.getPluginState());
+            }
+        }
+    }
+
+    private void completePluginStart(PluginWrapper pluginWrapper) {
+        pluginWrapper.getPlugin().start();
+
+        requestMappingManager.registerControllers(pluginWrapper);
+
+        pluginWrapper.setPluginState(PluginState.STARTED);
+        pluginWrapper.setFailedException(null);
+        startedPlugins.add(pluginWrapper);
+
+        rootApplicationContext.publishEvent(new HaloPluginStartedEvent(this, pluginWrapper));
+    }
+
+    private void failPluginStart(PluginWrapper pluginWrapper, Throwable e) {
+        pluginWrapper.setPluginState(PluginState.FAILED);
+        pluginWrapper.setFailedException(e);
+        startingErrors.put(pluginWrapper.getPluginId(), PluginStartingError.of(
+            pluginWrapper.getPluginId(), e.getMessage(), e.toString()));
+        releaseAdditionalResources(pluginWrapper.getPluginId());
+        log.error("Unable to start plugin '{}'",
+            getPluginLabel(pluginWrapper.getDescriptor()), e);
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
     }
 
     @Override
@@ -259,6 +504,19 @@ public class SpringPluginManager extends DefaultPluginManager
         return stopPlugin(pluginId, true);
     }
 
+    /**
+     * Unloads the plugin and evicts its cached metadata, the plugin is going to be deleted or
+     * replaced. {@link #deletePlugin(String)} unloads through here as well.
+     */
+    @Override
+    public boolean unloadPlugin(String pluginId) {
+        boolean unloaded = super.unloadPlugin(pluginId);
+        if (unloaded && metadataCache != null) {
+            metadataCache.evict(pluginId);
+        }
+        return unloaded;
+    }
+
     private PluginState doStartPlugin(String pluginId) {
         checkPluginId(pluginId);
         StopWatch stopWatch = new StopWatch();
@@ -332,7 +590,8 @@ public class SpringPluginManager extends DefaultPluginManager
             if (plugin.getPluginState() == PluginState.STARTED) {
                 startedPluginIds.add(plugin.getPluginId());
             }
-            unloadPlugin(plugin.getPluginId());
+            // keep the metadata cache, the plugins are loaded again right away
+            unloadPlugin(plugin.getPluginId(), true);
         });
         loadPlugins();
         if (restartStartedOnly) {
@@ -372,6 +631,11 @@ public class SpringPluginManager extends DefaultPluginManager
         } catch (Exception e) {
             log.trace("Plugin application context close failed. ", e);
         }
+        try {
+            JpaRepositoryFactoryRegistry.getInstance().remove(pluginId);
+        } catch (Exception e) {
+            log.warn("Plugin session factory close failed. ", e);
+        }
     }
 
     // end-region
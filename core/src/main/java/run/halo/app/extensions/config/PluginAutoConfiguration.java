@@ -9,6 +9,7 @@ import java.io.InputStreamReader;
 import java.lang.reflect.Constructor;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import lombok.extern.slf4j.Slf4j;
 import org.pf4j.ClassLoadingStrategy;
@@ -34,6 +35,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import run.halo.app.config.properties.HaloProperties;
+import run.halo.app.extensions.PluginMetadataCache;
 import run.halo.app.extensions.SpringPluginManager;
 import run.halo.app.extensions.internal.PluginRequestMappingManager;
 
@@ -49,9 +52,14 @@ import run.halo.app.extensions.internal.PluginRequestMappingManager;
 @EnableConfigurationProperties({PluginProperties.class})
 public class PluginAutoConfiguration {
 
+    private static final String PLUGIN_METADATA_CACHE_DIR = ".plugin-cache";
+
     @Autowired
     private PluginProperties pluginProperties;
 
+    @Autowired
+    private HaloProperties haloProperties;
+
     @Autowired
     private RequestMappingHandlerMapping requestMappingHandlerMapping;
 
@@ -155,6 +163,12 @@ public class PluginAutoConfiguration {
 
         pluginManager.setExactVersionAllowed(pluginProperties.isExactVersionAllowed());
         pluginManager.setSystemVersion(pluginProperties.getSystemVersion());
+        pluginManager.setParallelStartup(pluginProperties.isParallelStartup());
+        pluginManager.setStartupThreads(pluginProperties.getStartupThreads());
+        if (pluginProperties.isMetadataCache()) {
+            pluginManager.setMetadataCache(new PluginMetadataCache(
+                Paths.get(haloProperties.getWorkDir(), PLUGIN_METADATA_CACHE_DIR)));
+        }
 
         return pluginManager;
     }
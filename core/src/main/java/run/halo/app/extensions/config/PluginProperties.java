@@ -69,4 +69,51 @@ public class PluginProperties {
      */
     private String systemVersion = "0.0.0";
 
+    /**
+     * Create the application contexts of independent plugins concurrently on startup
+     */
+    private boolean parallelStartup = false;
+
+    /**
+     * Max threads used by parallel startup
+     */
+    private int startupThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Cache the component metadata of plugin archives under the work directory, keyed by the
+     * archive hash
+     */
+    private boolean metadataCache = true;
+
+    /**
+     * Persistence of plugin entities
+     */
+    private Jpa jpa = new Jpa();
+
+    @Data
+    public static class Jpa {
+
+        /**
+         * Hibernate DDL mode of plugin entities: none/validate/update/create/create-drop
+         */
+        private String ddlAuto = "update";
+
+        /**
+         * Log the SQL statements of plugins
+         */
+        private boolean showSql = false;
+
+        /**
+         * Format the logged SQL statements
+         */
+        private boolean formatSql = false;
+
+        /**
+         * Additional hibernate properties, e.g. to enable the second-level cache with
+         * {@code hibernate.cache.use_second_level_cache} and
+         * {@code hibernate.cache.region.factory_class}
+         */
+        private Map<String, String> properties = new HashMap<>();
+    }
+
 }
@@ -2,6 +2,7 @@ package run.halo.app.extensions.extpoint;
 
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -11,6 +12,12 @@ import run.halo.app.extensions.SpringPluginManager;
 import run.halo.app.extensions.registry.ExtensionClassRegistry;
 
 /**
+ * Sorted extensions of an extension point.
+ *
+ * <p>The extensions are loaded once into an immutable snapshot, which is reloaded on the next
+ * access after {@link SpringPluginManager#invalidateExtensions()}, so the instances can be held
+ * and iterated on hot paths.
+ *
  * @author guqing
  * @since 2021-11-08
  */
@@ -18,13 +25,13 @@ public class ExtensionList<T> extends AbstractList<T> {
 
     public final Class<T> extensionType;
     private final SpringPluginManager pluginManager;
-    private volatile List<ExtensionComponent<T>> extensions;
+    private volatile Snapshot<T> extensions;
 
     protected ExtensionList(SpringPluginManager pluginManager, Class<T> extensionType) {
         this.pluginManager = pluginManager;
         this.extensionType = extensionType;
         if (pluginManager == null) {
-            extensions = Collections.emptyList();
+            extensions = new Snapshot<>(0L, Collections.emptyList());
         }
     }
 
@@ -62,39 +69,35 @@ public class ExtensionList<T> extends AbstractList<T> {
     @Override
     @NonNull
     public Iterator<T> iterator() {
-        // we need to intercept mutation, so for now don't allow Iterator.remove
-        return new Iterators<>(Collections.unmodifiableList(ensureLoaded()).iterator()) {
-            @Override
-            protected T expand(ExtensionComponent<T> item) {
-                return item.getInstance();
-            }
-        };
+        // the instances are unmodifiable, so Iterator.remove is not allowed
+        return ensureLoaded().instances.iterator();
     }
 
     /**
      * Gets the same thing as the 'this' list represents, except as {@link ExtensionComponent}s.
      */
     public List<ExtensionComponent<T>> getComponents() {
-        return Collections.unmodifiableList(ensureLoaded());
+        return ensureLoaded().components;
     }
 
-
-    @SuppressWarnings("unchecked")
-    private List<ExtensionComponent<T>> ensureLoaded() {
-        if (extensions != null) {
-            return extensions; // already loaded
+    private Snapshot<T> ensureLoaded() {
+        Snapshot<T> snapshot = this.extensions;
+        if (snapshot != null && (pluginManager == null
+            || snapshot.generation == pluginManager.getExtensionsGeneration())) {
+            return snapshot; // already loaded
         }
         pluginManager.acquireLock();
         try {
+            long generation = pluginManager.getExtensionsGeneration();
             List<ExtensionComponent<T>> collect = ExtensionClassRegistry.getInstance()
-                .getAllExtPoints()
+                .findExtPoints(extensionType)
                 .stream()
-                .filter(extensionType::isAssignableFrom)
-                .map(t -> (T) pluginManager.getExtensions(t))
-                .map(ExtensionComponent::create)
+                .flatMap(extPoint -> pluginManager.getExtensions(extPoint).stream())
+                .map(extension -> ExtensionComponent.create(extensionType.cast(extension)))
                 .collect(Collectors.toList());
-            this.extensions = sort(collect);
-            return this.extensions;
+            snapshot = new Snapshot<>(generation, sort(collect));
+            this.extensions = snapshot;
+            return snapshot;
         } finally {
             pluginManager.releaseLock();
         }
@@ -102,12 +105,12 @@ public class ExtensionList<T> extends AbstractList<T> {
 
     @Override
     public T get(int index) {
-        return ensureLoaded().get(index).getInstance();
+        return ensureLoaded().instances.get(index);
     }
 
     @Override
     public int size() {
-        return ensureLoaded().size();
+        return ensureLoaded().instances.size();
     }
 
     @Override
@@ -119,10 +122,11 @@ public class ExtensionList<T> extends AbstractList<T> {
 
     private synchronized void addSync(T t) {
         // if we've already filled extensions, add it
-        if (extensions != null) {
-            List<ExtensionComponent<T>> r = new ArrayList<>(extensions);
+        Snapshot<T> snapshot = extensions;
+        if (snapshot != null) {
+            List<ExtensionComponent<T>> r = new ArrayList<>(snapshot.components);
             r.add(ExtensionComponent.create(t));
-            extensions = sort(r);
+            extensions = new Snapshot<>(snapshot.generation, sort(r));
         }
     }
 
@@ -153,4 +157,25 @@ public class ExtensionList<T> extends AbstractList<T> {
             }
         };
     }
+
+    /**
+     * Loaded extensions, the instances are kept in an array so iterating them needs no
+     * unwrapping.
+     */
+    private static final class Snapshot<T> {
+        final long generation;
+        final List<ExtensionComponent<T>> components;
+        final List<T> instances;
+
+        @SuppressWarnings("unchecked")
+        Snapshot(long generation, List<ExtensionComponent<T>> components) {
+            this.generation = generation;
+            this.components = Collections.unmodifiableList(components);
+            Object[] instances = new Object[components.size()];
+            for (int i = 0; i < instances.length; i++) {
+                instances[i] = components.get(i).getInstance();
+            }
+            this.instances = Collections.unmodifiableList(Arrays.asList((T[]) instances));
+        }
+    }
 }
@@ -12,6 +12,7 @@ import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Repository;
+import run.halo.app.extensions.config.PluginProperties;
 import run.halo.app.extensions.registry.ExtensionClassRegistry;
 import run.halo.app.extensions.internal.ExtensionInjectedEvent;
 import run.halo.app.extensions.registry.JpaRepositoryFactoryRegistry;
@@ -27,9 +28,10 @@ public class ExtensionClassStateListener implements ApplicationContextAware {
     private final JpaRepositoryFactoryRegistry jpaRepositoryFactoryRegistry;
     private ApplicationContext applicationContext;
 
-    public ExtensionClassStateListener(DataSource dataSource) {
+    public ExtensionClassStateListener(DataSource dataSource, PluginProperties pluginProperties) {
         this.jpaRepositoryFactoryRegistry = JpaRepositoryFactoryRegistry.getInstance();
         this.jpaRepositoryFactoryRegistry.setDataSource(dataSource);
+        this.jpaRepositoryFactoryRegistry.setJpaProperties(pluginProperties.getJpa());
     }
 
     @EventListener(ExtensionInjectedEvent.class)
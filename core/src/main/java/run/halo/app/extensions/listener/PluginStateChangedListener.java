@@ -29,13 +29,21 @@ import run.halo.app.extensions.registry.PluginListenerRegistry;
 @ConditionalOnProperty(prefix = PluginProperties.PREFIX, value = "enabled", havingValue = "true")
 public class PluginStateChangedListener {
 
+    private final SpringPluginManager pluginManager;
+
+    public PluginStateChangedListener(SpringPluginManager pluginManager) {
+        this.pluginManager = pluginManager;
+    }
+
     @EventListener(HaloPluginStartedEvent.class)
     public void onPluginStarted(HaloPluginStartedEvent event) {
         log.info("The plugin starts successfully.");
+        pluginManager.invalidateExtensions();
     }
 
     @EventListener(HaloPluginStoppedEvent.class)
     public void onPluginStopped(HaloPluginStoppedEvent event) {
         log.info("Plugin {} is stopped", event.getPlugin().getPluginId());
+        pluginManager.invalidateExtensions();
     }
 }
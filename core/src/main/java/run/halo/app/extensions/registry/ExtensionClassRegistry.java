@@ -1,42 +1,64 @@
 package run.halo.app.extensions.registry;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import javax.persistence.Entity;
+import org.apache.commons.lang3.ClassUtils;
 import org.pf4j.Extension;
 import org.pf4j.ExtensionPoint;
 import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.core.annotation.RepeatableContainers;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.web.bind.annotation.RestController;
+import run.halo.pluggable.processor.ComponentMetadata;
+import run.halo.pluggable.processor.ComponentMetadata.Stereotype;
 
 /**
+ * Registry of the classes registered by plugins.
+ *
+ * <p>The registrations are held in an immutable {@link Snapshot} published through a volatile
+ * reference, together with indexes by annotation type and by extension point type. Readers
+ * never lock and never rescan classes, writers are serialized and publish a new snapshot in
+ * which only the indexes of the changed plugin are rebuilt.
+ *
  * @author guqing
  * @since 2021-11-15
  */
 public class ExtensionClassRegistry {
     private static final ExtensionClassRegistry INSTANCE = new ExtensionClassRegistry();
 
-    private final Map<String, List<ClassDescriptor>> registry = new HashMap<>();
-    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final Object writeLock = new Object();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
 
     public Map<String, List<ClassDescriptor>> getRegistrations() {
-        return this.registry;
+        return this.snapshot.registrations;
     }
 
     public static ExtensionClassRegistry getInstance() {
@@ -46,140 +68,252 @@ public class ExtensionClassRegistry {
     private ExtensionClassRegistry() {
     }
 
-    /**
-     * Acquire the read lock when using getMappings and getMappingsByUrl.
-     */
-    public void acquireReadLock() {
-        this.readWriteLock.readLock().lock();
-    }
-
-    /**
-     * Release the read lock after using getMappings and getMappingsByUrl.
-     */
-    public void releaseReadLock() {
-        this.readWriteLock.readLock().unlock();
-    }
-
     public void register(String pluginId, Class<?> clazz) {
         ClassDescriptor classDescriptor = new ClassDescriptor(clazz);
-        this.register(pluginId, classDescriptor);
+        this.register(pluginId, List.of(classDescriptor));
     }
 
     public void register(String pluginId, String beanName, Class<?> clazz) {
         ClassDescriptor classDescriptor = new ClassDescriptor(beanName, clazz);
-        this.register(pluginId, classDescriptor);
+        this.register(pluginId, List.of(classDescriptor));
     }
 
-    private void register(String pluginId, ClassDescriptor classDescriptor) {
-        this.readWriteLock.writeLock().lock();
-        try {
-            List<ClassDescriptor> classList =
-                registry.computeIfAbsent(pluginId, key -> new LinkedList<>());
-            classList.add(classDescriptor);
-        } finally {
-            this.readWriteLock.writeLock().unlock();
+    /**
+     * Registers a class described by its build-time metadata, without reflection.
+     */
+    public void register(String pluginId, Class<?> clazz, ComponentMetadata metadata) {
+        ClassDescriptor classDescriptor = new ClassDescriptor(clazz, metadata);
+        this.register(pluginId, List.of(classDescriptor));
+    }
+
+    /**
+     * Registers the classes of a plugin at once, the indexes are rebuilt only once.
+     */
+    public void register(String pluginId, Collection<ClassDescriptor> classDescriptors) {
+        Assert.notNull(pluginId, "The pluginId must not be null.");
+        if (classDescriptors.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            List<ClassDescriptor> classes = new ArrayList<>(
+                snapshot.registrations.getOrDefault(pluginId, Collections.emptyList()));
+            classes.addAll(classDescriptors);
+            this.snapshot = snapshot.with(pluginId, classes);
         }
     }
 
     public void unregister(String pluginId, Class<?> bean) {
-        this.readWriteLock.writeLock().lock();
-        try {
-            List<ClassDescriptor> classes = registry.get(pluginId);
+        synchronized (writeLock) {
+            List<ClassDescriptor> classes = snapshot.registrations.get(pluginId);
             if (CollectionUtils.isEmpty(classes)) {
                 return;
             }
-            classes.remove(new ClassDescriptor(bean));
-        } finally {
-            this.readWriteLock.writeLock().unlock();
+            List<ClassDescriptor> remaining = classes.stream()
+                .filter(classDescriptor -> !classDescriptor.getTargetClass().equals(bean))
+                .collect(Collectors.toList());
+            this.snapshot = snapshot.with(pluginId, remaining);
         }
     }
 
     public List<ClassDescriptor> unregister(String pluginId) {
-        this.readWriteLock.writeLock().lock();
-        try {
-            List<ClassDescriptor> removed = registry.remove(pluginId);
-            if (CollectionUtils.isEmpty(removed)) {
+        synchronized (writeLock) {
+            List<ClassDescriptor> removed = snapshot.registrations.get(pluginId);
+            if (removed == null) {
                 return Collections.emptyList();
             }
-            return ImmutableList.copyOf(removed);
-        } finally {
-            this.readWriteLock.writeLock().unlock();
+            this.snapshot = snapshot.with(pluginId, Collections.emptyList());
+            return removed;
         }
     }
 
     public Set<Class<?>> getAllExtPoints() {
-        acquireReadLock();
-        try {
-            Set<Class<?>> classes = getRegistrations().values()
-                .stream()
-                .flatMap(Collection::stream)
-                .filter(ClassDescriptor::isExtPoint)
-                .map(ClassDescriptor::getTargetClass)
-                .collect(Collectors.toSet());
-
-            return ImmutableSet.copyOf(classes);
-        } finally {
-            releaseReadLock();
-        }
+        return snapshot.extPoints;
+    }
+
+    /**
+     * Finds the registered extension point classes assignable to the given type.
+     *
+     * @param type extension point interface or any super type of extension point classes
+     * @return extension point classes
+     */
+    public Set<Class<?>> findExtPoints(Class<?> type) {
+        return snapshot.extPointsByType.getOrDefault(type, Collections.emptySet());
     }
 
     public List<Class<?>> findClassesWithAnnotation(String pluginId,
         Class<? extends Annotation> annotationType) {
-        this.acquireReadLock();
-        try {
-            if (!this.getRegistrations().containsKey(pluginId)) {
-                return Collections.emptyList();
-            }
-            return this.getRegistrations().get(pluginId)
-                .stream()
-                .map(ClassDescriptor::getTargetClass)
-                .filter(clazz -> AnnotatedElementUtils.hasAnnotation(clazz, annotationType))
-                .collect(Collectors.toList());
-        } finally {
-            this.releaseReadLock();
+        PluginIndex pluginIndex = snapshot.pluginIndexes.get(pluginId);
+        if (pluginIndex == null) {
+            return Collections.emptyList();
         }
+        return pluginIndex.classesByAnnotation.getOrDefault(annotationType,
+            Collections.emptyList());
     }
 
     public List<Class<?>> findClasses(String pluginId, Predicate<ClassDescriptor> filter) {
-        this.acquireReadLock();
-        try {
-            if (!containsPlugin(pluginId)) {
-                return Collections.emptyList();
-            }
-            List<Class<?>> classes = registry.get(pluginId)
-                .stream()
-                .filter(filter)
-                .map(ClassDescriptor::getTargetClass)
-                .collect(Collectors.toList());
-            return ImmutableList.copyOf(classes);
-        } finally {
-            this.releaseReadLock();
+        List<ClassDescriptor> classes = snapshot.registrations.get(pluginId);
+        if (classes == null) {
+            return Collections.emptyList();
         }
+        return classes.stream()
+            .filter(filter)
+            .map(ClassDescriptor::getTargetClass)
+            .collect(ImmutableList.toImmutableList());
     }
 
     public boolean containsPlugin(String pluginId) {
-        return registry.containsKey(pluginId);
+        return snapshot.registrations.containsKey(pluginId);
+    }
+
+    /**
+     * Immutable state of the registry.
+     */
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY =
+            new Snapshot(ImmutableMap.of(), ImmutableMap.of(), ImmutableSet.of(),
+                ImmutableMap.of());
+
+        final Map<String, List<ClassDescriptor>> registrations;
+        final Map<String, PluginIndex> pluginIndexes;
+        final Set<Class<?>> extPoints;
+        final Map<Class<?>, Set<Class<?>>> extPointsByType;
+
+        Snapshot(Map<String, List<ClassDescriptor>> registrations,
+            Map<String, PluginIndex> pluginIndexes, Set<Class<?>> extPoints,
+            Map<Class<?>, Set<Class<?>>> extPointsByType) {
+            this.registrations = registrations;
+            this.pluginIndexes = pluginIndexes;
+            this.extPoints = extPoints;
+            this.extPointsByType = extPointsByType;
+        }
+
+        /**
+         * Creates a snapshot with the classes of the plugin replaced, an empty list removes the
+         * plugin.
+         */
+        Snapshot with(String pluginId, List<ClassDescriptor> classes) {
+            Map<String, List<ClassDescriptor>> registrations = new LinkedHashMap<>(
+                this.registrations);
+            Map<String, PluginIndex> pluginIndexes = new LinkedHashMap<>(this.pluginIndexes);
+            if (classes.isEmpty()) {
+                registrations.remove(pluginId);
+                pluginIndexes.remove(pluginId);
+            } else {
+                registrations.put(pluginId, ImmutableList.copyOf(classes));
+                pluginIndexes.put(pluginId, new PluginIndex(classes));
+            }
+
+            // extension points are few, rebuilding them is cheap
+            Set<Class<?>> extPoints = new LinkedHashSet<>();
+            Map<Class<?>, Set<Class<?>>> extPointsByType = new HashMap<>();
+            for (PluginIndex pluginIndex : pluginIndexes.values()) {
+                extPoints.addAll(pluginIndex.extPoints);
+                pluginIndex.extPointsByType.forEach((type, extPointClasses) ->
+                    extPointsByType.computeIfAbsent(type, key -> new LinkedHashSet<>())
+                        .addAll(extPointClasses));
+            }
+
+            return new Snapshot(ImmutableMap.copyOf(registrations),
+                ImmutableMap.copyOf(pluginIndexes), ImmutableSet.copyOf(extPoints),
+                extPointsByType.entrySet().stream().collect(ImmutableMap.toImmutableMap(
+                    Map.Entry::getKey, entry -> ImmutableSet.copyOf(entry.getValue()))));
+        }
+    }
+
+    /**
+     * Indexes of the classes of a plugin.
+     */
+    private static final class PluginIndex {
+
+        final Map<Class<? extends Annotation>, List<Class<?>>> classesByAnnotation;
+        final Set<Class<?>> extPoints;
+        final Map<Class<?>, Set<Class<?>>> extPointsByType;
+
+        PluginIndex(List<ClassDescriptor> classes) {
+            Map<Class<? extends Annotation>, Set<Class<?>>> classesByAnnotation =
+                new LinkedHashMap<>();
+            Set<Class<?>> extPoints = new LinkedHashSet<>();
+            Map<Class<?>, Set<Class<?>>> extPointsByType = new HashMap<>();
+            for (ClassDescriptor classDescriptor : classes) {
+                Class<?> clazz = classDescriptor.getTargetClass();
+                // the same annotations AnnotatedElementUtils.hasAnnotation finds, including the
+                // ones on superclasses and interfaces whether they are @Inherited or not
+                MergedAnnotations
+                    .from(clazz, SearchStrategy.TYPE_HIERARCHY, RepeatableContainers.none())
+                    .stream()
+                    .map(MergedAnnotation::getType)
+                    .forEach(annotationType ->
+                        classesByAnnotation.computeIfAbsent(annotationType,
+                            key -> new LinkedHashSet<>()).add(clazz));
+
+                if (classDescriptor.isExtPoint()) {
+                    extPoints.add(clazz);
+                    extPointsByType.computeIfAbsent(clazz, key -> new LinkedHashSet<>())
+                        .add(clazz);
+                    for (Class<?> superclass : ClassUtils.getAllSuperclasses(clazz)) {
+                        extPointsByType.computeIfAbsent(superclass, key -> new LinkedHashSet<>())
+                            .add(clazz);
+                    }
+                    for (Class<?> anInterface : ClassUtils.getAllInterfaces(clazz)) {
+                        extPointsByType.computeIfAbsent(anInterface, key -> new LinkedHashSet<>())
+                            .add(clazz);
+                    }
+                }
+            }
+
+            this.classesByAnnotation = classesByAnnotation.entrySet().stream()
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey,
+                    entry -> ImmutableList.copyOf(entry.getValue())));
+            this.extPoints = ImmutableSet.copyOf(extPoints);
+            this.extPointsByType = extPointsByType;
+        }
     }
 
     public static class ClassDescriptor {
 
+        private static final Map<Class<? extends Annotation>, Stereotype> STEREOTYPES =
+            new LinkedHashMap<>();
+
+        static {
+            STEREOTYPES.put(Extension.class, Stereotype.EXTENSION);
+            STEREOTYPES.put(RestController.class, Stereotype.REST_CONTROLLER);
+            STEREOTYPES.put(Controller.class, Stereotype.CONTROLLER);
+            STEREOTYPES.put(Service.class, Stereotype.SERVICE);
+            STEREOTYPES.put(Repository.class, Stereotype.REPOSITORY);
+            STEREOTYPES.put(Configuration.class, Stereotype.CONFIGURATION);
+            STEREOTYPES.put(Component.class, Stereotype.COMPONENT);
+        }
+
         final Class<?> clazz;
         String name;
         boolean isController;
         boolean isListener;
         boolean isComponent;
         boolean isExtPoint;
+        boolean isEntity;
+        ComponentMetadata metadata;
 
         public ClassDescriptor(Class<?> targetClass) {
             this(targetClass.getName(), targetClass);
         }
 
+        public ClassDescriptor(Class<?> targetClass, ComponentMetadata metadata) {
+            Assert.notNull(targetClass, "The targetClass must not be null.");
+            Assert.notNull(metadata, "The metadata must not be null.");
+            Assert.isTrue(targetClass.getName().equals(metadata.getClassName()),
+                "The metadata must describe the targetClass.");
+            this.clazz = targetClass;
+            this.name = targetClass.getName();
+            init(metadata);
+        }
+
         public ClassDescriptor(String beanName, Class<?> targetClass) {
             Assert.notNull(beanName, "The beanName must not be null.");
             Assert.notNull(targetClass, "The targetClass must not be null.");
             this.clazz = targetClass;
             this.name = beanName;
-            init();
+            init(resolveMetadata(targetClass));
         }
 
         static String getSimpleName(final String className) {
@@ -193,26 +327,47 @@ public class ExtensionClassRegistry {
             return AnnotatedElementUtils.hasAnnotation(clazz, Extension.class);
         }
 
-        private void init() {
-            // Is it a controller?
-            this.isController = AnnotatedElementUtils.hasAnnotation(this.clazz, Controller.class);
-
+        /**
+         * Resolves the metadata of a class by reflection, for classes missing from the
+         * build-time index.
+         */
+        public static ComponentMetadata resolveMetadata(Class<?> clazz) {
             // Specialized classes of @component include @service,@repository,@controller and etc.
-            this.isComponent = isComponent(this.clazz);
-
-            this.isExtPoint = ExtensionPoint.class.isAssignableFrom(this.clazz);
+            Stereotype stereotype = Stereotype.NONE;
+            for (Map.Entry<Class<? extends Annotation>, Stereotype> entry
+                : STEREOTYPES.entrySet()) {
+                if (AnnotatedElementUtils.hasAnnotation(clazz, entry.getKey())) {
+                    stereotype = entry.getValue();
+                    break;
+                }
+            }
 
-            // Is it a listener?
-            if (ApplicationListener.class.isAssignableFrom(this.clazz)) {
-                this.isListener = true;
-            } else {
-                for (Method declaredMethod : clazz.getDeclaredMethods()) {
-                    if (AnnotatedElementUtils.hasAnnotation(declaredMethod, EventListener.class)) {
-                        this.isListener = true;
-                        break;
-                    }
+            Set<String> extensionPoints = ClassUtils.getAllInterfaces(clazz)
+                .stream()
+                .filter(ExtensionPoint.class::isAssignableFrom)
+                .map(Class::getName)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+            List<String> eventListenerMethods = new ArrayList<>();
+            for (Method declaredMethod : clazz.getDeclaredMethods()) {
+                if (AnnotatedElementUtils.hasAnnotation(declaredMethod, EventListener.class)) {
+                    eventListenerMethods.add(declaredMethod.getName());
                 }
             }
+
+            return new ComponentMetadata(clazz.getName(), stereotype,
+                ApplicationListener.class.isAssignableFrom(clazz),
+                AnnotatedElementUtils.hasAnnotation(clazz, Entity.class), extensionPoints,
+                eventListenerMethods);
+        }
+
+        private void init(ComponentMetadata metadata) {
+            this.metadata = metadata;
+            this.isController = metadata.isController();
+            this.isComponent = metadata.isComponent();
+            this.isExtPoint = metadata.isExtPoint();
+            this.isListener = metadata.isListener();
+            this.isEntity = metadata.isEntity();
         }
 
         public String getSimpleName() {
@@ -243,6 +398,14 @@ public class ExtensionClassRegistry {
             return isExtPoint;
         }
 
+        public boolean isEntity() {
+            return isEntity;
+        }
+
+        public ComponentMetadata getMetadata() {
+            return metadata;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) {
@@ -4,9 +4,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import javax.persistence.Entity;
 import javax.persistence.EntityManager;
 import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.Metadata;
 import org.hibernate.boot.MetadataSources;
@@ -17,21 +17,44 @@ import org.hibernate.boot.registry.classloading.spi.ClassLoaderService;
 import org.hibernate.cfg.Environment;
 import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
 import org.springframework.util.Assert;
+import org.springframework.util.StopWatch;
+import run.halo.app.extensions.config.PluginProperties;
+import run.halo.app.extensions.registry.ExtensionClassRegistry.ClassDescriptor;
 
 /**
+ * Registry of the jpa repository factories of plugins.
+ *
+ * <p>Each plugin has one {@link SessionFactory} built from its entities, shared by all of its
+ * repositories. Repositories use a shared {@link EntityManager} proxy that is bound to the
+ * current transaction (or created per operation outside of one), so they are safe to be called
+ * concurrently, and the {@code @Transactional} methods of the repository implementation run
+ * in transactions of a {@link JpaTransactionManager} of the plugin. That transaction manager
+ * does not expose the data source shared with the host, so a plugin transaction started inside
+ * a host transaction runs on its own connection instead of failing on the pre-bound one.
+ *
  * @author guqing
  * @since 2021-11-13
  */
+@Slf4j
 public class JpaRepositoryFactoryRegistry {
 
     private static final JpaRepositoryFactoryRegistry INSTANCE = new JpaRepositoryFactoryRegistry();
-    private static final Map<String, JpaRepositoryFactory> repositoryFactoryMap =
+    private static final Map<String, PluginPersistence> persistenceMap =
         new ConcurrentHashMap<>();
     private final ExtensionClassRegistry classRegistry = ExtensionClassRegistry.getInstance();
 
     private DataSource dataSource;
 
+    private PluginProperties.Jpa jpaProperties = new PluginProperties.Jpa();
+
     public static JpaRepositoryFactoryRegistry getInstance() {
         return INSTANCE;
     }
@@ -40,10 +63,12 @@ public class JpaRepositoryFactoryRegistry {
     }
 
     public void createJpaRepositoryFactory(String pluginId, ClassLoader classLoader) {
-        if (repositoryFactoryMap.containsKey(pluginId)) {
+        if (persistenceMap.containsKey(pluginId)) {
             return;
         }
 
+        StopWatch stopWatch = new StopWatch("jpa-" + pluginId);
+        stopWatch.start("buildMetadata");
         List<Class<?>> entityClasses = findEntityClass(pluginId);
         ClassLoaderServiceImpl classLoaderService = new ClassLoaderServiceImpl(classLoader);
         StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
@@ -56,32 +81,77 @@ public class JpaRepositoryFactoryRegistry {
         }
 
         Metadata metadata = metadataSources.buildMetadata();
+        stopWatch.stop();
 
+        stopWatch.start("buildSessionFactory");
         SessionFactory sessionFactory = metadata.buildSessionFactory();
-        EntityManager entityManager = sessionFactory.createEntityManager();
+        stopWatch.stop();
+
+        // The data source is shared with the host, so it is not exposed: binding it would make
+        // the transactions of the host and of the plugin find each other's connections.
+        JpaTransactionManager transactionManager = new JpaTransactionManager(sessionFactory);
+        transactionManager.setJpaDialect(new HibernateJpaDialect());
+        transactionManager.afterPropertiesSet();
+
+        EntityManager entityManager =
+            SharedEntityManagerCreator.createSharedEntityManager(sessionFactory);
 
         JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
         repositoryFactory.setBeanClassLoader(classLoader);
-
-        repositoryFactoryMap.put(pluginId, repositoryFactory);
+        TransactionInterceptor transactionInterceptor = new TransactionInterceptor(
+            (TransactionManager) transactionManager, new AnnotationTransactionAttributeSource());
+        repositoryFactory.addRepositoryProxyPostProcessor(
+            (factory, repositoryInformation) -> factory.addAdvice(transactionInterceptor));
+
+        persistenceMap.put(pluginId, new PluginPersistence(sessionFactory, repositoryFactory,
+            stopWatch.getTotalTimeMillis()));
+        log.info("Built persistence of [{}] entities for plugin [{}] in [{}] ms",
+            entityClasses.size(), pluginId, stopWatch.getTotalTimeMillis());
+        log.debug(stopWatch.prettyPrint());
     }
 
     public JpaRepositoryFactory getJpaRepositoryFactory(String pluginId) {
-        return repositoryFactoryMap.get(pluginId);
+        PluginPersistence persistence = persistenceMap.get(pluginId);
+        return persistence == null ? null : persistence.repositoryFactory;
+    }
+
+    /**
+     * Gets the millis spent building the persistence of the plugin.
+     *
+     * @param pluginId plugin id
+     * @return millis, or null if the plugin has no persistence built
+     */
+    @Nullable
+    public Long getStartupMillis(String pluginId) {
+        PluginPersistence persistence = persistenceMap.get(pluginId);
+        return persistence == null ? null : persistence.startupMillis;
+    }
+
+    /**
+     * Closes the session factory of the plugin.
+     *
+     * @param pluginId plugin id
+     */
+    public void remove(String pluginId) {
+        PluginPersistence removed = persistenceMap.remove(pluginId);
+        if (removed != null) {
+            removed.sessionFactory.close();
+        }
     }
 
     public List<Class<?>> findEntityClass(String pluginId) {
-        return classRegistry.findClassesWithAnnotation(pluginId, Entity.class);
+        return classRegistry.findClasses(pluginId, ClassDescriptor::isEntity);
     }
 
     public Map<String, Object> resolveAdditionalProperties(String pluginId) {
         if (dataSource == null) {
             throw new IllegalArgumentException("The plugin dataSource is not assigned.");
         }
-        Map<String, Object> properties = new LinkedHashMap<>();
+        Map<String, Object> properties = new LinkedHashMap<>(jpaProperties.getProperties());
         properties.put(Environment.DATASOURCE, dataSource);
-        properties.put(Environment.HBM2DDL_AUTO, "update");
-        properties.put(Environment.SHOW_SQL, true);
+        properties.put(Environment.HBM2DDL_AUTO, jpaProperties.getDdlAuto());
+        properties.put(Environment.SHOW_SQL, jpaProperties.isShowSql());
+        properties.put(Environment.FORMAT_SQL, jpaProperties.isFormatSql());
         return properties;
     }
 
@@ -89,4 +159,22 @@ public class JpaRepositoryFactoryRegistry {
         Assert.notNull(dataSource, "The dataSource must not be null.");
         this.dataSource = dataSource;
     }
+
+    public void setJpaProperties(@NonNull PluginProperties.Jpa jpaProperties) {
+        Assert.notNull(jpaProperties, "The jpaProperties must not be null.");
+        this.jpaProperties = jpaProperties;
+    }
+
+    private static class PluginPersistence {
+        final SessionFactory sessionFactory;
+        final JpaRepositoryFactory repositoryFactory;
+        final long startupMillis;
+
+        PluginPersistence(SessionFactory sessionFactory, JpaRepositoryFactory repositoryFactory,
+            long startupMillis) {
+            this.sessionFactory = sessionFactory;
+            this.repositoryFactory = repositoryFactory;
+            this.startupMillis = startupMillis;
+        }
+    }
 }
@@ -0,0 +1,238 @@
+package run.halo.app.filter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import run.halo.app.cache.ContentPageCache;
+import run.halo.app.cache.ContentPageCache.Page;
+import run.halo.app.controller.content.ContentContentController;
+import run.halo.app.controller.content.ContentFeedController;
+import run.halo.app.controller.content.ContentIndexController;
+import run.halo.app.event.post.PostVisitEvent;
+import run.halo.app.event.post.SheetVisitEvent;
+import run.halo.app.service.AuthorizationService;
+
+/**
+ * Filter serving the content pages of anonymous visitors from the {@link ContentPageCache}.
+ *
+ * <p>Only successful GET responses of the content controllers are cached, keyed by the request
+ * uri and query. Requests of static resources are skipped by their extension, and the handler
+ * of other requests is looked up before the request is processed, so responses of other
+ * handlers are never buffered. Visitors who have been authorized to encrypted content, and
+ * previews with a token, always get the pages rendered, and no session is created to find out.
+ * Cached pages carry a strong ETag and are answered with {@code 304} when it matches. Any
+ * successful write through the admin api drops all pages.
+ *
+ * @author guqing
+ */
+@Slf4j
+@Component
+@Order(2)
+public class ContentPageCacheFilter extends OncePerRequestFilter {
+
+    private static final Set<Class<?>> CACHEABLE_CONTROLLERS = Set.of(
+        ContentIndexController.class,
+        ContentContentController.class,
+        ContentFeedController.class);
+
+    private static final List<String> REPLAYED_HEADERS = List.of(
+        HttpHeaders.CONTENT_TYPE,
+        HttpHeaders.CONTENT_LANGUAGE,
+        HttpHeaders.LAST_MODIFIED);
+
+    /**
+     * Extensions of static resources, which are never served by the content controllers.
+     */
+    private static final Set<String> STATIC_EXTENSIONS = Set.of(
+        "css", "js", "map", "json", "png", "jpg", "jpeg", "gif", "svg", "ico", "webp", "avif",
+        "woff", "woff2", "ttf", "otf", "eot", "mp3", "mp4", "webm");
+
+    private static final String ADMIN_API_PREFIX = "/api/admin/";
+
+    private final ContentPageCache contentPageCache;
+
+    private final AuthorizationService authorizationService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ObjectProvider<HandlerMapping> handlerMapping;
+
+    public ContentPageCacheFilter(ContentPageCache contentPageCache,
+        AuthorizationService authorizationService,
+        ApplicationEventPublisher eventPublisher,
+        @Qualifier("requestMappingHandlerMapping") ObjectProvider<HandlerMapping> handlerMapping) {
+        this.contentPageCache = contentPageCache;
+        this.authorizationService = authorizationService;
+        this.eventPublisher = eventPublisher;
+        this.handlerMapping = handlerMapping;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+        FilterChain filterChain) throws ServletException, IOException {
+        if (isAdminWrite(request)) {
+            filterChain.doFilter(request, response);
+            if (response.getStatus() < HttpServletResponse.SC_BAD_REQUEST) {
+                contentPageCache.invalidateAll();
+            }
+            return;
+        }
+
+        if (!isCacheableRequest(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = buildKey(request);
+        Page cachedPage = contentPageCache.get(key);
+        if (cachedPage != null
+            && (cachedPage.isFresh() || !cachedPage.startRevalidating())) {
+            replayVisits(cachedPage);
+            writePage(request, response, cachedPage);
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper =
+            new ContentCachingResponseWrapper(response);
+        contentPageCache.startRecording();
+        Page renderedPage = null;
+        try {
+            filterChain.doFilter(request, responseWrapper);
+
+            if (responseWrapper.getStatus() == HttpServletResponse.SC_OK) {
+                renderedPage = contentPageCache.buildPage(responseWrapper.getContentAsByteArray(),
+                    collectHeaders(responseWrapper));
+            }
+            if (renderedPage != null) {
+                contentPageCache.put(key, renderedPage);
+                if (renderedPage.getEtag().equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+                    writeNotModified(response, renderedPage);
+                    return;
+                }
+                responseWrapper.setHeader(HttpHeaders.ETAG, renderedPage.getEtag());
+                responseWrapper.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            }
+            responseWrapper.copyBodyToResponse();
+        } finally {
+            if (cachedPage != null && renderedPage == null) {
+                // Not cacheable any more
+                contentPageCache.remove(key, cachedPage);
+            }
+        }
+    }
+
+    private boolean isAdminWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !HttpMethod.GET.matches(method)
+            && !HttpMethod.HEAD.matches(method)
+            && !HttpMethod.OPTIONS.matches(method)
+            && request.getRequestURI().startsWith(ADMIN_API_PREFIX);
+    }
+
+    private boolean isCacheableRequest(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (!HttpMethod.GET.matches(request.getMethod())
+            || uri.startsWith("/api/")
+            || isStaticResource(uri)
+            || StringUtils.isNotBlank(request.getParameter("token"))
+            || !isCacheableHandler(request)) {
+            return false;
+        }
+        // Visitors authorized to encrypted content see their own pages, the permissions are kept
+        // by session, which must not be created only to find them empty
+        return request.getSession(false) == null
+            || authorizationService.getAccessPermissionStore().isEmpty();
+    }
+
+    private boolean isStaticResource(String uri) {
+        String extension =
+            StringUtils.substringAfterLast(StringUtils.substringAfterLast(uri, "/"), ".");
+        return STATIC_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT));
+    }
+
+    private boolean isCacheableHandler(HttpServletRequest request) {
+        HandlerMapping mapping = handlerMapping.getIfAvailable();
+        if (mapping == null) {
+            return false;
+        }
+        HandlerExecutionChain chain;
+        try {
+            chain = mapping.getHandler(request);
+        } catch (Exception e) {
+            log.debug("Failed to look up the handler of [{}]", request.getRequestURI(), e);
+            return false;
+        }
+        return chain != null
+            && chain.getHandler() instanceof HandlerMethod
+            && CACHEABLE_CONTROLLERS.contains(((HandlerMethod) chain.getHandler()).getBeanType());
+    }
+
+    private String buildKey(HttpServletRequest request) {
+        String queryString = request.getQueryString();
+        return queryString == null ? request.getRequestURI()
+            : request.getRequestURI() + "?" + queryString;
+    }
+
+    private Map<String, String> collectHeaders(HttpServletResponse response) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : REPLAYED_HEADERS) {
+            String value = response.getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        return headers;
+    }
+
+    private void replayVisits(Page page) {
+        for (String tag : page.getTags()) {
+            if (tag.startsWith(ContentPageCache.POST_TAG_PREFIX)) {
+                eventPublisher.publishEvent(new PostVisitEvent(this,
+                    Integer.valueOf(tag.substring(ContentPageCache.POST_TAG_PREFIX.length()))));
+            } else if (tag.startsWith(ContentPageCache.SHEET_TAG_PREFIX)) {
+                eventPublisher.publishEvent(new SheetVisitEvent(this,
+                    Integer.valueOf(tag.substring(ContentPageCache.SHEET_TAG_PREFIX.length()))));
+            }
+        }
+    }
+
+    private void writePage(HttpServletRequest request, HttpServletResponse response, Page page)
+        throws IOException {
+        if (page.getEtag().equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            writeNotModified(response, page);
+            return;
+        }
+        page.getHeaders().forEach(response::setHeader);
+        response.setHeader(HttpHeaders.ETAG, page.getEtag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setContentLength(page.getBody().length);
+        response.getOutputStream().write(page.getBody());
+    }
+
+    private void writeNotModified(HttpServletResponse response, Page page) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        response.setHeader(HttpHeaders.ETAG, page.getEtag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+    }
+}
@@ -0,0 +1,62 @@
+package run.halo.app.listener.cache;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import run.halo.app.cache.ContentPageCache;
+import run.halo.app.event.StaticStorageChangedEvent;
+import run.halo.app.event.category.CategoryUpdatedEvent;
+import run.halo.app.event.comment.CommentNewEvent;
+import run.halo.app.event.comment.CommentReplyEvent;
+import run.halo.app.event.options.OptionUpdatedEvent;
+import run.halo.app.event.post.PostUpdatedEvent;
+import run.halo.app.event.post.PostsRenderedEvent;
+import run.halo.app.event.theme.ThemeActivatedEvent;
+import run.halo.app.event.theme.ThemeUpdatedEvent;
+import run.halo.app.event.user.UserUpdatedEvent;
+
+/**
+ * Invalidates the cached content pages depending on the updated data.
+ *
+ * <p>Options, themes, the user and static files are shown on every page, so all pages are
+ * removed when they change. All pages are also removed when posts and sheets are rendered in
+ * bulk. Data updated in a transaction is invalidated after the commit.
+ *
+ * @author guqing
+ */
+@Component
+public class ContentPageCacheListener {
+
+    private final ContentPageCache contentPageCache;
+
+    public ContentPageCacheListener(ContentPageCache contentPageCache) {
+        this.contentPageCache = contentPageCache;
+    }
+
+    @EventListener({OptionUpdatedEvent.class, ThemeUpdatedEvent.class, ThemeActivatedEvent.class,
+        UserUpdatedEvent.class, StaticStorageChangedEvent.class, PostsRenderedEvent.class})
+    public void onGlobalUpdated() {
+        contentPageCache.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostUpdated(PostUpdatedEvent event) {
+        contentPageCache.invalidate(ContentPageCache.postTag(event.getPostId()),
+            ContentPageCache.TAG_POSTS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryUpdated(CategoryUpdatedEvent event) {
+        contentPageCache.invalidate(ContentPageCache.TAG_CATEGORIES);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentNew(CommentNewEvent event) {
+        contentPageCache.invalidate(ContentPageCache.TAG_COMMENTS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentReply(CommentReplyEvent event) {
+        contentPageCache.invalidate(ContentPageCache.TAG_COMMENTS);
+    }
+}
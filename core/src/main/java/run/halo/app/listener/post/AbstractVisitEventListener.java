@@ -1,58 +1,64 @@
 package run.halo.app.listener.post;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PreDestroy;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.util.Assert;
+import run.halo.app.config.properties.HaloProperties;
 import run.halo.app.event.post.AbstractVisitEvent;
+import run.halo.app.model.entity.BasePost;
 import run.halo.app.service.base.BasePostService;
 
 /**
  * Abstract visit event listener.
  *
+ * <p>Visits are coalesced into one {@link LongAdder} per post and written behind in JDBC
+ * batches every {@link HaloProperties#getVisitFlushInterval()} and on shutdown, so the number of
+ * writes depends on the number of visited posts instead of the number of visits.
+ *
  * @author johnniang
  * @date 19-4-24
  */
 @Slf4j
 public abstract class AbstractVisitEventListener {
 
-    private final Map<Integer, BlockingQueue<Integer>> visitQueueMap;
-
-    private final Map<Integer, PostVisitTask> visitTaskMap;
+    private final Map<Integer, LongAdder> pendingVisitsMap;
 
-    private final BasePostService basePostService;
+    private final BasePostService<? extends BasePost> basePostService;
 
-    private final ExecutorService executor;
+    private final ScheduledFuture<?> flushFuture;
 
-    protected AbstractVisitEventListener(BasePostService basePostService) {
+    protected AbstractVisitEventListener(BasePostService<? extends BasePost> basePostService,
+        HaloProperties haloProperties,
+        TaskScheduler taskScheduler) {
         this.basePostService = basePostService;
 
         int initCapacity = 8;
 
         long count = basePostService.count();
 
-        if (count < initCapacity) {
-            initCapacity = (int) count;
+        if (count > initCapacity) {
+            initCapacity = (int) Math.min(count, 1 << 16);
         }
 
-        visitQueueMap = new ConcurrentHashMap<>(initCapacity << 1);
-        visitTaskMap = new ConcurrentHashMap<>(initCapacity << 1);
+        pendingVisitsMap = new ConcurrentHashMap<>(initCapacity << 1);
 
-        this.executor = Executors.newCachedThreadPool();
+        this.flushFuture = taskScheduler
+            .scheduleWithFixedDelay(this::flush, haloProperties.getVisitFlushInterval());
     }
 
     /**
      * Handle visit event.
      *
      * @param event visit event must not be null
-     * @throws InterruptedException interrupted exception
      */
-    protected void handleVisitEvent(@NonNull AbstractVisitEvent event) throws InterruptedException {
+    protected void handleVisitEvent(@NonNull AbstractVisitEvent event) {
         Assert.notNull(event, "Visit event must not be null");
 
         // Get post id
@@ -60,66 +66,41 @@ public abstract class AbstractVisitEventListener {
 
         log.debug("Received a visit event, post id: [{}]", id);
 
-        // Get post visit queue
-        BlockingQueue<Integer> postVisitQueue =
-            visitQueueMap.computeIfAbsent(id, this::createEmptyQueue);
-
-        visitTaskMap.computeIfAbsent(id, this::createPostVisitTask);
-
-        // Put a visit for the post
-        postVisitQueue.put(id);
+        // Entries are kept once created, so no increment can race with a removal
+        pendingVisitsMap.computeIfAbsent(id, postId -> new LongAdder()).increment();
     }
 
-
-    private PostVisitTask createPostVisitTask(Integer postId) {
-        // Create new post visit task
-        PostVisitTask postVisitTask = new PostVisitTask(postId);
-        // Start a post visit task
-        executor.execute(postVisitTask);
-
-        log.debug("Created a new post visit task for post id: [{}]", postId);
-        return postVisitTask;
-    }
-
-    private BlockingQueue<Integer> createEmptyQueue(Integer postId) {
-        // Create a new queue
-        return new LinkedBlockingQueue<>();
-    }
-
-
     /**
-     * Post visit task.
+     * Flushes pending visits into database in batch.
      */
-    private class PostVisitTask implements Runnable {
-
-        private final Integer id;
+    public void flush() {
+        Map<Integer, Long> visitsMap = new HashMap<>();
+        pendingVisitsMap.forEach((postId, pendingVisits) -> {
+            long visits = pendingVisits.sumThenReset();
+            if (visits > 0) {
+                visitsMap.put(postId, visits);
+            }
+        });
 
-        private PostVisitTask(Integer id) {
-            this.id = id;
+        if (visitsMap.isEmpty()) {
+            return;
         }
 
-        @Override
-        public void run() {
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    BlockingQueue<Integer> postVisitQueue = visitQueueMap.get(id);
-                    Integer postId = postVisitQueue.take();
-
-                    log.debug("Took a new visit for post id: [{}]", postId);
-
-                    // Increase the visit
-                    basePostService.increaseVisit(postId);
-
-                    log.debug("Increased visits for post id: [{}]", postId);
-                } catch (InterruptedException e) {
-                    log.debug(
-                        "Post visit task: " + Thread.currentThread().getName() + " was interrupted",
-                        e);
-                    // Ignore this exception
-                }
-            }
-
-            log.debug("Thread: [{}] has been interrupted", Thread.currentThread().getName());
+        try {
+            basePostService.increaseVisits(visitsMap);
+            log.debug("Flushed visits of [{}] posts", visitsMap.size());
+        } catch (Exception e) {
+            log.error("Failed to flush visits of [{}] posts, they will be retried later",
+                visitsMap.size(), e);
+            // Put them back for the next flush
+            visitsMap.forEach((postId, visits) ->
+                pendingVisitsMap.computeIfAbsent(postId, id -> new LongAdder()).add(visits));
         }
     }
+
+    @PreDestroy
+    public void preDestroy() {
+        flushFuture.cancel(false);
+        flush();
+    }
 }
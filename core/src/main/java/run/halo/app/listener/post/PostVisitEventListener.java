@@ -1,8 +1,9 @@
 package run.halo.app.listener.post;
 
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
+import run.halo.app.config.properties.HaloProperties;
 import run.halo.app.event.post.PostVisitEvent;
 import run.halo.app.service.PostService;
 
@@ -15,13 +16,14 @@ import run.halo.app.service.PostService;
 @Component
 public class PostVisitEventListener extends AbstractVisitEventListener {
 
-    public PostVisitEventListener(PostService postService) {
-        super(postService);
+    public PostVisitEventListener(PostService postService,
+        HaloProperties haloProperties,
+        TaskScheduler taskScheduler) {
+        super(postService, haloProperties, taskScheduler);
     }
 
-    @Async
     @EventListener
-    public void onPostVisitEvent(PostVisitEvent event) throws InterruptedException {
+    public void onPostVisitEvent(PostVisitEvent event) {
         handleVisitEvent(event);
     }
 }
@@ -1,8 +1,9 @@
 package run.halo.app.listener.post;
 
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
+import run.halo.app.config.properties.HaloProperties;
 import run.halo.app.event.post.SheetVisitEvent;
 import run.halo.app.service.SheetService;
 
@@ -15,13 +16,14 @@ import run.halo.app.service.SheetService;
 @Component
 public class SheetVisitEventListener extends AbstractVisitEventListener {
 
-    protected SheetVisitEventListener(SheetService sheetService) {
-        super(sheetService);
+    protected SheetVisitEventListener(SheetService sheetService,
+        HaloProperties haloProperties,
+        TaskScheduler taskScheduler) {
+        super(sheetService, haloProperties, taskScheduler);
     }
 
-    @Async
     @EventListener
-    public void onSheetVisitEvent(SheetVisitEvent event) throws InterruptedException {
+    public void onSheetVisitEvent(SheetVisitEvent event) {
         handleVisitEvent(event);
     }
 
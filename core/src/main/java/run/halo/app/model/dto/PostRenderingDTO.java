@@ -0,0 +1,38 @@
+package run.halo.app.model.dto;
+
+import lombok.Data;
+
+/**
+ * Progress of rendering all posts and sheets.
+ *
+ * @author guqing
+ */
+@Data
+public class PostRenderingDTO {
+
+    private Boolean running;
+
+    /**
+     * Posts and sheets to render in this run, the ones rendered before the run resumed from a
+     * checkpoint are excluded.
+     */
+    private Long total;
+
+    private Long rendered;
+
+    /**
+     * Id of the last post or sheet rendered, the run resumes after it.
+     */
+    private Integer checkpoint;
+
+    private Long startTime;
+
+    private Long elapsedMillis;
+
+    private Double postsPerSecond;
+
+    /**
+     * Error message if the last run failed.
+     */
+    private String error;
+}
@@ -29,7 +29,8 @@ import run.halo.app.utils.ServiceUtils;
 @Table(name = "comments", indexes = {
     @Index(name = "comments_post_id", columnList = "post_id"),
     @Index(name = "comments_type_status", columnList = "type, status"),
-    @Index(name = "comments_parent_id", columnList = "parent_id")})
+    @Index(name = "comments_parent_id", columnList = "parent_id"),
+    @Index(name = "comments_post_id_status_parent_id", columnList = "post_id, status, parent_id")})
 @DiscriminatorColumn(name = "type", discriminatorType = DiscriminatorType.INTEGER,
     columnDefinition = "int default 0")
 @ToString(callSuper = true)
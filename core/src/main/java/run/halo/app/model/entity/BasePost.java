@@ -99,6 +99,20 @@ public class BasePost extends BaseEntity {
     @Lob
     private String summary;
 
+    /**
+     * Plain text of the rendered content, generated when the content is rendered.
+     */
+    @Column(name = "plain_text")
+    @Lob
+    private String plainText;
+
+    /**
+     * Summary generated from the plain text, used when the summary is blank.
+     */
+    @Column(name = "generated_summary")
+    @Lob
+    private String generatedSummary;
+
     /**
      * Cover thumbnail of the post.
      */
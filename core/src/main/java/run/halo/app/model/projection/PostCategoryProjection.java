@@ -0,0 +1,21 @@
+package run.halo.app.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import run.halo.app.model.entity.Category;
+
+/**
+ * Post category projection, a category with the id of a post it belongs to.
+ *
+ * @author guqing
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostCategoryProjection {
+
+    private Integer postId;
+
+    private Category category;
+}
@@ -8,6 +8,7 @@ import org.springframework.lang.NonNull;
 import run.halo.app.model.entity.PostCategory;
 import run.halo.app.model.enums.PostStatus;
 import run.halo.app.model.projection.CategoryPostCountProjection;
+import run.halo.app.model.projection.PostCategoryProjection;
 import run.halo.app.repository.base.BaseRepository;
 
 
@@ -77,6 +78,19 @@ public interface PostCategoryRepository extends BaseRepository<PostCategory, Int
     @NonNull
     List<PostCategory> findAllByPostIdIn(@NonNull Collection<Integer> postIds);
 
+    /**
+     * Finds all categories of the posts in one query.
+     *
+     * @param postIds post id collection must not be null
+     * @return a list of post category projection in the order of creation
+     */
+    @Query("select new run.halo.app.model.projection.PostCategoryProjection("
+        + "postCategory.postId, category) from PostCategory postCategory, Category category "
+        + "where category.id = postCategory.categoryId and postCategory.postId in ?1 "
+        + "order by postCategory.id")
+    @NonNull
+    List<PostCategoryProjection> findAllCategoriesByPostIdIn(@NonNull Collection<Integer> postIds);
+
     /**
      * Finds all post categories by post id.
      *
@@ -1,5 +1,6 @@
 package run.halo.app.repository;
 
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -103,4 +104,13 @@ public interface PostRepository extends BasePostRepository<Post>, JpaSpecificati
         + ".status = :status")
     Optional<Post> findBy(@Param("year") Integer year, @Param("month") Integer month,
         @Param("day") Integer day, @Param("slug") String slug, @Param("status") PostStatus status);
+
+    /**
+     * Finds ids of the posts with the status.
+     *
+     * @param status post status must not be null
+     * @return list of post id
+     */
+    @Query("select post.id from Post post where post.status = :status")
+    List<Integer> findAllIdsByStatus(@Param("status") PostStatus status);
 }
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.lang.NonNull;
 import run.halo.app.model.entity.PostTag;
 import run.halo.app.model.enums.PostStatus;
+import run.halo.app.model.projection.PostTagProjection;
 import run.halo.app.model.projection.TagPostPostCountProjection;
 import run.halo.app.repository.base.BaseRepository;
 
@@ -79,6 +80,18 @@ public interface PostTagRepository extends BaseRepository<PostTag, Integer> {
     @NonNull
     List<PostTag> findAllByPostIdIn(@NonNull Collection<Integer> postIds);
 
+    /**
+     * Finds all tags of the posts in one query.
+     *
+     * @param postIds post id collection must not be null
+     * @return a list of post tag projection in the order of creation
+     */
+    @Query("select new run.halo.app.model.projection.PostTagProjection(postTag.postId, tag) "
+        + "from PostTag postTag, Tag tag where tag.id = postTag.tagId and postTag.postId in ?1 "
+        + "order by postTag.id")
+    @NonNull
+    List<PostTagProjection> findAllTagsByPostIdIn(@NonNull Collection<Integer> postIds);
+
     /**
      * Deletes post tags by post id.
      *
@@ -40,6 +40,23 @@ public interface ThemeRepository {
      */
     List<ThemeProperty> listAll();
 
+    /**
+     * Checks whether the theme has the file.
+     *
+     * @param themeId theme id
+     * @param relativePath path relative to the theme folder
+     * @return true if the file exists; false otherwise
+     */
+    boolean themeFileExists(String themeId, String relativePath);
+
+    /**
+     * Lists the names of the files right under the theme folder.
+     *
+     * @param themeId theme id
+     * @return a list of file name
+     */
+    List<String> listThemeRootFileNames(String themeId);
+
     /**
      * Set activated theme.
      *
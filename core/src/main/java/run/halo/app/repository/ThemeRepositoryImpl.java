@@ -10,18 +10,23 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
 import run.halo.app.config.properties.HaloProperties;
 import run.halo.app.event.options.OptionUpdatedEvent;
+import run.halo.app.event.theme.ThemeActivatedEvent;
+import run.halo.app.event.theme.ThemeUpdatedEvent;
 import run.halo.app.exception.AlreadyExistsException;
 import run.halo.app.exception.NotFoundException;
 import run.halo.app.exception.ServiceException;
@@ -31,6 +36,7 @@ import run.halo.app.handler.theme.config.support.ThemeProperty;
 import run.halo.app.model.entity.Option;
 import run.halo.app.model.support.HaloConst;
 import run.halo.app.theme.ThemePropertyScanner;
+import run.halo.app.theme.ThemeRegistry;
 import run.halo.app.utils.FileUtils;
 
 /**
@@ -49,6 +55,8 @@ public class ThemeRepositoryImpl
 
     private final ApplicationEventPublisher eventPublisher;
 
+    private final ThemeRegistry themeRegistry;
+
     private volatile ThemeProperty currentTheme;
 
     public ThemeRepositoryImpl(OptionRepository optionRepository,
@@ -57,6 +65,8 @@ public class ThemeRepositoryImpl
         this.optionRepository = optionRepository;
         this.properties = properties;
         this.eventPublisher = eventPublisher;
+        this.themeRegistry = new ThemeRegistry(getThemeRootPath());
+        this.themeRegistry.startWatching();
     }
 
     @Override
@@ -98,15 +108,22 @@ public class ThemeRepositoryImpl
 
     @Override
     public Optional<ThemeProperty> fetchThemePropertyByThemeId(String themeId) {
-        return ThemePropertyScanner.INSTANCE.scan(getThemeRootPath(), null)
-            .stream()
-            .filter(property -> Objects.equals(themeId, property.getId()))
-            .findFirst();
+        return themeRegistry.fetchThemeProperty(themeId);
     }
 
     @Override
     public List<ThemeProperty> listAll() {
-        return ThemePropertyScanner.INSTANCE.scan(getThemeRootPath(), getActivatedThemeId());
+        return themeRegistry.listAll(getActivatedThemeId());
+    }
+
+    @Override
+    public boolean themeFileExists(String themeId, String relativePath) {
+        return themeRegistry.fileExists(themeId, relativePath);
+    }
+
+    @Override
+    public List<String> listThemeRootFileNames(String themeId) {
+        return themeRegistry.listRootFileNames(themeId);
     }
 
     @Override
@@ -161,6 +178,7 @@ public class ThemeRepositoryImpl
         } finally {
             log.info("Clean temporary theme folder {}", sourceThemePath);
             deleteFolderQuietly(sourceThemePath);
+            themeRegistry.invalidate();
         }
 
         // or else throw should never happen
@@ -181,6 +199,8 @@ public class ThemeRepositoryImpl
             FileUtils.deleteFolder(themePath);
         } catch (IOException e) {
             throw new ServiceException("Failed to delete theme path: " + themePath, e);
+        } finally {
+            themeRegistry.invalidate();
         }
     }
 
@@ -204,6 +224,17 @@ public class ThemeRepositoryImpl
         }
     }
 
+    @EventListener({ThemeUpdatedEvent.class, ThemeActivatedEvent.class})
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onThemeChanged() {
+        themeRegistry.invalidate();
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        themeRegistry.close();
+    }
+
     @NonNull
     protected ThemeProperty getThemeByThemeId(String themeId) {
         return fetchThemeByThemeId(themeId).orElseThrow(
@@ -212,9 +243,6 @@ public class ThemeRepositoryImpl
 
     @NonNull
     protected Optional<ThemeProperty> fetchThemeByThemeId(String themeId) {
-        return ThemePropertyScanner.INSTANCE.scan(getThemeRootPath(), null)
-            .stream()
-            .filter(property -> Objects.equals(themeId, property.getId()))
-            .findFirst();
+        return themeRegistry.fetchThemeProperty(themeId);
     }
 }
@@ -99,6 +99,15 @@ public interface BaseCommentRepository<COMMENT extends BaseComment>
      */
     long countByPostId(@NonNull Integer postId);
 
+    /**
+     * Count comments by post id and comment status.
+     *
+     * @param postId post id must not be null
+     * @param status comment status must not be null
+     * @return comments count
+     */
+    long countByPostIdAndStatus(@NonNull Integer postId, @NonNull CommentStatus status);
+
     /**
      * Counts by comment status.
      *
@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import run.halo.app.model.entity.BasePost;
 import run.halo.app.model.enums.PostStatus;
 
@@ -250,4 +251,72 @@ public interface BasePostRepository<POST extends BasePost> extends BaseRepositor
     @Query("update BasePost p set p.formatContent = :formatContent where p.id = :postId")
     int updateFormatContent(@Param("formatContent") @NonNull String formatContent,
         @Param("postId") @NonNull Integer postId);
+
+    /**
+     * Updates the text generated from the format content by post id.
+     *
+     * @param plainText plain text must not be null.
+     * @param generatedSummary generated summary must not be null.
+     * @param wordCount word count must not be null.
+     * @param postId post id must not be null.
+     * @return updated rows.
+     */
+    @Modifying
+    @Query("update BasePost p set p.plainText = :plainText, "
+        + "p.generatedSummary = :generatedSummary, p.wordCount = :wordCount "
+        + "where p.id = :postId")
+    int updateGeneratedText(@Param("plainText") @NonNull String plainText,
+        @Param("generatedSummary") @NonNull String generatedSummary,
+        @Param("wordCount") @NonNull Long wordCount,
+        @Param("postId") @NonNull Integer postId);
+
+    /**
+     * Updates generated summary by post id.
+     *
+     * @param generatedSummary generated summary must not be null.
+     * @param postId post id must not be null.
+     * @return updated rows.
+     */
+    @Modifying
+    @Query("update BasePost p set p.generatedSummary = :generatedSummary where p.id = :postId")
+    int updateGeneratedSummary(@Param("generatedSummary") @NonNull String generatedSummary,
+        @Param("postId") @NonNull Integer postId);
+
+    /**
+     * Finds format content by post id.
+     *
+     * @param postId post id must not be null.
+     * @return format content, or null if the post is absent.
+     */
+    @Query("select p.formatContent from BasePost p where p.id = :postId")
+    @Nullable
+    String findFormatContentById(@Param("postId") @NonNull Integer postId);
+
+    /**
+     * Finds plain text by post id.
+     *
+     * @param postId post id must not be null.
+     * @return plain text, or null if the post is absent or the text is not generated yet.
+     */
+    @Query("select p.plainText from BasePost p where p.id = :postId")
+    @Nullable
+    String findPlainTextById(@Param("postId") @NonNull Integer postId);
+
+    /**
+     * Finds ids of all posts and sheets whose plain text is not generated yet.
+     *
+     * @return list of post id
+     */
+    @Query("select p.id from BasePost p where p.plainText is null")
+    @NonNull
+    List<Integer> findAllIdsWithoutPlainText();
+
+    /**
+     * Finds ids of all posts and sheets.
+     *
+     * @return list of post id
+     */
+    @Query("select p.id from BasePost p")
+    @NonNull
+    List<Integer> findAllIds();
 }
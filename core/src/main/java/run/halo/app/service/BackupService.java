@@ -30,7 +30,7 @@ public interface BackupService {
     BasePostDetailDTO importMarkdown(MultipartFile file) throws IOException;
 
     /**
-     * Zips work directory.
+     * Zips work directory, or creates a snapshot of it if the incremental backup is enabled.
      *
      * @param options file or directory items to back up
      * @return backup dto.
@@ -56,6 +56,16 @@ public interface BackupService {
     @NonNull
     Optional<BackupDTO> getBackup(@NonNull Path backupFileName, @NonNull BackupType type);
 
+    /**
+     * Loads a work directory backup as resource, a snapshot is rebuilt into a temporary zip
+     * archive which is deleted once it has been read.
+     *
+     * @param fileName backup file name must not be blank
+     * @return resource of the zip archive
+     */
+    @NonNull
+    Resource loadWorkDirBackupAsResource(@NonNull String fileName);
+
     /**
      * Deletes backup.
      *
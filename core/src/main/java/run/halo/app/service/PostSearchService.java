@@ -0,0 +1,48 @@
+package run.halo.app.service;
+
+import java.util.List;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import run.halo.app.model.entity.Post;
+import run.halo.app.model.enums.PostStatus;
+
+/**
+ * Full-text search service of posts.
+ *
+ * @author guqing
+ */
+public interface PostSearchService {
+
+    /**
+     * Whether the index is loaded or built, keyword queries fall back to the database until then.
+     *
+     * @return true if the index is ready
+     */
+    boolean isReady();
+
+    /**
+     * Searches posts of the status containing all terms of the keyword.
+     *
+     * @param keyword keyword
+     * @param status post status, null for posts of all status
+     * @param limit max count of results of the status
+     * @return post ids from the most relevant one
+     */
+    @NonNull
+    List<Integer> search(@Nullable String keyword, @Nullable PostStatus status, int limit);
+
+    /**
+     * Gets a snippet of the post content with the terms of the keyword highlighted.
+     *
+     * @param post post must not be null
+     * @param keyword keyword
+     * @return html snippet
+     */
+    @NonNull
+    String highlight(@NonNull Post post, @Nullable String keyword);
+
+    /**
+     * Rebuilds the index from all posts in background.
+     */
+    void rebuild();
+}
@@ -1,6 +1,9 @@
 package run.halo.app.service.base;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.Map;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -171,6 +174,13 @@ public interface BasePostService<POST extends BasePost> extends CrudService<POST
      */
     void increaseVisit(@NonNull Integer postId);
 
+    /**
+     * Increases visits of many posts in batch. Drafts are skipped.
+     *
+     * @param visitsMap a map of post id and visits to increase, must not be null
+     */
+    void increaseVisits(@NonNull Map<Integer, Long> visitsMap);
+
     /**
      * Increase post likes.
      *
@@ -304,4 +314,56 @@ public interface BasePostService<POST extends BasePost> extends CrudService<POST
      * @return description
      */
     String generateDescription(@NonNull String content);
+
+    /**
+     * Lists ids of all posts and sheets whose plain text is not generated yet.
+     *
+     * @return list of post id
+     */
+    @NonNull
+    List<Integer> listIdsWithoutPlainText();
+
+    /**
+     * Lists ids of all posts and sheets.
+     *
+     * @return list of post id
+     */
+    @NonNull
+    List<Integer> listAllIds();
+
+    /**
+     * Generates the plain text, summary and word count of posts or sheets from their format
+     * content.
+     *
+     * @param postIds post or sheet ids must not be null
+     */
+    void refreshGeneratedText(@NonNull Collection<Integer> postIds);
+
+    /**
+     * Generates the summary of posts or sheets from their plain text with the current summary
+     * length.
+     *
+     * @param postIds post or sheet ids must not be null
+     */
+    void refreshGeneratedSummary(@NonNull Collection<Integer> postIds);
+
+    /**
+     * Counts posts and sheets with id greater than the given one.
+     *
+     * @param postId post id must not be null
+     * @return count of posts and sheets
+     */
+    long countAfter(@NonNull Integer postId);
+
+    /**
+     * Renders the format content and generated text of the next posts and sheets ordered by id,
+     * and writes them back in a jdbc batch. Rich text posts are scanned but not rendered.
+     *
+     * @param postId posts and sheets with id greater than it are rendered, must not be null
+     * @param size max count of posts and sheets to scan
+     * @param pool pool to render markdown on must not be null
+     * @return ids of the posts and sheets scanned in order, empty if no one is left
+     */
+    @NonNull
+    List<Integer> renderAfter(@NonNull Integer postId, int size, @NonNull ForkJoinPool pool);
 }
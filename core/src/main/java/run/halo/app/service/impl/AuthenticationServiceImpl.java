@@ -1,20 +1,26 @@
 package run.halo.app.service.impl;
 
-import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
-import run.halo.app.model.entity.Category;
+import org.springframework.transaction.event.TransactionalEventListener;
+import run.halo.app.event.category.CategoryUpdatedEvent;
 import run.halo.app.model.entity.Post;
 import run.halo.app.repository.CategoryRepository;
 import run.halo.app.repository.PostCategoryRepository;
 import run.halo.app.service.AuthenticationService;
 import run.halo.app.service.AuthorizationService;
+import run.halo.app.service.support.CategoryAccessGraph;
 
 
 /**
+ * Authentication of encrypted posts and categories.
+ *
+ * <p>Categories are checked against a {@link CategoryAccessGraph}, which is rebuilt after
+ * categories change.
+ *
  * @author ZhiXiang Yuan
  * @date 2021/01/20 17:56
  */
@@ -27,6 +33,13 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
     private final PostCategoryRepository postCategoryRepository;
 
+    /**
+     * Generation of the categories, increased on every category change.
+     */
+    private final AtomicLong categoryGeneration = new AtomicLong();
+
+    private volatile CategoryAccessGraph categoryAccessGraph;
+
     public AuthenticationServiceImpl(PostCategoryRepository postCategoryRepository,
         CategoryRepository categoryRepository,
         AuthorizationService authorizationService
@@ -70,41 +83,56 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
     @Override
     public boolean categoryAuthentication(Integer categoryId, String password) {
+        CategoryAccessGraph graph = getCategoryAccessGraph();
+        if (!graph.contains(categoryId)) {
+            // Rebuild in case the category was added without an event
+            graph = rebuildCategoryAccessGraph();
+        }
 
-        Map<Integer, Category> idToCategoryMap = categoryRepository.findAll().stream()
-                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        Integer guardId = graph.getGuardId(categoryId);
+        if (guardId == null) {
+            return true;
+        }
 
         Set<String> accessPermissionStore = authorizationService.getAccessPermissionStore();
+        if (accessPermissionStore.contains(AuthorizationService.buildCategoryToken(guardId))) {
+            return true;
+        }
 
-        return doCategoryAuthentication(
-            idToCategoryMap, accessPermissionStore, categoryId, password);
-    }
-
-    private boolean doCategoryAuthentication(Map<Integer, Category> idToCategoryMap,
-            Set<String> accessPermissionStore,
-            Integer categoryId, String password) {
-
-        Category category = idToCategoryMap.get(categoryId);
-
-        if (StringUtils.isNotBlank(category.getPassword())) {
-            if (accessPermissionStore.contains(
-                AuthorizationService.buildCategoryToken(category.getId()))) {
-                return true;
-            }
+        if (graph.getPassword(guardId).equals(password)) {
+            authorizationService.categoryAuthorization(guardId);
+            return true;
+        }
 
-            if (category.getPassword().equals(password)) {
-                authorizationService.categoryAuthorization(category.getId());
-                return true;
-            }
+        return false;
+    }
 
-            return false;
-        }
+    /**
+     * Invalidates the category access graph once the category changes are committed.
+     *
+     * @param event category updated event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryUpdated(CategoryUpdatedEvent event) {
+        categoryGeneration.incrementAndGet();
+    }
 
-        if (category.getParentId() == 0) {
-            return true;
+    @NonNull
+    private CategoryAccessGraph getCategoryAccessGraph() {
+        CategoryAccessGraph graph = categoryAccessGraph;
+        if (graph != null && graph.getGeneration() == categoryGeneration.get()) {
+            return graph;
         }
+        return rebuildCategoryAccessGraph();
+    }
 
-        return doCategoryAuthentication(
-            idToCategoryMap, accessPermissionStore, category.getParentId(), password);
+    @NonNull
+    private CategoryAccessGraph rebuildCategoryAccessGraph() {
+        // Read the generation first, a graph built during an update is rebuilt on next access
+        long generation = categoryGeneration.get();
+        CategoryAccessGraph graph =
+            CategoryAccessGraph.build(categoryRepository.findAll(), generation);
+        categoryAccessGraph = graph;
+        return graph;
     }
 }
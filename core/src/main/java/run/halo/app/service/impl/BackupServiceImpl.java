@@ -6,30 +6,39 @@ import static run.halo.app.model.support.HaloConst.HALO_DATA_EXPORT_PREFIX;
 import static run.halo.app.utils.DateTimeUtils.HORIZONTAL_LINE_DATETIME_FORMATTER;
 import static run.halo.app.utils.FileUtils.checkDirectoryTraversal;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.ZipOutputStream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
@@ -91,11 +100,15 @@ import run.halo.app.service.SheetService;
 import run.halo.app.service.TagService;
 import run.halo.app.service.ThemeSettingService;
 import run.halo.app.service.UserService;
+import run.halo.app.service.base.CrudService;
+import run.halo.app.service.support.TemporaryFileResource;
+import run.halo.app.service.support.WorkDirSnapshotStore;
 import run.halo.app.utils.DateTimeUtils;
 import run.halo.app.utils.DateUtils;
 import run.halo.app.utils.FileUtils;
 import run.halo.app.utils.HaloUtils;
 import run.halo.app.utils.JsonUtils;
+import run.halo.app.utils.ParallelZipWriter;
 
 /**
  * Backup service implementation.
@@ -119,6 +132,16 @@ public class BackupServiceImpl implements BackupService {
 
     private static final String UPLOAD_SUB_DIR = "upload/";
 
+    /**
+     * Page size of the data export.
+     */
+    private static final int EXPORT_PAGE_SIZE = 1000;
+
+    /**
+     * Count of the domains saved in one transaction while importing data.
+     */
+    private static final int IMPORT_BATCH_SIZE = 500;
+
     private final AttachmentService attachmentService;
 
     private final CategoryService categoryService;
@@ -167,6 +190,8 @@ public class BackupServiceImpl implements BackupService {
 
     private final ApplicationEventPublisher eventPublisher;
 
+    private final WorkDirSnapshotStore snapshotStore;
+
     public BackupServiceImpl(AttachmentService attachmentService, CategoryService categoryService,
         CommentBlackListService commentBlackListService, JournalService journalService,
         JournalCommentService journalCommentService, LinkService linkService, LogService logService,
@@ -202,6 +227,7 @@ public class BackupServiceImpl implements BackupService {
         this.oneTimeTokenService = oneTimeTokenService;
         this.haloProperties = haloProperties;
         this.eventPublisher = eventPublisher;
+        this.snapshotStore = new WorkDirSnapshotStore(Paths.get(haloProperties.getBackupDir()));
     }
 
     @Override
@@ -219,32 +245,42 @@ public class BackupServiceImpl implements BackupService {
         if (CollectionUtils.isEmpty(options)) {
             throw new BadRequestException("The options parameter is missing, at least one.");
         }
+        Path workDirPath = Paths.get(haloProperties.getWorkDir());
+        Predicate<Path> filter = path -> {
+            for (String itemToBackup : options) {
+                Path backupItemPath = workDirPath.resolve(itemToBackup);
+                if (path.startsWith(backupItemPath)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+        String backupName = HALO_BACKUP_PREFIX
+            + DateTimeUtils.format(LocalDateTime.now(), HORIZONTAL_LINE_DATETIME_FORMATTER)
+            + HaloUtils.simpleUUID().hashCode();
+
+        if (haloProperties.isIncrementalBackup()) {
+            try {
+                Path snapshotPath = Paths.get(haloProperties.getBackupDir(),
+                    backupName + WorkDirSnapshotStore.SNAPSHOT_SUFFIX);
+                snapshotStore.create(workDirPath, snapshotPath, filter);
+                return buildBackupDto(BACKUP_RESOURCE_BASE_URI, snapshotPath);
+            } catch (IOException e) {
+                throw new ServiceException("Failed to backup halo", e);
+            }
+        }
+
         // Zip work directory to temporary file
         try {
-            // Create zip path for halo zip
-            String haloZipFileName = HALO_BACKUP_PREFIX
-                + DateTimeUtils.format(LocalDateTime.now(), HORIZONTAL_LINE_DATETIME_FORMATTER)
-                + HaloUtils.simpleUUID().hashCode() + ".zip";
             // Create halo zip file
-            Path haloZipFilePath = Paths.get(haloProperties.getBackupDir(), haloZipFileName);
+            Path haloZipFilePath = Paths.get(haloProperties.getBackupDir(), backupName + ".zip");
             if (!Files.exists(haloZipFilePath.getParent())) {
                 Files.createDirectories(haloZipFilePath.getParent());
             }
             Path haloZipPath = Files.createFile(haloZipFilePath);
 
             // Zip halo
-            FileUtils
-                .zip(Paths.get(this.haloProperties.getWorkDir()), haloZipPath,
-                    path -> {
-                        for (String itemToBackup : options) {
-                            Path backupItemPath =
-                                Paths.get(this.haloProperties.getWorkDir()).resolve(itemToBackup);
-                            if (path.startsWith(backupItemPath)) {
-                                return true;
-                            }
-                        }
-                        return false;
-                    });
+            FileUtils.zip(workDirPath, haloZipPath, filter);
 
             // Build backup dto
             return buildBackupDto(BACKUP_RESOURCE_BASE_URI, haloZipPath);
@@ -298,8 +334,13 @@ public class BackupServiceImpl implements BackupService {
         checkDirectoryTraversal(backupRootPath, backupPath);
 
         try {
-            // Delete backup file
-            Files.delete(backupPath);
+            if (WorkDirSnapshotStore.isSnapshot(backupPath)) {
+                // Delete snapshot and its unreferenced chunks
+                snapshotStore.delete(backupPath);
+            } else {
+                // Delete backup file
+                Files.delete(backupPath);
+            }
         } catch (NoSuchFileException e) {
             throw new NotFoundException("The file " + fileName + " was not found", e);
         } catch (IOException e) {
@@ -307,6 +348,43 @@ public class BackupServiceImpl implements BackupService {
         }
     }
 
+    @Override
+    public Resource loadWorkDirBackupAsResource(String fileName) {
+        Assert.hasText(fileName, "Backup file name must not be blank");
+
+        Path backupRootPath = Paths.get(haloProperties.getBackupDir());
+        Path backupPath = backupRootPath.resolve(fileName).normalize();
+        if (!WorkDirSnapshotStore.isSnapshot(backupPath)) {
+            return loadFileAsResource(haloProperties.getBackupDir(), fileName);
+        }
+
+        checkDirectoryTraversal(backupRootPath, backupPath);
+        if (Files.notExists(backupPath)) {
+            throw new NotFoundException("The file " + fileName + " was not found");
+        }
+        String archiveName =
+            StringUtils.removeEnd(backupPath.getFileName().toString(),
+                WorkDirSnapshotStore.SNAPSHOT_SUFFIX) + ".zip";
+        TemporaryFileResource archive;
+        try {
+            archive = new TemporaryFileResource(Files.createTempFile("halo-backup-", ".zip"),
+                archiveName);
+        } catch (IOException e) {
+            throw new ServiceException("Failed to create temporary file for backup", e);
+        }
+        try {
+            // The archive is deleted once it has been downloaded
+            snapshotStore.rebuild(backupPath, archive.getFile().toPath());
+            return archive;
+        } catch (NoSuchFileException e) {
+            archive.delete();
+            throw new NotFoundException("The file " + fileName + " was not found", e);
+        } catch (IOException e) {
+            archive.delete();
+            throw new ServiceException("Failed to rebuild backup " + fileName, e);
+        }
+    }
+
     @Override
     public Resource loadFileAsResource(String basePath, String fileName) {
         Assert.hasText(basePath, "Base path must not be blank");
@@ -344,31 +422,6 @@ public class BackupServiceImpl implements BackupService {
 
     @Override
     public BackupDTO exportData() {
-        Map<String, Object> data = new HashMap<>();
-        data.put("version", HaloConst.HALO_VERSION);
-        data.put("export_date", DateUtils.now());
-        data.put("attachments", attachmentService.listAll());
-        data.put("categories", categoryService.listAll(true));
-        data.put("comment_black_list", commentBlackListService.listAll());
-        data.put("journals", journalService.listAll());
-        data.put("journal_comments", journalCommentService.listAll());
-        data.put("links", linkService.listAll());
-        data.put("logs", logService.listAll());
-        data.put("menus", menuService.listAll());
-        data.put("options", optionService.listAll());
-        data.put("photos", photoService.listAll());
-        data.put("posts", postService.listAll());
-        data.put("post_categories", postCategoryService.listAll());
-        data.put("post_comments", postCommentService.listAll());
-        data.put("post_metas", postMetaService.listAll());
-        data.put("post_tags", postTagService.listAll());
-        data.put("sheets", sheetService.listAll());
-        data.put("sheet_comments", sheetCommentService.listAll());
-        data.put("sheet_metas", sheetMetaService.listAll());
-        data.put("tags", tagService.listAll());
-        data.put("theme_settings", themeSettingService.listAll());
-        data.put("user", userService.listAll());
-
         try {
             String haloDataFileName = HALO_DATA_EXPORT_PREFIX
                 + DateTimeUtils.format(LocalDateTime.now(), HORIZONTAL_LINE_DATETIME_FORMATTER)
@@ -380,13 +433,74 @@ public class BackupServiceImpl implements BackupService {
             }
             Path haloDataPath = Files.createFile(haloDataFilePath);
 
-            FileUtils.writeStringToFile(haloDataPath.toFile(), JsonUtils.objectToJson(data));
+            try (OutputStream outputStream =
+                     new BufferedOutputStream(Files.newOutputStream(haloDataPath));
+                 JsonGenerator generator = JsonUtils.DEFAULT_JSON_MAPPER.getFactory()
+                     .createGenerator(outputStream, JsonEncoding.UTF8)) {
+                generator.writeStartObject();
+                generator.writeStringField("version", HaloConst.HALO_VERSION);
+                generator.writeObjectField("export_date", DateUtils.now());
+                writeAll(generator, "attachments", attachmentService);
+                // Categories are not pageable and usually few
+                writeList(generator, "categories", categoryService.listAll(true));
+                writeAll(generator, "comment_black_list", commentBlackListService);
+                writeAll(generator, "journals", journalService);
+                writeAll(generator, "journal_comments", journalCommentService);
+                writeAll(generator, "links", linkService);
+                writeAll(generator, "logs", logService);
+                writeAll(generator, "menus", menuService);
+                writeAll(generator, "options", optionService);
+                writeAll(generator, "photos", photoService);
+                writeAll(generator, "posts", postService);
+                writeAll(generator, "post_categories", postCategoryService);
+                writeAll(generator, "post_comments", postCommentService);
+                writeAll(generator, "post_metas", postMetaService);
+                writeAll(generator, "post_tags", postTagService);
+                writeAll(generator, "sheets", sheetService);
+                writeAll(generator, "sheet_comments", sheetCommentService);
+                writeAll(generator, "sheet_metas", sheetMetaService);
+                writeAll(generator, "tags", tagService);
+                writeAll(generator, "theme_settings", themeSettingService);
+                writeAll(generator, "user", userService);
+                generator.writeEndObject();
+            }
             return buildBackupDto(DATA_EXPORT_BASE_URI, haloDataPath);
         } catch (IOException e) {
             throw new ServiceException("导出数据失败", e);
         }
     }
 
+    /**
+     * Writes all domains of the service as an array field, one page at a time.
+     */
+    private <D> void writeAll(JsonGenerator generator, String fieldName,
+        CrudService<D, ?> crudService) throws IOException {
+        generator.writeArrayFieldStart(fieldName);
+        long count = 0;
+        Pageable pageable = PageRequest.of(0, EXPORT_PAGE_SIZE, Sort.by("id"));
+        Page<D> page;
+        do {
+            page = crudService.listAll(pageable);
+            for (D domain : page) {
+                generator.writeObject(domain);
+            }
+            count += page.getNumberOfElements();
+            pageable = page.nextPageable();
+        } while (page.hasNext());
+        generator.writeEndArray();
+        log.debug("Exported [{}] {}", count, fieldName);
+    }
+
+    private void writeList(JsonGenerator generator, String fieldName, List<?> domains)
+        throws IOException {
+        generator.writeArrayFieldStart(fieldName);
+        for (Object domain : domains) {
+            generator.writeObject(domain);
+        }
+        generator.writeEndArray();
+        log.debug("Exported [{}] {}", domains.size(), fieldName);
+    }
+
     @Override
     public List<BackupDTO> listExportedData() {
 
@@ -430,110 +544,149 @@ public class BackupServiceImpl implements BackupService {
 
     @Override
     public void importData(MultipartFile file) throws IOException {
-        String jsonContent = FileUtils.readString(file.getInputStream());
-
-        ObjectMapper mapper = JsonUtils.createDefaultJsonMapper();
-        TypeReference<HashMap<String, Object>> typeRef =
-            new TypeReference<>() {
-            };
-        HashMap<String, Object> data = mapper.readValue(jsonContent, typeRef);
-
-        List<Attachment> attachments = Arrays.asList(mapper
-            .readValue(mapper.writeValueAsString(data.get("attachments")), Attachment[].class));
-        attachmentService.createInBatch(attachments);
-
-        List<Category> categories = Arrays.asList(
-            mapper.readValue(mapper.writeValueAsString(data.get("categories")), Category[].class));
-        categoryService.createInBatch(categories);
-
-        List<Tag> tags = Arrays
-            .asList(mapper.readValue(mapper.writeValueAsString(data.get("tags")), Tag[].class));
-        tagService.createInBatch(tags);
-
-        List<CommentBlackList> commentBlackList = Arrays.asList(mapper
-            .readValue(mapper.writeValueAsString(data.get("comment_black_list")),
-                CommentBlackList[].class));
-        commentBlackListService.createInBatch(commentBlackList);
-
-        List<Journal> journals = Arrays.asList(
-            mapper.readValue(mapper.writeValueAsString(data.get("journals")), Journal[].class));
-        journalService.createInBatch(journals);
-
-        List<JournalComment> journalComments = Arrays.asList(mapper
-            .readValue(mapper.writeValueAsString(data.get("journal_comments")),
-                JournalComment[].class));
-        journalCommentService.createInBatch(journalComments);
-
-        List<Link> links = Arrays
-            .asList(mapper.readValue(mapper.writeValueAsString(data.get("links")), Link[].class));
-        linkService.createInBatch(links);
-
-        List<Log> logs = Arrays
-            .asList(mapper.readValue(mapper.writeValueAsString(data.get("logs")), Log[].class));
-        logService.createInBatch(logs);
-
-        List<Menu> menus = Arrays
-            .asList(mapper.readValue(mapper.writeValueAsString(data.get("menus")), Menu[].class));
-        menuService.createInBatch(menus);
-
-        List<Option> options = Arrays.asList(
-            mapper.readValue(mapper.writeValueAsString(data.get("options")), Option[].class));
-        optionService.createInBatch(options);
-
-        eventPublisher.publishEvent(new OptionUpdatedEvent(this));
-
-        List<Photo> photos = Arrays
-            .asList(mapper.readValue(mapper.writeValueAsString(data.get("photos")), Photo[].class));
-        photoService.createInBatch(photos);
-
-        List<Post> posts = Arrays
-            .asList(mapper.readValue(mapper.writeValueAsString(data.get("posts")), Post[].class));
-        postService.createInBatch(posts);
-
-        List<PostCategory> postCategories = Arrays.asList(mapper
-            .readValue(mapper.writeValueAsString(data.get("post_categories")),
-                PostCategory[].class));
-        postCategoryService.createInBatch(postCategories);
-
-        List<PostComment> postComments = Arrays.asList(mapper
-            .readValue(mapper.writeValueAsString(data.get("post_comments")), PostComment[].class));
-        postCommentService.createInBatch(postComments);
-
-        List<PostMeta> postMetas = Arrays.asList(
-            mapper.readValue(mapper.writeValueAsString(data.get("post_metas")), PostMeta[].class));
-        postMetaService.createInBatch(postMetas);
-
-        List<PostTag> postTags = Arrays.asList(
-            mapper.readValue(mapper.writeValueAsString(data.get("post_tags")), PostTag[].class));
-        postTagService.createInBatch(postTags);
-
-        List<Sheet> sheets = Arrays
-            .asList(mapper.readValue(mapper.writeValueAsString(data.get("sheets")), Sheet[].class));
-        sheetService.createInBatch(sheets);
-
-        List<SheetComment> sheetComments = Arrays.asList(mapper
-            .readValue(mapper.writeValueAsString(data.get("sheet_comments")),
-                SheetComment[].class));
-        sheetCommentService.createInBatch(sheetComments);
-
-        List<SheetMeta> sheetMetas = Arrays.asList(mapper
-            .readValue(mapper.writeValueAsString(data.get("sheet_metas")), SheetMeta[].class));
-        sheetMetaService.createInBatch(sheetMetas);
+        try (InputStream inputStream = file.getInputStream();
+             JsonParser parser = JsonUtils.DEFAULT_JSON_MAPPER.getFactory()
+                 .createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new BadRequestException("导入的数据格式不正确");
+            }
 
-        List<ThemeSetting> themeSettings = Arrays.asList(mapper
-            .readValue(mapper.writeValueAsString(data.get("theme_settings")),
-                ThemeSetting[].class));
-        themeSettingService.createInBatch(themeSettings);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
 
-        eventPublisher.publishEvent(new ThemeUpdatedEvent(this));
+                long count;
+                switch (fieldName) {
+                    case "attachments":
+                        count = readInBatches(parser, Attachment.class,
+                            attachmentService::createInBatch);
+                        break;
+                    case "categories":
+                        count = readInBatches(parser, Category.class,
+                            categoryService::createInBatch);
+                        break;
+                    case "tags":
+                        count = readInBatches(parser, Tag.class, tagService::createInBatch);
+                        break;
+                    case "comment_black_list":
+                        count = readInBatches(parser, CommentBlackList.class,
+                            commentBlackListService::createInBatch);
+                        break;
+                    case "journals":
+                        count = readInBatches(parser, Journal.class,
+                            journalService::createInBatch);
+                        break;
+                    case "journal_comments":
+                        count = readInBatches(parser, JournalComment.class,
+                            journalCommentService::createInBatch);
+                        break;
+                    case "links":
+                        count = readInBatches(parser, Link.class, linkService::createInBatch);
+                        break;
+                    case "logs":
+                        count = readInBatches(parser, Log.class, logService::createInBatch);
+                        break;
+                    case "menus":
+                        count = readInBatches(parser, Menu.class, menuService::createInBatch);
+                        break;
+                    case "options":
+                        count = readInBatches(parser, Option.class,
+                            optionService::createInBatch);
+                        eventPublisher.publishEvent(new OptionUpdatedEvent(this));
+                        break;
+                    case "photos":
+                        count = readInBatches(parser, Photo.class, photoService::createInBatch);
+                        break;
+                    case "posts":
+                        count = readInBatches(parser, Post.class, postService::createInBatch);
+                        break;
+                    case "post_categories":
+                        count = readInBatches(parser, PostCategory.class,
+                            postCategoryService::createInBatch);
+                        break;
+                    case "post_comments":
+                        count = readInBatches(parser, PostComment.class,
+                            postCommentService::createInBatch);
+                        break;
+                    case "post_metas":
+                        count = readInBatches(parser, PostMeta.class,
+                            postMetaService::createInBatch);
+                        break;
+                    case "post_tags":
+                        count = readInBatches(parser, PostTag.class,
+                            postTagService::createInBatch);
+                        break;
+                    case "sheets":
+                        count = readInBatches(parser, Sheet.class, sheetService::createInBatch);
+                        break;
+                    case "sheet_comments":
+                        count = readInBatches(parser, SheetComment.class,
+                            sheetCommentService::createInBatch);
+                        break;
+                    case "sheet_metas":
+                        count = readInBatches(parser, SheetMeta.class,
+                            sheetMetaService::createInBatch);
+                        break;
+                    case "theme_settings":
+                        count = readInBatches(parser, ThemeSetting.class,
+                            themeSettingService::createInBatch);
+                        eventPublisher.publishEvent(new ThemeUpdatedEvent(this));
+                        break;
+                    case "user":
+                        count = importUser(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        continue;
+                }
+                log.info("Imported [{}] {}", count, fieldName);
+            }
+        }
+    }
 
-        List<User> users = Arrays.asList(mapper
-            .readValue(mapper.writeValueAsString(data.get("user")),
-                User[].class));
+    /**
+     * Reads the elements of the current array and hands them over in batches, so only one batch
+     * is held in memory and each batch is saved in its own transaction.
+     *
+     * @return count of the elements read
+     */
+    private <D> long readInBatches(JsonParser parser, Class<D> type, Consumer<List<D>> consumer)
+        throws IOException {
+        List<D> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        long count = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            batch.add(parser.readValueAs(type));
+            if (batch.size() >= IMPORT_BATCH_SIZE) {
+                consumer.accept(batch);
+                count += batch.size();
+                log.debug("Imported [{}] {}", count, type.getSimpleName());
+                batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+            count += batch.size();
+        }
+        return count;
+    }
 
-        if (users.size() > 0) {
-            userService.create(users.get(0));
+    /**
+     * Creates the first user of the current array, the others are ignored.
+     */
+    private long importUser(JsonParser parser) throws IOException {
+        long count = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (count == 0) {
+                userService.create(parser.readValueAs(User.class));
+                count++;
+            } else {
+                parser.skipChildren();
+            }
         }
+        return count;
     }
 
     @Override
@@ -542,32 +695,6 @@ public class BackupServiceImpl implements BackupService {
         List<PostMarkdownVO> postMarkdownList = postService.listPostMarkdowns();
         Assert.notEmpty(postMarkdownList, "当前无文章可以导出");
 
-        // Write files to the temporary directory
-        String markdownFileTempPathName =
-            haloProperties.getBackupMarkdownDir() + HaloUtils.simpleUUID().hashCode();
-        for (PostMarkdownVO postMarkdownVo : postMarkdownList) {
-            StringBuilder content = new StringBuilder();
-            Boolean needFrontMatter =
-                Optional.ofNullable(postMarkdownParam.getNeedFrontMatter()).orElse(false);
-            if (needFrontMatter) {
-                // Add front-matter
-                content.append(postMarkdownVo.getFrontMatter()).append("\n");
-            }
-            content.append(postMarkdownVo.getOriginalContent());
-            try {
-                String markdownFileName =
-                    postMarkdownVo.getTitle() + "-" + postMarkdownVo.getSlug() + ".md";
-                Path markdownFilePath = Paths.get(markdownFileTempPathName, markdownFileName);
-                if (!Files.exists(markdownFilePath.getParent())) {
-                    Files.createDirectories(markdownFilePath.getParent());
-                }
-                Path markdownDataPath = Files.createFile(markdownFilePath);
-                FileUtils.writeStringToFile(markdownDataPath.toFile(), content.toString());
-            } catch (IOException e) {
-                throw new ServiceException("导出数据失败", e);
-            }
-        }
-
         // Create zip path
         String markdownZipFileName = HALO_BACKUP_MARKDOWN_PREFIX
             + DateTimeUtils.format(LocalDateTime.now(), HORIZONTAL_LINE_DATETIME_FORMATTER)
@@ -581,29 +708,19 @@ public class BackupServiceImpl implements BackupService {
         }
         Path markdownZipPath = Files.createFile(markdownZipFilePath);
         // Zip file
-        try (ZipOutputStream markdownZipOut = new ZipOutputStream(
-            Files.newOutputStream(markdownZipPath))) {
-
-            // Zip temporary directory
-            Path markdownFileTempPath = Paths.get(markdownFileTempPathName);
-            FileUtils.zip(markdownFileTempPath, markdownZipOut);
-
-            // Zip upload sub-directory
-            String uploadPathName =
-                FileHandler.normalizeDirectory(haloProperties.getWorkDir()) + UPLOAD_SUB_DIR;
-            Path uploadPath = Paths.get(uploadPathName);
-            if (Files.exists(uploadPath)) {
-                FileUtils.zip(uploadPath, markdownZipOut);
+        try (ParallelZipWriter zipWriter = new ParallelZipWriter(markdownZipPath)) {
+            try {
+                zipMarkdowns(zipWriter, postMarkdownList, postMarkdownParam);
+            } catch (IOException | RuntimeException e) {
+                zipWriter.abort();
+                throw e;
             }
-
-            // Remove files in the temporary directory
-            FileUtils.deleteFolder(markdownFileTempPath);
-
-            // Build backup dto
-            return buildBackupDto(DATA_EXPORT_MARKDOWN_BASE_URI, markdownZipPath);
         } catch (IOException e) {
             throw new ServiceException("Failed to export markdowns", e);
         }
+
+        // Build backup dto
+        return buildBackupDto(DATA_EXPORT_MARKDOWN_BASE_URI, markdownZipPath);
     }
 
     @Override
@@ -650,6 +767,44 @@ public class BackupServiceImpl implements BackupService {
         }
     }
 
+    /**
+     * Zips the markdowns of posts and the upload directory.
+     *
+     * @param zipWriter zip writer must not be null
+     * @param postMarkdownList markdowns of posts must not be null
+     * @param postMarkdownParam export parameters must not be null
+     * @throws IOException throws when failed to write the archive
+     */
+    private void zipMarkdowns(ParallelZipWriter zipWriter, List<PostMarkdownVO> postMarkdownList,
+        PostMarkdownParam postMarkdownParam) throws IOException {
+        // Write markdowns into the archive directly
+        String markdownFolderName = HaloUtils.simpleUUID().hashCode() + "/";
+        long now = System.currentTimeMillis();
+        zipWriter.addDirectory(markdownFolderName, now);
+        boolean needFrontMatter =
+            Optional.ofNullable(postMarkdownParam.getNeedFrontMatter()).orElse(false);
+        for (PostMarkdownVO postMarkdownVo : postMarkdownList) {
+            StringBuilder content = new StringBuilder();
+            if (needFrontMatter) {
+                // Add front-matter
+                content.append(postMarkdownVo.getFrontMatter()).append("\n");
+            }
+            content.append(postMarkdownVo.getOriginalContent());
+            String markdownFileName =
+                postMarkdownVo.getTitle() + "-" + postMarkdownVo.getSlug() + ".md";
+            zipWriter.addBytes(markdownFolderName + markdownFileName,
+                content.toString().getBytes(StandardCharsets.UTF_8), now);
+        }
+
+        // Zip upload sub-directory
+        String uploadPathName =
+            FileHandler.normalizeDirectory(haloProperties.getWorkDir()) + UPLOAD_SUB_DIR;
+        Path uploadPath = Paths.get(uploadPathName);
+        if (Files.exists(uploadPath)) {
+            FileUtils.zip(uploadPath, zipWriter, null);
+        }
+    }
+
     /**
      * Builds backup dto.
      *
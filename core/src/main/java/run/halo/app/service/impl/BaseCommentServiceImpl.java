@@ -2,6 +2,7 @@ package run.halo.app.service.impl;
 
 import static org.springframework.data.domain.Sort.Direction.DESC;
 
+import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -20,6 +21,7 @@ import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
@@ -69,6 +71,11 @@ import run.halo.app.utils.ValidationUtils;
 public abstract class BaseCommentServiceImpl<COMMENT extends BaseComment>
     extends AbstractCrudService<COMMENT, Long> implements BaseCommentService<COMMENT> {
 
+    /**
+     * Max count of parent ids in one query of child comments.
+     */
+    private static final int CHILDREN_QUERY_BATCH_SIZE = 500;
+
     protected final OptionService optionService;
     protected final UserService userService;
     protected final ApplicationEventPublisher eventPublisher;
@@ -184,11 +191,55 @@ public abstract class BaseCommentServiceImpl<COMMENT extends BaseComment>
 
         log.debug("Getting comment tree view of post: [{}], page info: [{}]", postId, pageable);
 
-        // List all the top comments (Caution: This list will be cleared)
-        List<COMMENT> comments =
-            baseCommentRepository.findAllByPostIdAndStatus(postId, CommentStatus.PUBLISHED);
+        // Only the id order is respected, the same as the comparator
+        Sort sort = pageable.getSortOr(Sort.by(DESC, "createTime"));
+        Sort.Order idOrder = sort.getOrderFor("id");
+        Sort.Direction direction = idOrder == null ? DESC : idOrder.getDirection();
+        Comparator<BaseCommentVO> commentComparator = buildCommentComparator(sort);
 
-        return pageVosBy(comments, pageable);
+        // Page the top comments in the database
+        Page<COMMENT> topCommentPage = baseCommentRepository.findAllByPostIdAndStatusAndParentId(
+            postId, CommentStatus.PUBLISHED, 0L,
+            PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), direction, "id"));
+
+        List<BaseCommentVO> topComments = topCommentPage.getContent().stream()
+            .map(this::convertToTreeNode)
+            .collect(Collectors.toList());
+
+        // Load the descendants level by level
+        Set<Long> loadedIds = ServiceUtils.fetchProperty(topComments, BaseCommentVO::getId);
+        Map<Long, BaseCommentVO> parents =
+            ServiceUtils.convertToMap(topComments, BaseCommentVO::getId);
+        while (!parents.isEmpty()) {
+            Map<Long, BaseCommentVO> children = new HashMap<>();
+            for (List<Long> parentIds : Lists.partition(new ArrayList<>(parents.keySet()),
+                CHILDREN_QUERY_BATCH_SIZE)) {
+                for (COMMENT comment : baseCommentRepository
+                    .findAllByStatusAndParentIdIn(CommentStatus.PUBLISHED, parentIds)) {
+                    if (!loadedIds.add(comment.getId())) {
+                        continue;
+                    }
+                    BaseCommentVO parent = parents.get(comment.getParentId());
+                    if (parent.getChildren() == null) {
+                        parent.setChildren(new LinkedList<>());
+                    }
+                    BaseCommentVO child = convertToTreeNode(comment);
+                    parent.getChildren().add(child);
+                    children.put(child.getId(), child);
+                }
+            }
+
+            parents.values().stream()
+                .filter(parent -> parent.getChildren() != null)
+                .forEach(parent -> parent.getChildren().sort(commentComparator));
+            parents = children;
+        }
+
+        long commentCount =
+            baseCommentRepository.countByPostIdAndStatus(postId, CommentStatus.PUBLISHED);
+
+        return new CommentPage<>(topComments, pageable, topCommentPage.getTotalElements(),
+            commentCount);
     }
 
     @Override
@@ -709,6 +760,13 @@ public abstract class BaseCommentServiceImpl<COMMENT extends BaseComment>
         children.addAll(topComments);
     }
 
+    @NonNull
+    private BaseCommentVO convertToTreeNode(@NonNull COMMENT comment) {
+        BaseCommentVO commentVo = new BaseCommentVO().convertFrom(comment);
+        commentVo.setAvatar(buildAvatarUrl(commentVo.getGravatarMd5()));
+        return commentVo;
+    }
+
     /**
      * Concretes comment tree.
      *
@@ -3,9 +3,12 @@ package run.halo.app.service.impl;
 import static org.springframework.data.domain.Sort.Direction.ASC;
 import static org.springframework.data.domain.Sort.Direction.DESC;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -15,6 +18,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.lang.NonNull;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
@@ -54,15 +58,38 @@ public abstract class BasePostServiceImpl<POST extends BasePost>
 
     private final OptionService optionService;
 
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Posts and sheets share the same table, drafts are skipped.
+     */
+    private static final String INCREASE_VISITS_SQL =
+        "update posts set visits = visits + ? where id = ? and status <> ?";
+
+    private static final int INCREASE_VISITS_BATCH_SIZE = 500;
+
+    private static final String COUNT_AFTER_SQL = "select count(*) from posts where id > ?";
+
+    private static final String LIST_CONTENT_AFTER_SQL =
+        "select id, editor_type, original_content from posts where id > ? order by id limit ?";
+
+    private static final String UPDATE_RENDERED_CONTENT_SQL =
+        "update posts set format_content = ?, plain_text = ?, generated_summary = ?, "
+            + "word_count = ? where id = ?";
+
+    private static final int UPDATE_RENDERED_CONTENT_BATCH_SIZE = 100;
+
     private static final Pattern summaryPattern = Pattern.compile("\t|\r|\n");
 
     private static final Pattern BLANK_PATTERN = Pattern.compile("\\s");
 
     public BasePostServiceImpl(BasePostRepository<POST> basePostRepository,
-        OptionService optionService) {
+        OptionService optionService,
+        JdbcTemplate jdbcTemplate) {
         super(basePostRepository);
         this.basePostRepository = basePostRepository;
         this.optionService = optionService;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
@@ -254,6 +281,30 @@ public abstract class BasePostServiceImpl<POST extends BasePost>
         increaseVisit(1L, postId);
     }
 
+    @Override
+    @Transactional
+    public void increaseVisits(Map<Integer, Long> visitsMap) {
+        Assert.notNull(visitsMap, "Visits map must not be null");
+
+        List<Map.Entry<Integer, Long>> visitsToIncrease = visitsMap.entrySet().stream()
+            .filter(entry -> entry.getKey() != null && entry.getValue() != null
+                && entry.getValue() > 0)
+            .collect(Collectors.toList());
+
+        if (visitsToIncrease.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INCREASE_VISITS_SQL, visitsToIncrease,
+            INCREASE_VISITS_BATCH_SIZE, (ps, entry) -> {
+                ps.setLong(1, entry.getValue());
+                ps.setInt(2, entry.getKey());
+                ps.setInt(3, PostStatus.DRAFT.getValue());
+            });
+
+        log.debug("Increased visits of [{}] posts in batch", visitsToIncrease.size());
+    }
+
     @Override
     @Transactional
     public void increaseLike(long likes, Integer postId) {
@@ -290,13 +341,10 @@ public abstract class BasePostServiceImpl<POST extends BasePost>
         // Render content and set word count
         if (post.getEditorType().equals(PostEditorType.MARKDOWN)) {
             post.setFormatContent(MarkdownUtils.renderHtml(post.getOriginalContent()));
-
-            post.setWordCount(htmlFormatWordCount(post.getFormatContent()));
         } else {
             post.setFormatContent(originalContent);
-
-            post.setWordCount(htmlFormatWordCount(originalContent));
         }
+        generateText(post);
 
         // Create or update post
         if (ServiceUtils.isEmptyId(post.getId())) {
@@ -319,6 +367,8 @@ public abstract class BasePostServiceImpl<POST extends BasePost>
         if (StringUtils.isNotBlank(post.getPassword())) {
             String tip = "The post is encrypted by author";
             post.setSummary(tip);
+            post.setPlainText(tip);
+            post.setGeneratedSummary(tip);
             post.setOriginalContent(tip);
             post.setFormatContent(tip);
         }
@@ -359,7 +409,7 @@ public abstract class BasePostServiceImpl<POST extends BasePost>
 
         // Set summary
         if (StringUtils.isBlank(basePostSimpleDTO.getSummary())) {
-            basePostSimpleDTO.setSummary(generateSummary(post.getFormatContent()));
+            basePostSimpleDTO.setSummary(resolveSummary(post));
         }
 
         return basePostSimpleDTO;
@@ -447,6 +497,9 @@ public abstract class BasePostServiceImpl<POST extends BasePost>
             }
 
             post.setFormatContent(formatContent);
+            generateText(post);
+            basePostRepository.updateGeneratedText(post.getPlainText(),
+                post.getGeneratedSummary(), post.getWordCount(), postId);
         }
 
         return post;
@@ -467,16 +520,102 @@ public abstract class BasePostServiceImpl<POST extends BasePost>
     public String generateDescription(String content) {
         Assert.notNull(content, "html content must not be null");
 
-        String text = HaloUtils.cleanHtmlTag(content);
+        return summarize(HaloUtils.cleanHtmlTag(content), getSummaryLength());
+    }
 
-        Matcher matcher = summaryPattern.matcher(text);
-        text = matcher.replaceAll("");
+    @Override
+    public List<Integer> listIdsWithoutPlainText() {
+        return basePostRepository.findAllIdsWithoutPlainText();
+    }
 
-        // Get summary length
-        Integer summaryLength =
-            optionService.getByPropertyOrDefault(PostProperties.SUMMARY_LENGTH, Integer.class, 150);
+    @Override
+    public List<Integer> listAllIds() {
+        return basePostRepository.findAllIds();
+    }
 
-        return StringUtils.substring(text, 0, summaryLength);
+    @Override
+    @Transactional
+    public void refreshGeneratedText(Collection<Integer> postIds) {
+        Assert.notNull(postIds, "Post ids must not be null");
+
+        int summaryLength = getSummaryLength();
+        for (Integer postId : postIds) {
+            String plainText =
+                HaloUtils.cleanHtmlTag(basePostRepository.findFormatContentById(postId));
+            basePostRepository.updateGeneratedText(plainText, summarize(plainText, summaryLength),
+                countWords(plainText), postId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void refreshGeneratedSummary(Collection<Integer> postIds) {
+        Assert.notNull(postIds, "Post ids must not be null");
+
+        int summaryLength = getSummaryLength();
+        for (Integer postId : postIds) {
+            String plainText = basePostRepository.findPlainTextById(postId);
+            if (plainText != null) {
+                basePostRepository.updateGeneratedSummary(summarize(plainText, summaryLength),
+                    postId);
+            }
+        }
+    }
+
+    @Override
+    public long countAfter(Integer postId) {
+        Assert.notNull(postId, "Post id must not be null");
+
+        // Counts posts and sheets alike, as they are both rendered
+        Long count = jdbcTemplate.queryForObject(COUNT_AFTER_SQL, Long.class, postId);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public List<Integer> renderAfter(Integer postId, int size, ForkJoinPool pool) {
+        Assert.notNull(postId, "Post id must not be null");
+        Assert.isTrue(size > 0, "Size must be greater than 0");
+        Assert.notNull(pool, "Pool must not be null");
+
+        List<RenderedContent> contents = jdbcTemplate.query(LIST_CONTENT_AFTER_SQL,
+            (rs, rowNum) -> {
+                RenderedContent content = new RenderedContent();
+                content.postId = rs.getInt("id");
+                int editorType = rs.getInt("editor_type");
+                content.markdown = rs.wasNull()
+                    || editorType == PostEditorType.MARKDOWN.getValue();
+                content.originalContent = rs.getString("original_content");
+                return content;
+            }, postId, size);
+        if (contents.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int summaryLength = getSummaryLength();
+        List<RenderedContent> renderedContents = pool.submit(() -> contents.parallelStream()
+            .filter(content -> content.markdown)
+            .map(content -> {
+                content.formatContent = MarkdownUtils.renderHtml(content.originalContent);
+                content.plainText = HaloUtils.cleanHtmlTag(content.formatContent);
+                content.summary = summarize(content.plainText, summaryLength);
+                content.wordCount = countWords(content.plainText);
+                return content;
+            })
+            .collect(Collectors.toList()))
+            .join();
+
+        jdbcTemplate.batchUpdate(UPDATE_RENDERED_CONTENT_SQL, renderedContents,
+            UPDATE_RENDERED_CONTENT_BATCH_SIZE, (ps, content) -> {
+                ps.setString(1, content.formatContent);
+                ps.setString(2, content.plainText);
+                ps.setString(3, content.summary);
+                ps.setLong(4, content.wordCount);
+                ps.setInt(5, content.postId);
+            });
+
+        return contents.stream()
+            .map(content -> content.postId)
+            .collect(Collectors.toList());
     }
 
     @Override
@@ -523,15 +662,46 @@ public abstract class BasePostServiceImpl<POST extends BasePost>
     protected String generateSummary(@NonNull String htmlContent) {
         Assert.notNull(htmlContent, "html content must not be null");
 
-        String text = HaloUtils.cleanHtmlTag(htmlContent);
+        return summarize(HaloUtils.cleanHtmlTag(htmlContent), getSummaryLength());
+    }
+
+    /**
+     * Gets the summary generated when the post was saved, it is only generated from the format
+     * content if the post has not been backfilled yet.
+     *
+     * @param post post must not be null
+     * @return generated summary
+     */
+    @NonNull
+    protected String resolveSummary(@NonNull BasePost post) {
+        Assert.notNull(post, "Post must not be null");
+
+        if (post.getGeneratedSummary() != null) {
+            return post.getGeneratedSummary();
+        }
+        return generateSummary(StringUtils.defaultString(post.getFormatContent()));
+    }
 
-        Matcher matcher = summaryPattern.matcher(text);
-        text = matcher.replaceAll("");
+    /**
+     * Generates the plain text, summary and word count from the format content of the post.
+     *
+     * @param post post must not be null
+     */
+    protected void generateText(@NonNull POST post) {
+        String plainText = HaloUtils.cleanHtmlTag(post.getFormatContent());
+        post.setPlainText(plainText);
+        post.setGeneratedSummary(summarize(plainText, getSummaryLength()));
+        post.setWordCount(countWords(plainText));
+    }
 
-        // Get summary length
-        Integer summaryLength =
-            optionService.getByPropertyOrDefault(PostProperties.SUMMARY_LENGTH, Integer.class, 150);
+    private int getSummaryLength() {
+        return optionService.getByPropertyOrDefault(PostProperties.SUMMARY_LENGTH,
+            Integer.class, 150);
+    }
 
+    @NonNull
+    private static String summarize(@NonNull String plainText, int summaryLength) {
+        String text = summaryPattern.matcher(plainText).replaceAll("");
         return StringUtils.substring(text, 0, summaryLength);
     }
 
@@ -547,9 +717,11 @@ public abstract class BasePostServiceImpl<POST extends BasePost>
             return 0;
         }
 
-        String cleanContent = HaloUtils.cleanHtmlTag(htmlContent);
+        return countWords(HaloUtils.cleanHtmlTag(htmlContent));
+    }
 
-        Matcher matcher = BLANK_PATTERN.matcher(cleanContent);
+    private static long countWords(String plainText) {
+        Matcher matcher = BLANK_PATTERN.matcher(plainText);
 
         int count = 0;
 
@@ -557,6 +729,19 @@ public abstract class BasePostServiceImpl<POST extends BasePost>
             count++;
         }
 
-        return cleanContent.length() - count;
+        return plainText.length() - count;
+    }
+
+    /**
+     * Content of a post or sheet being rendered in batch.
+     */
+    private static class RenderedContent {
+        int postId;
+        boolean markdown;
+        String originalContent;
+        String formatContent;
+        String plainText;
+        String summary;
+        long wordCount;
     }
 }
@@ -15,6 +15,7 @@ import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -24,6 +25,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import run.halo.app.event.category.CategoryUpdatedEvent;
 import run.halo.app.exception.AlreadyExistsException;
 import run.halo.app.exception.NotFoundException;
 import run.halo.app.exception.UnsupportedException;
@@ -69,17 +71,21 @@ public class CategoryServiceImpl extends AbstractCrudService<Category, Integer>
 
     private final AuthenticationService authenticationService;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     public CategoryServiceImpl(CategoryRepository categoryRepository,
         PostCategoryService postCategoryService,
         OptionService optionService,
         AuthenticationService authenticationService,
-        AuthorizationService authorizationService) {
+        AuthorizationService authorizationService,
+        ApplicationEventPublisher eventPublisher) {
         super(categoryRepository);
         this.categoryRepository = categoryRepository;
         this.postCategoryService = postCategoryService;
         this.optionService = optionService;
         this.authenticationService = authenticationService;
         this.authorizationService = authorizationService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Lazy
@@ -118,7 +124,17 @@ public class CategoryServiceImpl extends AbstractCrudService<Category, Integer>
         }
 
         // Create it
-        return super.create(category);
+        Category createdCategory = super.create(category);
+        eventPublisher.publishEvent(new CategoryUpdatedEvent(this));
+        return createdCategory;
+    }
+
+    @Override
+    @Transactional
+    public List<Category> createInBatch(Collection<Category> categories) {
+        List<Category> createdCategories = super.createInBatch(categories);
+        eventPublisher.publishEvent(new CategoryUpdatedEvent(this));
+        return createdCategories;
     }
 
     @Override
@@ -289,6 +305,7 @@ public class CategoryServiceImpl extends AbstractCrudService<Category, Integer>
 
         // Remove category
         removeById(categoryId);
+        eventPublisher.publishEvent(new CategoryUpdatedEvent(this));
         // Remove post categories
         List<Integer> affectedPostIdList = postCategoryService.removeByCategoryId(categoryId)
             .stream().map(PostCategory::getPostId).collect(Collectors.toList());
@@ -541,6 +558,7 @@ public class CategoryServiceImpl extends AbstractCrudService<Category, Integer>
         // Remove authorization every time an category is updated.
         authorizationService.deleteCategoryAuthorization(category.getId());
 
+        eventPublisher.publishEvent(new CategoryUpdatedEvent(this));
         return update;
     }
 
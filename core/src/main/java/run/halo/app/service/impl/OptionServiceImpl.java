@@ -8,12 +8,17 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.persistence.criteria.Predicate;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -23,7 +28,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
-import run.halo.app.cache.AbstractStringCacheStore;
 import run.halo.app.event.options.OptionUpdatedEvent;
 import run.halo.app.model.dto.OptionSimpleDTO;
 import run.halo.app.model.entity.Option;
@@ -41,6 +45,7 @@ import run.halo.app.model.properties.QiniuOssProperties;
 import run.halo.app.repository.OptionRepository;
 import run.halo.app.service.OptionService;
 import run.halo.app.service.base.AbstractCrudService;
+import run.halo.app.service.support.OptionSnapshot;
 import run.halo.app.utils.DateUtils;
 import run.halo.app.utils.ServiceUtils;
 import run.halo.app.utils.ValidationUtils;
@@ -59,18 +64,25 @@ public class OptionServiceImpl extends AbstractCrudService<Option, Integer>
 
     private final OptionRepository optionRepository;
     private final ApplicationContext applicationContext;
-    private final AbstractStringCacheStore cacheStore;
     private final Map<String, PropertyEnum> propertyEnumMap;
     private final ApplicationEventPublisher eventPublisher;
 
+    /**
+     * Snapshot of all options, null if it needs to be built again.
+     */
+    private volatile OptionSnapshot optionSnapshot;
+
+    /**
+     * Increased on every option update, so a snapshot built across one is not kept.
+     */
+    private final AtomicLong optionGeneration = new AtomicLong();
+
     public OptionServiceImpl(OptionRepository optionRepository,
         ApplicationContext applicationContext,
-        AbstractStringCacheStore cacheStore,
         ApplicationEventPublisher eventPublisher) {
         super(optionRepository);
         this.optionRepository = optionRepository;
         this.applicationContext = applicationContext;
-        this.cacheStore = cacheStore;
         this.eventPublisher = eventPublisher;
 
         propertyEnumMap = Collections.unmodifiableMap(PropertyEnum.getValuePropertyEnumMap());
@@ -175,49 +187,114 @@ public class OptionServiceImpl extends AbstractCrudService<Option, Integer>
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Map<String, Object> listOptions() {
-        // Get options from cache
-        return cacheStore.getAny(OPTIONS_KEY, Map.class).orElseGet(() -> {
-            List<Option> options = listAll();
+        return getOptionSnapshot().getOptions();
+    }
 
-            Set<String> keys = ServiceUtils.fetchProperty(options, Option::getKey);
+    @Override
+    @NonNull
+    public Optional<Object> getByProperty(@NonNull PropertyEnum property) {
+        return Optional.ofNullable(getOptionSnapshot().get(property));
+    }
 
-            Map<String, Object> userDefinedOptionMap =
-                ServiceUtils.convertToMap(options, Option::getKey, option -> {
-                    String key = option.getKey();
+    @Override
+    public <T> Optional<T> getByProperty(@NonNull PropertyEnum property,
+        @NonNull Class<T> propertyType) {
+        Assert.notNull(propertyType, "Property type must not be null");
 
-                    PropertyEnum propertyEnum = propertyEnumMap.get(key);
+        Object value = getOptionSnapshot().getTyped(property);
+        if (value == null) {
+            return Optional.empty();
+        }
+        if (propertyType.isInstance(value)) {
+            return Optional.of(propertyType.cast(value));
+        }
+        return Optional.of(PropertyEnum.convertTo(value.toString(), propertyType));
+    }
 
-                    if (propertyEnum == null) {
-                        return option.getValue();
-                    }
+    @Override
+    @NonNull
+    public <T extends Enum<T>> Optional<T> getEnumByProperty(@NonNull PropertyEnum property,
+        @NonNull Class<T> valueType) {
+        Assert.notNull(valueType, "Value type must not be null");
 
-                    return PropertyEnum.convertTo(option.getValue(), propertyEnum);
-                });
+        Object value = getOptionSnapshot().getTyped(property);
+        if (value == null) {
+            return Optional.empty();
+        }
+        if (valueType.isInstance(value)) {
+            return Optional.of(valueType.cast(value));
+        }
+        return Optional.ofNullable(PropertyEnum.convertToEnum(value.toString(), valueType));
+    }
 
-            Map<String, Object> result = new HashMap<>(userDefinedOptionMap);
+    /**
+     * Drops the option snapshot before other listeners read the options again.
+     */
+    @EventListener(OptionUpdatedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onOptionUpdated() {
+        optionGeneration.incrementAndGet();
+        optionSnapshot = null;
+    }
 
-            // Add default property
-            propertyEnumMap.keySet()
-                .stream()
-                .filter(key -> !keys.contains(key))
-                .forEach(key -> {
-                    PropertyEnum propertyEnum = propertyEnumMap.get(key);
+    @NonNull
+    private OptionSnapshot getOptionSnapshot() {
+        OptionSnapshot snapshot = optionSnapshot;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = optionSnapshot;
+            if (snapshot != null) {
+                return snapshot;
+            }
+            long generation = optionGeneration.get();
+            snapshot = new OptionSnapshot(buildOptionMap());
+            if (optionGeneration.get() == generation) {
+                optionSnapshot = snapshot;
+            }
+            return snapshot;
+        }
+    }
+
+    @NonNull
+    private Map<String, Object> buildOptionMap() {
+        List<Option> options = listAll();
 
-                    if (StringUtils.isBlank(propertyEnum.defaultValue())) {
-                        return;
-                    }
+        Set<String> keys = ServiceUtils.fetchProperty(options, Option::getKey);
 
-                    result.put(key,
-                        PropertyEnum.convertTo(propertyEnum.defaultValue(), propertyEnum));
-                });
+        Map<String, Object> userDefinedOptionMap =
+            ServiceUtils.convertToMap(options, Option::getKey, option -> {
+                String key = option.getKey();
 
-            // Cache the result
-            cacheStore.putAny(OPTIONS_KEY, result);
+                PropertyEnum propertyEnum = propertyEnumMap.get(key);
 
-            return result;
-        });
+                if (propertyEnum == null) {
+                    return option.getValue();
+                }
+
+                return PropertyEnum.convertTo(option.getValue(), propertyEnum);
+            });
+
+        Map<String, Object> result = new HashMap<>(userDefinedOptionMap);
+
+        // Add default property
+        propertyEnumMap.keySet()
+            .stream()
+            .filter(key -> !keys.contains(key))
+            .forEach(key -> {
+                PropertyEnum propertyEnum = propertyEnumMap.get(key);
+
+                if (StringUtils.isBlank(propertyEnum.defaultValue())) {
+                    return;
+                }
+
+                result.put(key,
+                    PropertyEnum.convertTo(propertyEnum.defaultValue(), propertyEnum));
+            });
+
+        return result;
     }
 
     @Override
@@ -0,0 +1,241 @@
+package run.halo.app.service.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.Assert;
+import org.springframework.web.util.HtmlUtils;
+import run.halo.app.config.properties.HaloProperties;
+import run.halo.app.event.post.PostUpdatedEvent;
+import run.halo.app.event.post.PostsRenderedEvent;
+import run.halo.app.model.entity.Post;
+import run.halo.app.model.enums.PostStatus;
+import run.halo.app.model.properties.PostProperties;
+import run.halo.app.repository.PostRepository;
+import run.halo.app.service.OptionService;
+import run.halo.app.service.PostSearchService;
+import run.halo.app.service.support.PostSearchIndex;
+import run.halo.app.utils.HaloUtils;
+
+/**
+ * Post search service implementation keeping a {@link PostSearchIndex} under the work directory.
+ *
+ * <p>The index is loaded on startup, or built from all posts if it is absent or out of date.
+ * Posts are indexed again after every {@link PostUpdatedEvent}, and changes are saved to the
+ * index file periodically and on shutdown.
+ *
+ * <p>Loading and rebuilding run on the application task executor. The service is not proxied,
+ * as its event listeners are not declared by {@link PostSearchService}.
+ *
+ * @author guqing
+ */
+@Slf4j
+@Service
+public class PostSearchServiceImpl implements PostSearchService {
+
+    private static final String INDEX_FILE = "search/posts.idx";
+
+    private static final int REBUILD_PAGE_SIZE = 200;
+
+    private final PostRepository postRepository;
+
+    private final OptionService optionService;
+
+    private final TaskExecutor taskExecutor;
+
+    private final Path indexPath;
+
+    /**
+     * Current index, null until it is loaded or built.
+     */
+    private volatile PostSearchIndex index;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private volatile boolean rebuilding;
+
+    /**
+     * Whether a rebuild is submitted and not started yet, so requests are coalesced.
+     */
+    private final AtomicBoolean rebuildSubmitted = new AtomicBoolean();
+
+    /**
+     * Posts updated while rebuilding, they are indexed again into the rebuilt index.
+     */
+    private final Set<Integer> pendingPostIds = ConcurrentHashMap.newKeySet();
+
+    public PostSearchServiceImpl(PostRepository postRepository, OptionService optionService,
+        @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+            TaskExecutor taskExecutor,
+        HaloProperties haloProperties) {
+        this.postRepository = postRepository;
+        this.optionService = optionService;
+        this.taskExecutor = taskExecutor;
+        this.indexPath = Paths.get(haloProperties.getWorkDir(), INDEX_FILE);
+    }
+
+    @Override
+    public boolean isReady() {
+        return index != null;
+    }
+
+    @Override
+    public List<Integer> search(String keyword, PostStatus status, int limit) {
+        PostSearchIndex currentIndex = index;
+        if (currentIndex == null) {
+            return List.of();
+        }
+        if (status == null) {
+            return currentIndex.search(keyword, limit);
+        }
+        // Filter in the index, so the limit only counts posts of the status
+        Set<Integer> statusIds = new HashSet<>(postRepository.findAllIdsByStatus(status));
+        return currentIndex.search(keyword, limit, statusIds::contains);
+    }
+
+    @Override
+    public String highlight(Post post, String keyword) {
+        Assert.notNull(post, "Post must not be null");
+
+        int summaryLength = optionService.getByPropertyOrDefault(PostProperties.SUMMARY_LENGTH,
+            Integer.class, PostProperties.SUMMARY_LENGTH.defaultValue(Integer.class));
+        return PostSearchIndex.highlight(getPlainText(post), keyword, summaryLength);
+    }
+
+    @Override
+    public void rebuild() {
+        if (rebuildSubmitted.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                rebuildSubmitted.set(false);
+                doRebuild();
+            });
+        }
+    }
+
+    private synchronized void doRebuild() {
+        log.info("Rebuilding the post search index");
+        long startMillis = System.currentTimeMillis();
+        rebuilding = true;
+        pendingPostIds.clear();
+        try {
+            PostSearchIndex rebuiltIndex = new PostSearchIndex();
+            int page = 0;
+            Page<Post> postPage;
+            do {
+                postPage = postRepository.findAll(
+                    PageRequest.of(page++, REBUILD_PAGE_SIZE, Sort.by("id")));
+                postPage.forEach(post -> rebuiltIndex.put(post.getId(), post.getTitle(),
+                    getPlainText(post)));
+            } while (postPage.hasNext());
+
+            index = rebuiltIndex;
+            pendingPostIds.forEach(postId -> indexPost(rebuiltIndex, postId));
+        } finally {
+            rebuilding = false;
+            pendingPostIds.clear();
+        }
+        dirty.set(true);
+        save();
+        log.info("Rebuilt the post search index of [{}] posts in [{}] ms", index.size(),
+            System.currentTimeMillis() - startMillis);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStarted() {
+        taskExecutor.execute(this::load);
+    }
+
+    private void load() {
+        if (Files.exists(indexPath)) {
+            try {
+                index = PostSearchIndex.read(indexPath);
+                log.info("Loaded the post search index of [{}] posts", index.size());
+            } catch (IOException e) {
+                log.warn("Failed to load the post search index [{}], it will be rebuilt",
+                    indexPath, e);
+            }
+        }
+        checkIndex();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostUpdated(PostUpdatedEvent event) {
+        Integer postId = event.getPostId();
+        if (rebuilding) {
+            pendingPostIds.add(postId);
+        }
+        PostSearchIndex currentIndex = index;
+        if (currentIndex != null) {
+            indexPost(currentIndex, postId);
+        }
+    }
+
+    @EventListener
+    public void onPostsRendered(PostsRenderedEvent event) {
+        // The plain text of posts has been rendered again
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the index if it is missing or does not cover all posts, such as after an import.
+     */
+    @Scheduled(initialDelay = 60 * 60 * 1000, fixedDelay = 60 * 60 * 1000)
+    public void checkIndex() {
+        PostSearchIndex currentIndex = index;
+        if (rebuilding) {
+            return;
+        }
+        if (currentIndex == null || currentIndex.size() != postRepository.count()) {
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(initialDelay = 60 * 1000, fixedDelay = 60 * 1000)
+    public void save() {
+        PostSearchIndex currentIndex = index;
+        if (currentIndex == null || !dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            currentIndex.write(indexPath);
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("Failed to save the post search index [{}]", indexPath, e);
+        }
+    }
+
+    private void indexPost(PostSearchIndex targetIndex, Integer postId) {
+        postRepository.findById(postId).ifPresentOrElse(
+            post -> targetIndex.put(postId, post.getTitle(), getPlainText(post)),
+            () -> targetIndex.remove(postId));
+        dirty.set(true);
+    }
+
+    @NonNull
+    private static String getPlainText(Post post) {
+        String plainText = post.getPlainText() != null ? post.getPlainText()
+            : HaloUtils.cleanHtmlTag(post.getFormatContent());
+        return HtmlUtils.htmlUnescape(plainText);
+    }
+}
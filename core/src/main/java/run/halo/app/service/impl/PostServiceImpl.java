@@ -24,9 +24,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
@@ -34,6 +36,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import run.halo.app.event.logger.LogEvent;
+import run.halo.app.event.post.PostUpdatedEvent;
 import run.halo.app.event.post.PostVisitEvent;
 import run.halo.app.exception.NotFoundException;
 import run.halo.app.model.dto.post.BasePostMinimalDTO;
@@ -45,7 +48,6 @@ import run.halo.app.model.entity.PostComment;
 import run.halo.app.model.entity.PostMeta;
 import run.halo.app.model.entity.PostTag;
 import run.halo.app.model.entity.Tag;
-import run.halo.app.model.enums.CommentStatus;
 import run.halo.app.model.enums.LogType;
 import run.halo.app.model.enums.PostPermalinkType;
 import run.halo.app.model.enums.PostStatus;
@@ -65,9 +67,11 @@ import run.halo.app.service.OptionService;
 import run.halo.app.service.PostCategoryService;
 import run.halo.app.service.PostCommentService;
 import run.halo.app.service.PostMetaService;
+import run.halo.app.service.PostSearchService;
 import run.halo.app.service.PostService;
 import run.halo.app.service.PostTagService;
 import run.halo.app.service.TagService;
+import run.halo.app.service.support.PostListVoLoader;
 import run.halo.app.utils.DateUtils;
 import run.halo.app.utils.HaloUtils;
 import run.halo.app.utils.MarkdownUtils;
@@ -89,6 +93,11 @@ import run.halo.app.utils.SlugUtils;
 @Service
 public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostService {
 
+    /**
+     * Max count of posts matched by a keyword.
+     */
+    private static final int MAX_SEARCH_RESULTS = 1000;
+
     private final PostRepository postRepository;
 
     private final TagService tagService;
@@ -109,6 +118,10 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
 
     private final AuthorizationService authorizationService;
 
+    private final PostSearchService postSearchService;
+
+    private final PostListVoLoader postListVoLoader;
+
     public PostServiceImpl(BasePostRepository<Post> basePostRepository,
         OptionService optionService,
         PostRepository postRepository,
@@ -119,8 +132,11 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
         PostCommentService postCommentService,
         ApplicationEventPublisher eventPublisher,
         PostMetaService postMetaService,
-        AuthorizationService authorizationService) {
-        super(basePostRepository, optionService);
+        AuthorizationService authorizationService,
+        PostSearchService postSearchService,
+        PostListVoLoader postListVoLoader,
+        JdbcTemplate jdbcTemplate) {
+        super(basePostRepository, optionService, jdbcTemplate);
         this.postRepository = postRepository;
         this.tagService = tagService;
         this.categoryService = categoryService;
@@ -131,6 +147,8 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
         this.postMetaService = postMetaService;
         this.optionService = optionService;
         this.authorizationService = authorizationService;
+        this.postSearchService = postSearchService;
+        this.postListVoLoader = postListVoLoader;
     }
 
     @Override
@@ -147,6 +165,26 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
         Assert.notNull(keyword, "keyword must not be null");
         Assert.notNull(pageable, "Page info must not be null");
 
+        if (pageable.getSort().isUnsorted() && postSearchService.isReady()) {
+            // Rank by relevance
+            List<Integer> rankedIds =
+                postSearchService.search(keyword, PostStatus.PUBLISHED, MAX_SEARCH_RESULTS);
+            if (rankedIds.isEmpty()) {
+                return Page.empty(pageable);
+            }
+
+            int fromIndex = (int) Math.min(pageable.getOffset(), rankedIds.size());
+            int toIndex = Math.min(fromIndex + pageable.getPageSize(), rankedIds.size());
+            List<Integer> pageIds = rankedIds.subList(fromIndex, toIndex);
+            Map<Integer, Post> postMap =
+                ServiceUtils.convertToMap(postRepository.findAllById(pageIds), Post::getId);
+            List<Post> posts = pageIds.stream()
+                .map(postMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+            return new PageImpl<>(posts, pageable, rankedIds.size());
+        }
+
         PostQuery postQuery = new PostQuery();
         postQuery.setKeyword(keyword);
         postQuery.setStatus(PostStatus.PUBLISHED);
@@ -575,6 +613,8 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
 
         Post deletedPost = super.removeById(postId);
 
+        eventPublisher.publishEvent(new PostUpdatedEvent(this, postId));
+
         // Log it
         eventPublisher.publishEvent(new LogEvent(this, postId.toString(), LogType.POST_DELETED,
             deletedPost.getTitle()));
@@ -591,61 +631,9 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
     public Page<PostListVO> convertToListVo(Page<Post> postPage, boolean queryEncryptCategory) {
         Assert.notNull(postPage, "Post page must not be null");
 
-        List<Post> posts = postPage.getContent();
-
-        Set<Integer> postIds = ServiceUtils.fetchProperty(posts, Post::getId);
-
-        // Get tag list map
-        Map<Integer, List<Tag>> tagListMap = postTagService.listTagListMapBy(postIds);
-
-        // Get category list map
-        Map<Integer, List<Category>> categoryListMap = postCategoryService
-            .listCategoryListMap(postIds, queryEncryptCategory);
-
-        // Get comment count
-        Map<Integer, Long> commentCountMap = postCommentService.countByStatusAndPostIds(
-            CommentStatus.PUBLISHED, postIds);
-
-        // Get post meta list map
-        Map<Integer, List<PostMeta>> postMetaListMap = postMetaService.listPostMetaAsMap(postIds);
-
-        return postPage.map(post -> {
-            PostListVO postListVO = new PostListVO().convertFrom(post);
-
-            if (StringUtils.isBlank(postListVO.getSummary())) {
-                postListVO.setSummary(generateSummary(post.getFormatContent()));
-            }
-
-            Optional.ofNullable(tagListMap.get(post.getId())).orElseGet(LinkedList::new);
-
-            // Set tags
-            postListVO.setTags(Optional.ofNullable(tagListMap.get(post.getId()))
-                .orElseGet(LinkedList::new)
-                .stream()
-                .filter(Objects::nonNull)
-                .map(tagService::convertTo)
-                .collect(Collectors.toList()));
-
-            // Set categories
-            postListVO.setCategories(Optional.ofNullable(categoryListMap.get(post.getId()))
-                .orElseGet(LinkedList::new)
-                .stream()
-                .filter(Objects::nonNull)
-                .map(categoryService::convertTo)
-                .collect(Collectors.toList()));
-
-            // Set post metas
-            List<PostMeta> metas = Optional.ofNullable(postMetaListMap.get(post.getId()))
-                .orElseGet(LinkedList::new);
-            postListVO.setMetas(postMetaService.convertToMap(metas));
-
-            // Set comment count
-            postListVO.setCommentCount(commentCountMap.getOrDefault(post.getId(), 0L));
-
-            postListVO.setFullPath(buildFullPath(post));
-
-            return postListVO;
-        });
+        List<PostListVO> postListVos =
+            convertToListVo(postPage.getContent(), queryEncryptCategory);
+        return new PageImpl<>(postListVos, postPage.getPageable(), postPage.getTotalElements());
     }
 
     @Override
@@ -657,59 +645,17 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
     public List<PostListVO> convertToListVo(List<Post> posts, boolean queryEncryptCategory) {
         Assert.notNull(posts, "Post page must not be null");
 
-        Set<Integer> postIds = ServiceUtils.fetchProperty(posts, Post::getId);
-
-        // Get tag list map
-        Map<Integer, List<Tag>> tagListMap = postTagService.listTagListMapBy(postIds);
-
-        // Get category list map
-        Map<Integer, List<Category>> categoryListMap = postCategoryService
-            .listCategoryListMap(postIds, queryEncryptCategory);
-
-        // Get comment count
-        Map<Integer, Long> commentCountMap =
-            postCommentService.countByStatusAndPostIds(CommentStatus.PUBLISHED, postIds);
-
-        // Get post meta list map
-        Map<Integer, List<PostMeta>> postMetaListMap = postMetaService.listPostMetaAsMap(postIds);
-
-        return posts.stream().map(post -> {
+        return postListVoLoader.load(posts, queryEncryptCategory, post -> {
             PostListVO postListVO = new PostListVO().convertFrom(post);
 
             if (StringUtils.isBlank(postListVO.getSummary())) {
-                postListVO.setSummary(generateSummary(post.getFormatContent()));
+                postListVO.setSummary(resolveSummary(post));
             }
 
-            Optional.ofNullable(tagListMap.get(post.getId())).orElseGet(LinkedList::new);
-
-            // Set tags
-            postListVO.setTags(Optional.ofNullable(tagListMap.get(post.getId()))
-                .orElseGet(LinkedList::new)
-                .stream()
-                .filter(Objects::nonNull)
-                .map(tagService::convertTo)
-                .collect(Collectors.toList()));
-
-            // Set categories
-            postListVO.setCategories(Optional.ofNullable(categoryListMap.get(post.getId()))
-                .orElseGet(LinkedList::new)
-                .stream()
-                .filter(Objects::nonNull)
-                .map(categoryService::convertTo)
-                .collect(Collectors.toList()));
-
-            // Set post metas
-            List<PostMeta> metas = Optional.ofNullable(postMetaListMap.get(post.getId()))
-                .orElseGet(LinkedList::new);
-            postListVO.setMetas(postMetaService.convertToMap(metas));
-
-            // Set comment count
-            postListVO.setCommentCount(commentCountMap.getOrDefault(post.getId(), 0L));
-
             postListVO.setFullPath(buildFullPath(post));
 
             return postListVO;
-        }).collect(Collectors.toList());
+        });
     }
 
     @Override
@@ -741,7 +687,7 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
 
         // Set summary
         if (StringUtils.isBlank(basePostSimpleDTO.getSummary())) {
-            basePostSimpleDTO.setSummary(generateSummary(post.getFormatContent()));
+            basePostSimpleDTO.setSummary(resolveSummary(post));
         }
 
         basePostSimpleDTO.setFullPath(buildFullPath(post));
@@ -767,7 +713,7 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
         PostDetailVO postDetailVO = new PostDetailVO().convertFrom(post);
 
         if (StringUtils.isBlank(postDetailVO.getSummary())) {
-            postDetailVO.setSummary(generateSummary(post.getFormatContent()));
+            postDetailVO.setSummary(resolveSummary(post));
         }
 
         // Extract ids
@@ -822,7 +768,12 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
                 predicates.add(criteriaBuilder.exists(postSubquery));
             }
 
-            if (postQuery.getKeyword() != null) {
+            if (postQuery.getKeyword() != null && postSearchService.isReady()) {
+                List<Integer> matchedIds = postSearchService.search(postQuery.getKeyword(),
+                    postQuery.getStatus(), MAX_SEARCH_RESULTS);
+                predicates.add(matchedIds.isEmpty() ? criteriaBuilder.disjunction()
+                    : root.get("id").in(matchedIds));
+            } else if (postQuery.getKeyword() != null) {
                 // Format like condition
                 String likeCondition = String
                     .format("%%%s%%", StringUtils.strip(postQuery.getKeyword()));
@@ -895,6 +846,8 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
         // Remove authorization every time an post is created or updated.
         authorizationService.deletePostAuthorization(post.getId());
 
+        eventPublisher.publishEvent(new PostUpdatedEvent(this, post.getId()));
+
         // Convert to post detail vo
         return convertTo(post, tags, categories, postMetaList);
     }
@@ -908,6 +861,7 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
             // the post status should be converted to a intimate post
             categoryService.refreshPostStatus(Collections.singletonList(postId));
         }
+        eventPublisher.publishEvent(new PostUpdatedEvent(this, postId));
         return getById(postId);
     }
 
@@ -9,7 +9,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationEventPublisher;
@@ -127,26 +126,16 @@ public class ThemeServiceImpl implements ThemeService {
     @Override
     @NonNull
     public List<String> listCustomTemplates(@NonNull String themeId, @NonNull String prefix) {
-        return fetchThemePropertyBy(themeId).map(themeProperty -> {
-            // Get the theme path
-            Path themePath = Paths.get(themeProperty.getThemePath());
-            try (Stream<Path> pathStream = Files.list(themePath)) {
-                return pathStream.filter(path ->
-                        StringUtils.startsWithIgnoreCase(path.getFileName().toString(), prefix))
-                    .map(path -> {
-                        // Remove prefix
-                        final var customTemplate = StringUtils
-                            .removeStartIgnoreCase(path.getFileName().toString(), prefix);
-                        // Remove suffix
-                        return StringUtils
-                            .removeEndIgnoreCase(customTemplate, HaloConst.SUFFIX_FTL);
-                    })
-                    .distinct()
-                    .collect(Collectors.toList());
-            } catch (Exception e) {
-                throw new ServiceException("Failed to list files of path " + themePath, e);
-            }
-        }).orElse(Collections.emptyList());
+        return themeRepository.listThemeRootFileNames(themeId).stream()
+            .filter(fileName -> StringUtils.startsWithIgnoreCase(fileName, prefix))
+            .map(fileName -> {
+                // Remove prefix
+                final var customTemplate = StringUtils.removeStartIgnoreCase(fileName, prefix);
+                // Remove suffix
+                return StringUtils.removeEndIgnoreCase(customTemplate, HaloConst.SUFFIX_FTL);
+            })
+            .distinct()
+            .collect(Collectors.toList());
     }
 
     @Override
@@ -160,8 +149,8 @@ public class ThemeServiceImpl implements ThemeService {
             Path templatePath = Paths.get(themeProperty.getThemePath(), template);
             // Check the directory
             checkDirectory(templatePath.toString());
-            // Check existence
-            return Files.exists(templatePath);
+            // Check existence in the theme registry
+            return themeRepository.themeFileExists(themeProperty.getId(), template);
         }).orElse(false);
     }
 
@@ -2,20 +2,28 @@ package run.halo.app.service.impl;
 
 import freemarker.template.Configuration;
 import freemarker.template.TemplateModelException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.Example;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import run.halo.app.event.theme.ThemeActivatedEvent;
+import run.halo.app.event.theme.ThemeUpdatedEvent;
 import run.halo.app.exception.ServiceException;
 import run.halo.app.handler.theme.config.support.Group;
 import run.halo.app.handler.theme.config.support.Item;
@@ -43,6 +51,11 @@ public class ThemeSettingServiceImpl extends AbstractCrudService<ThemeSetting, I
 
     private final Configuration configuration;
 
+    /**
+     * Settings snapshots keyed by theme id.
+     */
+    private final Map<String, SettingsSnapshot> snapshots = new ConcurrentHashMap<>();
+
     public ThemeSettingServiceImpl(ThemeSettingRepository themeSettingRepository,
         ThemeService themeService,
         Configuration configuration) {
@@ -54,6 +67,33 @@ public class ThemeSettingServiceImpl extends AbstractCrudService<ThemeSetting, I
 
     @Override
     public ThemeSetting save(String key, String value, String themeId) {
+        ThemeSetting themeSetting = saveSetting(key, value, themeId);
+        rebuildSnapshot(themeId);
+        return themeSetting;
+    }
+
+    @Override
+    public void save(Map<String, Object> settings, String themeId) {
+        assertThemeIdHasText(themeId);
+
+        if (CollectionUtils.isEmpty(settings)) {
+            return;
+        }
+
+        // Save the settings
+        settings.forEach((key, value) -> saveSetting(key, value.toString(), themeId));
+        rebuildSnapshot(themeId);
+
+        try {
+            configuration
+                .setSharedVariable("settings", listAsMapBy(themeService.getActivatedThemeId()));
+        } catch (TemplateModelException e) {
+            throw new ServiceException("主题设置保存失败", e);
+        }
+    }
+
+    @Nullable
+    private ThemeSetting saveSetting(String key, String value, String themeId) {
         Assert.notNull(key, "Setting key must not be null");
         assertThemeIdHasText(themeId);
 
@@ -73,11 +113,8 @@ public class ThemeSettingServiceImpl extends AbstractCrudService<ThemeSetting, I
                 }).orElse(null);
         }
 
-        // Get config item map
-        Map<String, Item> itemMap = getConfigItemMap(themeId);
-
         // Get item info
-        Item item = itemMap.get(key);
+        Item item = getSnapshot(themeId).itemMap.get(key);
 
         // Update or create
         ThemeSetting themeSetting = themeSettingOptional
@@ -103,33 +140,51 @@ public class ThemeSettingServiceImpl extends AbstractCrudService<ThemeSetting, I
     }
 
     @Override
-    public void save(Map<String, Object> settings, String themeId) {
+    public List<ThemeSetting> listBy(String themeId) {
         assertThemeIdHasText(themeId);
 
-        if (CollectionUtils.isEmpty(settings)) {
-            return;
-        }
-
-        // Save the settings
-        settings.forEach((key, value) -> save(key, value.toString(), themeId));
+        return themeSettingRepository.findAllByThemeId(themeId);
+    }
 
-        try {
-            configuration
-                .setSharedVariable("settings", listAsMapBy(themeService.getActivatedThemeId()));
-        } catch (TemplateModelException e) {
-            throw new ServiceException("主题设置保存失败", e);
-        }
+    @Override
+    public Map<String, Object> listAsMapBy(String themeId) {
+        return getSnapshot(themeId).settings;
     }
 
     @Override
-    public List<ThemeSetting> listBy(String themeId) {
+    @Transactional
+    public void deleteInactivated() {
+        themeSettingRepository.deleteByThemeIdIsNot(themeService.getActivatedThemeId());
+        snapshots.clear();
+    }
+
+    /**
+     * Drops the snapshots before other listeners of the events read the settings again.
+     */
+    @EventListener({ThemeUpdatedEvent.class, ThemeActivatedEvent.class})
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onThemeChanged() {
+        snapshots.clear();
+    }
+
+    @NonNull
+    private SettingsSnapshot getSnapshot(@NonNull String themeId) {
         assertThemeIdHasText(themeId);
 
-        return themeSettingRepository.findAllByThemeId(themeId);
+        return snapshots.computeIfAbsent(themeId, this::buildSnapshot);
     }
 
-    @Override
-    public Map<String, Object> listAsMapBy(String themeId) {
+    /**
+     * Replaces the snapshot of the theme, reads of it wait until the new one is built.
+     *
+     * @param themeId theme id must not be blank
+     */
+    private void rebuildSnapshot(@NonNull String themeId) {
+        snapshots.compute(themeId, (id, snapshot) -> buildSnapshot(id));
+    }
+
+    @NonNull
+    private SettingsSnapshot buildSnapshot(@NonNull String themeId) {
         // Convert to item map(key: item name, value: item)
         Map<String, Item> itemMap = getConfigItemMap(themeId);
 
@@ -171,13 +226,8 @@ public class ThemeSettingServiceImpl extends AbstractCrudService<ThemeSetting, I
             result.put(name, convertedDefaultValue);
         });
 
-        return result;
-    }
-
-    @Override
-    @Transactional
-    public void deleteInactivated() {
-        themeSettingRepository.deleteByThemeIdIsNot(themeService.getActivatedThemeId());
+        return new SettingsSnapshot(Collections.unmodifiableMap(itemMap),
+            Collections.unmodifiableMap(result));
     }
 
     /**
@@ -207,4 +257,18 @@ public class ThemeSettingServiceImpl extends AbstractCrudService<ThemeSetting, I
         Assert.hasText(themeId, "Theme id must not be null");
     }
 
+    /**
+     * Config items of a theme and its settings converted to the item types, with the default
+     * values of the items not set.
+     */
+    private static class SettingsSnapshot {
+        final Map<String, Item> itemMap;
+        final Map<String, Object> settings;
+
+        SettingsSnapshot(Map<String, Item> itemMap, Map<String, Object> settings) {
+            this.itemMap = itemMap;
+            this.settings = settings;
+        }
+    }
+
 }
@@ -0,0 +1,129 @@
+package run.halo.app.service.support;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import run.halo.app.model.entity.Category;
+
+/**
+ * Immutable index of which encrypted category guards each category.
+ *
+ * <p>The guard of a category is the nearest encrypted category among itself and its ancestors,
+ * a visitor may access the category once they are authorized for its guard. Categories without
+ * a guard are public.
+ *
+ * @author guqing
+ */
+public class CategoryAccessGraph {
+
+    private final long generation;
+
+    private final Set<Integer> categoryIds;
+
+    /**
+     * Guard id keyed by category id, public categories are absent.
+     */
+    private final Map<Integer, Integer> guardIds;
+
+    /**
+     * Password keyed by guard id.
+     */
+    private final Map<Integer, String> passwords;
+
+    private CategoryAccessGraph(long generation, Set<Integer> categoryIds,
+        Map<Integer, Integer> guardIds, Map<Integer, String> passwords) {
+        this.generation = generation;
+        this.categoryIds = categoryIds;
+        this.guardIds = guardIds;
+        this.passwords = passwords;
+    }
+
+    /**
+     * Builds the graph of all categories.
+     *
+     * @param categories all categories must not be null
+     * @param generation generation of the categories the graph is built from
+     * @return category access graph
+     */
+    @NonNull
+    public static CategoryAccessGraph build(@NonNull Collection<Category> categories,
+        long generation) {
+        Assert.notNull(categories, "Categories must not be null");
+
+        Map<Integer, Category> idToCategoryMap = categories.stream()
+            .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        Map<Integer, Integer> guardIds = new HashMap<>();
+        Map<Integer, String> passwords = new HashMap<>();
+        Set<Integer> resolved = new HashSet<>();
+        for (Category category : categories) {
+            // Walk up until an encrypted or already resolved category
+            Deque<Integer> path = new ArrayDeque<>();
+            Integer guardId = null;
+            Category current = category;
+            while (current != null && !resolved.contains(current.getId())
+                && !path.contains(current.getId())) {
+                path.push(current.getId());
+                if (StringUtils.isNotBlank(current.getPassword())) {
+                    guardId = current.getId();
+                    passwords.put(guardId, current.getPassword());
+                    break;
+                }
+                current = idToCategoryMap.get(current.getParentId());
+            }
+            if (guardId == null && current != null) {
+                guardId = guardIds.get(current.getId());
+            }
+            for (Integer id : path) {
+                if (guardId != null) {
+                    guardIds.put(id, guardId);
+                }
+                resolved.add(id);
+            }
+        }
+
+        return new CategoryAccessGraph(generation, Set.copyOf(idToCategoryMap.keySet()),
+            Map.copyOf(guardIds), Map.copyOf(passwords));
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public boolean contains(@NonNull Integer categoryId) {
+        return categoryIds.contains(categoryId);
+    }
+
+    /**
+     * Gets the guard of the category.
+     *
+     * @param categoryId category id
+     * @return id of the nearest encrypted category among itself and its ancestors, or null if
+     *     the category is public
+     */
+    @Nullable
+    public Integer getGuardId(@NonNull Integer categoryId) {
+        return guardIds.get(categoryId);
+    }
+
+    /**
+     * Gets the password of the guard.
+     *
+     * @param guardId guard id
+     * @return password of the guard
+     */
+    @Nullable
+    public String getPassword(@NonNull Integer guardId) {
+        return passwords.get(guardId);
+    }
+}
@@ -0,0 +1,135 @@
+package run.halo.app.service.support;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import run.halo.app.model.properties.PropertyEnum;
+
+/**
+ * Immutable snapshot of all options.
+ *
+ * <p>Besides the option map, the value of every {@link PropertyEnum} is kept in an array slot
+ * given by the ordinal of the property in its enum, offset by the enum class, so a property is
+ * looked up without hashing its key. Values of enum typed properties are converted to the enum
+ * constants as well, other values are of the types {@link PropertyEnum#convertTo(String,
+ * PropertyEnum)} converts to.
+ *
+ * @author guqing
+ */
+public final class OptionSnapshot {
+
+    /**
+     * First slot of every property enum class.
+     */
+    private static final Map<Class<?>, Integer> SLOT_OFFSETS;
+
+    private static final int SLOT_COUNT;
+
+    static {
+        Map<Class<?>, Integer> slotOffsets = new IdentityHashMap<>();
+        int slotCount = 0;
+        Class<?>[] propertyClasses = PropertyEnum.getValuePropertyEnumMap().values().stream()
+            .filter(property -> property instanceof Enum)
+            .map(OptionSnapshot::enumClassOf)
+            .distinct()
+            .sorted(Comparator.comparing(Class::getName))
+            .toArray(Class<?>[]::new);
+        for (Class<?> propertyClass : propertyClasses) {
+            slotOffsets.put(propertyClass, slotCount);
+            slotCount += propertyClass.getEnumConstants().length;
+        }
+        SLOT_OFFSETS = Collections.unmodifiableMap(slotOffsets);
+        SLOT_COUNT = slotCount;
+    }
+
+    private final Map<String, Object> options;
+
+    private final Object[] values = new Object[SLOT_COUNT];
+
+    private final Object[] typedValues = new Object[SLOT_COUNT];
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param options options with the values converted to the property types and the default
+     * values of the missing properties, must not be null
+     */
+    public OptionSnapshot(@NonNull Map<String, Object> options) {
+        Assert.notNull(options, "Options must not be null");
+
+        this.options = Collections.unmodifiableMap(new HashMap<>(options));
+        PropertyEnum.getValuePropertyEnumMap().values().forEach(property -> {
+            int slot = slotOf(property);
+            if (slot < 0) {
+                return;
+            }
+            Object value = options.get(property.getValue());
+            values[slot] = value;
+            typedValues[slot] = toTypedValue(value, property);
+        });
+    }
+
+    @NonNull
+    public Map<String, Object> getOptions() {
+        return options;
+    }
+
+    /**
+     * Gets the value of the property as in the option map.
+     *
+     * @param property property must not be null
+     * @return option value or null
+     */
+    @Nullable
+    public Object get(@NonNull PropertyEnum property) {
+        Assert.notNull(property, "Property must not be null");
+
+        int slot = slotOf(property);
+        return slot < 0 ? options.get(property.getValue()) : values[slot];
+    }
+
+    /**
+     * Gets the value of the property converted to the property type.
+     *
+     * @param property property must not be null
+     * @return option value or null
+     */
+    @Nullable
+    public Object getTyped(@NonNull PropertyEnum property) {
+        Assert.notNull(property, "Property must not be null");
+
+        int slot = slotOf(property);
+        return slot < 0 ? toTypedValue(options.get(property.getValue()), property)
+            : typedValues[slot];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object toTypedValue(Object value, PropertyEnum property) {
+        if (value instanceof String && StringUtils.isNotBlank((String) value)
+            && property.getType().isEnum()) {
+            Enum enumValue = PropertyEnum.convertToEnum((String) value,
+                (Class<Enum>) property.getType());
+            return enumValue != null ? enumValue : value;
+        }
+        return value;
+    }
+
+    private static int slotOf(PropertyEnum property) {
+        if (!(property instanceof Enum)) {
+            return -1;
+        }
+        Integer offset = SLOT_OFFSETS.get(enumClassOf(property));
+        return offset == null ? -1 : offset + ((Enum<?>) property).ordinal();
+    }
+
+    private static Class<?> enumClassOf(PropertyEnum property) {
+        return property instanceof Enum ? ((Enum<?>) property).getDeclaringClass()
+            : property.getClass();
+    }
+}
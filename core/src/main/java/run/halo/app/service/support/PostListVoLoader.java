@@ -0,0 +1,207 @@
+package run.halo.app.service.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import run.halo.app.cache.ContentPageCache;
+import run.halo.app.event.options.OptionUpdatedEvent;
+import run.halo.app.model.dto.CategoryDTO;
+import run.halo.app.model.dto.TagDTO;
+import run.halo.app.model.entity.Category;
+import run.halo.app.model.entity.Post;
+import run.halo.app.model.entity.PostMeta;
+import run.halo.app.model.entity.Tag;
+import run.halo.app.model.enums.CommentStatus;
+import run.halo.app.model.projection.PostCategoryProjection;
+import run.halo.app.model.projection.PostTagProjection;
+import run.halo.app.model.vo.PostListVO;
+import run.halo.app.repository.PostCategoryRepository;
+import run.halo.app.repository.PostTagRepository;
+import run.halo.app.service.CategoryService;
+import run.halo.app.service.PostCommentService;
+import run.halo.app.service.PostMetaService;
+import run.halo.app.service.TagService;
+import run.halo.app.utils.ServiceUtils;
+
+/**
+ * Loads the associations of a list of posts into {@link PostListVO}s.
+ *
+ * <p>Tags and categories are fetched together with the post ids they belong to in one query
+ * each, followed by one query of comment counts and one of metas, so a list of any size takes
+ * four queries. Converted {@link TagDTO}s and {@link CategoryDTO}s are cached by id and reused
+ * until the entity is updated or the options are changed, they are shared among the view
+ * objects and must not be modified.
+ *
+ * @author guqing
+ */
+@Component
+public class PostListVoLoader {
+
+    private final PostTagRepository postTagRepository;
+
+    private final PostCategoryRepository postCategoryRepository;
+
+    private final TagService tagService;
+
+    private final CategoryService categoryService;
+
+    private final PostCommentService postCommentService;
+
+    private final PostMetaService postMetaService;
+
+    private final Map<Integer, CachedDto<TagDTO>> tagDtoCache = new HashMap<>();
+
+    private final Map<Integer, CachedDto<CategoryDTO>> categoryDtoCache = new HashMap<>();
+
+    public PostListVoLoader(PostTagRepository postTagRepository,
+        PostCategoryRepository postCategoryRepository,
+        TagService tagService,
+        CategoryService categoryService,
+        PostCommentService postCommentService,
+        PostMetaService postMetaService) {
+        this.postTagRepository = postTagRepository;
+        this.postCategoryRepository = postCategoryRepository;
+        this.tagService = tagService;
+        this.categoryService = categoryService;
+        this.postCommentService = postCommentService;
+        this.postMetaService = postMetaService;
+    }
+
+    /**
+     * Converts the posts and loads their tags, categories, metas and comment counts.
+     *
+     * @param posts posts must not be null
+     * @param queryEncryptCategory whether to include encrypted categories
+     * @param converter converter of a post to the view object without associations
+     * @return view objects in the order of the posts
+     */
+    @NonNull
+    public List<PostListVO> load(@NonNull List<Post> posts, boolean queryEncryptCategory,
+        @NonNull Function<Post, PostListVO> converter) {
+        Assert.notNull(posts, "Posts must not be null");
+        Assert.notNull(converter, "Converter must not be null");
+
+        ContentPageCache.addTags(ContentPageCache.TAG_POSTS, ContentPageCache.TAG_CATEGORIES,
+            ContentPageCache.TAG_COMMENTS);
+
+        if (posts.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<Integer> postIds = ServiceUtils.fetchProperty(posts, Post::getId);
+
+        Map<Integer, List<TagDTO>> tagListMap = new HashMap<>();
+        for (PostTagProjection projection : postTagRepository.findAllTagsByPostIdIn(postIds)) {
+            tagListMap.computeIfAbsent(projection.getPostId(), postId -> new ArrayList<>())
+                .add(convertTo(projection.getTag()));
+        }
+
+        Map<Integer, List<CategoryDTO>> categoryListMap =
+            listCategoryListMap(postIds, queryEncryptCategory);
+
+        Map<Integer, Long> commentCountMap =
+            postCommentService.countByStatusAndPostIds(CommentStatus.PUBLISHED, postIds);
+
+        Map<Integer, List<PostMeta>> postMetaListMap = postMetaService.listPostMetaAsMap(postIds);
+
+        return posts.stream().map(post -> {
+            PostListVO postListVO = converter.apply(post);
+
+            postListVO.setTags(tagListMap.getOrDefault(post.getId(), Collections.emptyList()));
+
+            postListVO.setCategories(
+                categoryListMap.getOrDefault(post.getId(), Collections.emptyList()));
+
+            postListVO.setMetas(postMetaService.convertToMap(
+                postMetaListMap.getOrDefault(post.getId(), Collections.emptyList())));
+
+            postListVO.setCommentCount(commentCountMap.getOrDefault(post.getId(), 0L));
+
+            return postListVO;
+        }).collect(Collectors.toList());
+    }
+
+    @EventListener(OptionUpdatedEvent.class)
+    public synchronized void onOptionUpdated() {
+        // Full paths depend on the options
+        tagDtoCache.clear();
+        categoryDtoCache.clear();
+    }
+
+    private Map<Integer, List<CategoryDTO>> listCategoryListMap(Set<Integer> postIds,
+        boolean queryEncryptCategory) {
+        List<PostCategoryProjection> projections =
+            postCategoryRepository.findAllCategoriesByPostIdIn(postIds);
+
+        Set<Integer> visibleCategoryIds = null;
+        if (!queryEncryptCategory) {
+            Map<Integer, Category> categoryMap = new LinkedHashMap<>();
+            projections.forEach(projection -> categoryMap
+                .putIfAbsent(projection.getCategory().getId(), projection.getCategory()));
+            visibleCategoryIds = ServiceUtils.fetchProperty(
+                categoryService.filterEncryptCategory(new ArrayList<>(categoryMap.values())),
+                Category::getId);
+        }
+
+        Map<Integer, List<CategoryDTO>> categoryListMap = new HashMap<>();
+        for (PostCategoryProjection projection : projections) {
+            Category category = projection.getCategory();
+            if (visibleCategoryIds == null || visibleCategoryIds.contains(category.getId())) {
+                categoryListMap.computeIfAbsent(projection.getPostId(), postId -> new ArrayList<>())
+                    .add(convertTo(category));
+            }
+        }
+        return categoryListMap;
+    }
+
+    private synchronized TagDTO convertTo(Tag tag) {
+        CachedDto<TagDTO> cached = tagDtoCache.get(tag.getId());
+        if (cached == null || !cached.matches(tag.getUpdateTime(), null)) {
+            cached = new CachedDto<>(tag.getUpdateTime(), null, tagService.convertTo(tag));
+            tagDtoCache.put(tag.getId(), cached);
+        }
+        return cached.dto;
+    }
+
+    private synchronized CategoryDTO convertTo(Category category) {
+        CachedDto<CategoryDTO> cached = categoryDtoCache.get(category.getId());
+        if (cached == null || !cached.matches(category.getUpdateTime(), category.getPassword())) {
+            cached = new CachedDto<>(category.getUpdateTime(), category.getPassword(),
+                categoryService.convertTo(category));
+            categoryDtoCache.put(category.getId(), cached);
+        }
+        return cached.dto;
+    }
+
+    /**
+     * A converted dto with the state of the entity it was converted from.
+     */
+    private static class CachedDto<D> {
+        final Date updateTime;
+        final String password;
+        final D dto;
+
+        CachedDto(Date updateTime, String password, D dto) {
+            this.updateTime = updateTime;
+            this.password = password;
+            this.dto = dto;
+        }
+
+        boolean matches(Date updateTime, String password) {
+            return Objects.equals(this.updateTime, updateTime)
+                && Objects.equals(this.password, password);
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package run.halo.app.service.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * In-memory inverted index of posts for full-text search.
+ *
+ * <p>Text is split into lower cased words of letters and digits, while runs of CJK characters
+ * are split into overlapping bigrams and single characters, so words are found without a
+ * dictionary. Matches must contain every term of the keyword and are ranked by BM25, terms in
+ * the title weigh {@link #TITLE_BOOST} times as much as the ones in the content.
+ *
+ * <p>The index is saved to and loaded from a single file as the terms of every post, postings
+ * are rebuilt from them on load.
+ *
+ * @author guqing
+ */
+public class PostSearchIndex {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int TITLE_BOOST = 5;
+
+    private static final int MAX_WORD_LENGTH = 64;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    /**
+     * Weighted term frequencies of every post, keyed by post id.
+     */
+    private final Map<Integer, Map<String, Integer>> documents = new HashMap<>();
+
+    /**
+     * Weighted term frequencies keyed by term then post id.
+     */
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+
+    private final Map<Integer, Integer> lengths = new HashMap<>();
+
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes the post, replacing the previous version of it.
+     *
+     * @param postId post id must not be null
+     * @param title title of the post
+     * @param content plain text content of the post
+     */
+    public void put(@NonNull Integer postId, @Nullable String title, @Nullable String content) {
+        Assert.notNull(postId, "Post id must not be null");
+
+        Map<String, Integer> terms = new HashMap<>();
+        tokenize(title, true).forEach(term -> terms.merge(term, TITLE_BOOST, Integer::sum));
+        tokenize(content, true).forEach(term -> terms.merge(term, 1, Integer::sum));
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(postId);
+            putInternal(postId, terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the post from the index.
+     *
+     * @param postId post id must not be null
+     */
+    public void remove(@NonNull Integer postId) {
+        Assert.notNull(postId, "Post id must not be null");
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches posts containing all terms of the keyword.
+     *
+     * @param keyword keyword
+     * @param limit max count of results
+     * @return post ids from the most relevant one
+     */
+    @NonNull
+    public List<Integer> search(@Nullable String keyword, int limit) {
+        return search(keyword, limit, null);
+    }
+
+    /**
+     * Searches posts accepted by the filter containing all terms of the keyword.
+     *
+     * @param keyword keyword
+     * @param limit max count of results, counted after filtering
+     * @param filter filter of post ids, null to accept all posts
+     * @return post ids from the most relevant one
+     */
+    @NonNull
+    public List<Integer> search(@Nullable String keyword, int limit,
+        @Nullable Predicate<Integer> filter) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(keyword, false));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<Integer, Integer>> termPostings = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Integer, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    return List.of();
+                }
+                termPostings.add(posting);
+            }
+            // Walk the shortest posting list and look the others up
+            termPostings.sort(Comparator.comparingInt(Map::size));
+
+            int documentCount = documents.size();
+            double averageLength = (double) totalLength / documentCount;
+            Map<Integer, Double> scores = new HashMap<>();
+            candidates:
+            for (Integer postId : termPostings.get(0).keySet()) {
+                if (filter != null && !filter.test(postId)) {
+                    continue;
+                }
+                double lengthNorm = K1 * (1 - B + B * lengths.get(postId) / averageLength);
+                double score = 0;
+                for (Map<Integer, Integer> posting : termPostings) {
+                    Integer frequency = posting.get(postId);
+                    if (frequency == null) {
+                        continue candidates;
+                    }
+                    double idf = Math.log(1 + (documentCount - posting.size() + 0.5)
+                        / (posting.size() + 0.5));
+                    score += idf * frequency * (K1 + 1) / (frequency + lengthNorm);
+                }
+                scores.put(postId, score);
+            }
+
+            return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Saves the index to the file.
+     *
+     * @param path file path must not be null
+     * @throws IOException throws when failed to write the file
+     */
+    public void write(@NonNull Path path) throws IOException {
+        Assert.notNull(path, "Path must not be null");
+
+        Files.createDirectories(path.getParent());
+        Path tempPath = Files.createTempFile(path.getParent(), "index", ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(tempPath)) {
+                DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(outputStream));
+                lock.readLock().lock();
+                try {
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeInt(documents.size());
+                    for (Map.Entry<Integer, Map<String, Integer>> document :
+                        documents.entrySet()) {
+                        out.writeInt(document.getKey());
+                        out.writeInt(document.getValue().size());
+                        for (Map.Entry<String, Integer> term : document.getValue().entrySet()) {
+                            out.writeUTF(term.getKey());
+                            out.writeInt(term.getValue());
+                        }
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                out.flush();
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    /**
+     * Loads the index saved by {@link #write(Path)}.
+     *
+     * @param path file path must not be null
+     * @return index
+     * @throws IOException throws when the file is unreadable or of another format
+     */
+    @NonNull
+    public static PostSearchIndex read(@NonNull Path path) throws IOException {
+        Assert.notNull(path, "Path must not be null");
+
+        PostSearchIndex index = new PostSearchIndex();
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported search index version: " + version);
+            }
+            int documentCount = in.readInt();
+            for (int i = 0; i < documentCount; i++) {
+                int postId = in.readInt();
+                int termCount = in.readInt();
+                Map<String, Integer> terms = new HashMap<>(termCount * 4 / 3 + 1);
+                for (int j = 0; j < termCount; j++) {
+                    terms.put(in.readUTF(), in.readInt());
+                }
+                index.putInternal(postId, terms);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Highlights the terms of the keyword in a snippet of the text around the first match.
+     *
+     * @param text plain text
+     * @param keyword keyword
+     * @param length max length of the snippet
+     * @return html escaped snippet with the terms wrapped in {@code <mark>}
+     */
+    @NonNull
+    public static String highlight(@Nullable String text, @Nullable String keyword,
+        int length) {
+        if (StringUtils.isEmpty(text)) {
+            return StringUtils.EMPTY;
+        }
+        Set<String> terms = new LinkedHashSet<>(tokenize(keyword, false));
+
+        int first = -1;
+        for (String term : terms) {
+            int index = StringUtils.indexOfIgnoreCase(text, term);
+            if (index >= 0 && (first < 0 || index < first)) {
+                first = index;
+            }
+        }
+        int start = Math.max(0, Math.min(first - length / 5, text.length() - length));
+        String snippet = StringUtils.substring(text, start, start + length);
+
+        boolean[] marked = new boolean[snippet.length()];
+        for (String term : terms) {
+            for (int i = 0; i + term.length() <= snippet.length(); i++) {
+                if (snippet.regionMatches(true, i, term, 0, term.length())) {
+                    for (int j = i; j < i + term.length(); j++) {
+                        marked[j] = true;
+                    }
+                }
+            }
+        }
+
+        StringBuilder html = new StringBuilder(snippet.length() + 32);
+        if (start > 0) {
+            html.append("...");
+        }
+        int i = 0;
+        while (i < snippet.length()) {
+            int end = i;
+            while (end < snippet.length() && marked[end] == marked[i]) {
+                end++;
+            }
+            String escaped = HtmlUtils.htmlEscape(snippet.substring(i, end));
+            html.append(marked[i] ? "<mark>" + escaped + "</mark>" : escaped);
+            i = end;
+        }
+        if (start + snippet.length() < text.length()) {
+            html.append("...");
+        }
+        return html.toString();
+    }
+
+    /**
+     * Splits the text into terms.
+     *
+     * @param text text
+     * @param indexing true to emit every single CJK character as well, a keyword only emits the
+     * single CJK characters not adjacent to another one
+     * @return terms in order
+     */
+    @NonNull
+    static List<String> tokenize(@Nullable String text, boolean indexing) {
+        if (StringUtils.isBlank(text)) {
+            return List.of();
+        }
+
+        List<String> terms = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        int cjkStart = -1;
+        int i = 0;
+        while (i <= text.length()) {
+            int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+            boolean cjk = isCjk(codePoint);
+            if (!cjk && cjkStart >= 0) {
+                addCjkTerms(text.substring(cjkStart, i), indexing, terms);
+                cjkStart = -1;
+            }
+            if (!cjk && Character.isLetterOrDigit(codePoint)) {
+                word.appendCodePoint(codePoint);
+            } else if (word.length() > 0) {
+                if (word.length() <= MAX_WORD_LENGTH) {
+                    terms.add(word.toString().toLowerCase(Locale.ROOT));
+                }
+                word.setLength(0);
+            }
+            if (cjk && cjkStart < 0) {
+                cjkStart = i;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return terms;
+    }
+
+    private static void addCjkTerms(String run, boolean indexing, List<String> terms) {
+        int[] codePoints = run.codePoints().toArray();
+        for (int i = 0; i < codePoints.length; i++) {
+            if (indexing || codePoints.length == 1) {
+                terms.add(new String(codePoints, i, 1));
+            }
+            if (i + 1 < codePoints.length) {
+                terms.add(new String(codePoints, i, 2));
+            }
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+            || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA
+            || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private void putInternal(Integer postId, Map<String, Integer> terms) {
+        int length = 0;
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), key -> new HashMap<>())
+                .put(postId, term.getValue());
+            length += term.getValue();
+        }
+        documents.put(postId, terms);
+        lengths.put(postId, length);
+        totalLength += length;
+    }
+
+    private void removeInternal(Integer postId) {
+        Map<String, Integer> terms = documents.remove(postId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Integer, Integer> posting = postings.get(term);
+            posting.remove(postId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= lengths.remove(postId);
+    }
+}
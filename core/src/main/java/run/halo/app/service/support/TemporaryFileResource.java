@@ -0,0 +1,64 @@
+package run.halo.app.service.support;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+/**
+ * Resource of a temporary file which is deleted once its content has been read.
+ *
+ * <p>The file is deleted when the first stream opened from it is closed, so the resource can be
+ * downloaded once. It is created in the temporary directory of the system, which also removes
+ * files left behind by downloads that were never started.
+ *
+ * @author guqing
+ */
+@Slf4j
+public class TemporaryFileResource extends FileSystemResource {
+
+    private final String filename;
+
+    public TemporaryFileResource(@NonNull Path path, @NonNull String filename) {
+        super(path);
+        Assert.hasText(filename, "File name must not be blank");
+        this.filename = filename;
+    }
+
+    @Override
+    @NonNull
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    @NonNull
+    public InputStream getInputStream() throws IOException {
+        return new FilterInputStream(super.getInputStream()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    delete();
+                }
+            }
+        };
+    }
+
+    /**
+     * Deletes the file.
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(getFile().toPath());
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary file [{}]", getPath(), e);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package run.halo.app.service.support;
+
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import run.halo.app.utils.JsonUtils;
+
+/**
+ * Content-addressed store of incremental work directory backups.
+ *
+ * <p>Files are split into chunks of at most {@link #CHUNK_SIZE} bytes, and every distinct chunk
+ * is stored once under {@code .chunks/}, gzip compressed and named by its SHA-256. A snapshot is
+ * a json manifest listing the size, modified time and chunks of every file. Files with the same
+ * size and modified time as in the latest snapshot are taken from it without being read again.
+ *
+ * <p>A snapshot is rebuilt into the same zip archive as a full backup when it is downloaded, the
+ * archive is not kept in the store.
+ *
+ * @author guqing
+ */
+@Slf4j
+public class WorkDirSnapshotStore {
+
+    public static final String SNAPSHOT_SUFFIX = ".snapshot.json";
+
+    private static final String CHUNK_DIR = ".chunks";
+
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final Path storeDir;
+
+    /**
+     * Guards chunks from being swept while a snapshot is being created or rebuilt.
+     */
+    private final Object lock = new Object();
+
+    public WorkDirSnapshotStore(@NonNull Path storeDir) {
+        Assert.notNull(storeDir, "Store directory must not be null");
+        this.storeDir = storeDir;
+    }
+
+    public static boolean isSnapshot(@NonNull Path path) {
+        return path.getFileName().toString().endsWith(SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Creates a snapshot of the directory.
+     *
+     * @param directory directory to back up must not be null
+     * @param snapshotPath manifest path of the snapshot must not be null
+     * @param filter filter of the files to back up
+     * @throws IOException throws when failed to read the directory or write the store
+     */
+    public void create(@NonNull Path directory, @NonNull Path snapshotPath,
+        @Nullable Predicate<Path> filter) throws IOException {
+        Assert.notNull(directory, "Directory must not be null");
+        Assert.notNull(snapshotPath, "Snapshot path must not be null");
+
+        synchronized (lock) {
+            Map<String, FileEntry> previousFiles = findLatest()
+                .map(latest -> latest.getFiles().stream()
+                    .collect(Collectors.toMap(FileEntry::getPath, file -> file)))
+                .orElse(Map.of());
+
+            Snapshot snapshot = new Snapshot();
+            snapshot.setRoot(directory.getFileName().toString());
+            snapshot.setCreateTime(System.currentTimeMillis());
+
+            int reused = 0;
+            long storedBytes = 0;
+            List<Path> files;
+            try (Stream<Path> pathStream = Files.walk(directory)) {
+                files = pathStream
+                    .filter(Files::isRegularFile)
+                    .filter(path -> filter == null || filter.test(path))
+                    .sorted()
+                    .collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                String relativePath = toEntryPath(directory.relativize(file));
+                long size = Files.size(file);
+                long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+                FileEntry previous = previousFiles.get(relativePath);
+                if (previous != null && previous.getSize() == size
+                    && previous.getLastModified() == lastModified
+                    && previous.getChunks().stream()
+                    .allMatch(hash -> Files.exists(chunkPath(hash)))) {
+                    snapshot.getFiles().add(previous);
+                    reused++;
+                    continue;
+                }
+
+                FileEntry fileEntry = new FileEntry();
+                fileEntry.setPath(relativePath);
+                fileEntry.setLastModified(lastModified);
+                storedBytes += storeChunks(file, fileEntry);
+                snapshot.getFiles().add(fileEntry);
+            }
+
+            writeSnapshot(snapshot, snapshotPath);
+            log.info("Created work directory snapshot [{}] of [{}] files, [{}] unchanged, "
+                    + "[{}] bytes of new chunks", snapshotPath.getFileName(), files.size(), reused,
+                storedBytes);
+        }
+    }
+
+    /**
+     * Rebuilds the zip archive of the snapshot into the given file.
+     *
+     * @param snapshotPath manifest path of the snapshot must not be null
+     * @param archivePath path to write the archive to must not be null
+     * @throws IOException throws when the snapshot or its chunks are unreadable
+     */
+    public void rebuild(@NonNull Path snapshotPath, @NonNull Path archivePath)
+        throws IOException {
+        Assert.notNull(snapshotPath, "Snapshot path must not be null");
+        Assert.notNull(archivePath, "Archive path must not be null");
+
+        synchronized (lock) {
+            Snapshot snapshot = readSnapshot(snapshotPath);
+            try (ZipOutputStream zipOut =
+                     new ZipOutputStream(Files.newOutputStream(archivePath))) {
+                for (FileEntry file : snapshot.getFiles()) {
+                    ZipEntry zipEntry = new ZipEntry(snapshot.getRoot() + "/" + file.getPath());
+                    zipEntry.setTime(file.getLastModified());
+                    zipOut.putNextEntry(zipEntry);
+                    for (String hash : file.getChunks()) {
+                        try (InputStream chunkIn =
+                                 new GZIPInputStream(Files.newInputStream(chunkPath(hash)))) {
+                            chunkIn.transferTo(zipOut);
+                        }
+                    }
+                    zipOut.closeEntry();
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the snapshot and the chunks no other snapshot refers to.
+     *
+     * @param snapshotPath manifest path of the snapshot must not be null
+     * @throws IOException throws when failed to access the store
+     */
+    public void delete(@NonNull Path snapshotPath) throws IOException {
+        Assert.notNull(snapshotPath, "Snapshot path must not be null");
+
+        synchronized (lock) {
+            Files.delete(snapshotPath);
+
+            Set<String> referencedChunks = new HashSet<>();
+            for (Path path : listSnapshots()) {
+                readSnapshot(path).getFiles()
+                    .forEach(file -> referencedChunks.addAll(file.getChunks()));
+            }
+
+            Path chunkDir = storeDir.resolve(CHUNK_DIR);
+            if (Files.notExists(chunkDir)) {
+                return;
+            }
+            List<Path> unreferencedChunks;
+            try (Stream<Path> pathStream = Files.walk(chunkDir)) {
+                unreferencedChunks = pathStream
+                    .filter(Files::isRegularFile)
+                    .filter(path -> !referencedChunks.contains(path.getFileName().toString()))
+                    .collect(Collectors.toList());
+            }
+            for (Path chunk : unreferencedChunks) {
+                Files.deleteIfExists(chunk);
+            }
+            log.info("Deleted work directory snapshot [{}] and [{}] unreferenced chunks",
+                snapshotPath.getFileName(), unreferencedChunks.size());
+        }
+    }
+
+    /**
+     * Stores the chunks of the file which are not stored yet.
+     *
+     * @return bytes of the chunks newly stored
+     */
+    private long storeChunks(Path file, FileEntry fileEntry) throws IOException {
+        long storedBytes = 0;
+        long size = 0;
+        byte[] buffer = new byte[CHUNK_SIZE];
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int read;
+            while ((read = inputStream.readNBytes(buffer, 0, CHUNK_SIZE)) > 0) {
+                String hash = Hashing.sha256().hashBytes(buffer, 0, read).toString();
+                Path chunkPath = chunkPath(hash);
+                if (Files.notExists(chunkPath)) {
+                    writeChunk(chunkPath, buffer, read);
+                    storedBytes += read;
+                }
+                fileEntry.getChunks().add(hash);
+                size += read;
+            }
+        }
+        fileEntry.setSize(size);
+        return storedBytes;
+    }
+
+    private void writeChunk(Path chunkPath, byte[] buffer, int length) throws IOException {
+        Files.createDirectories(chunkPath.getParent());
+        Path tempPath = Files.createTempFile(chunkPath.getParent(), "chunk", ".tmp");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempPath))) {
+                out.write(buffer, 0, length);
+            }
+            Files.move(tempPath, chunkPath, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    private Optional<Snapshot> findLatest() throws IOException {
+        Optional<Path> latestPath = listSnapshots().stream()
+            .max(Comparator.comparingLong(path -> path.toFile().lastModified()));
+        if (latestPath.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(readSnapshot(latestPath.get()));
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        if (Files.notExists(storeDir)) {
+            return List.of();
+        }
+        try (Stream<Path> pathStream = Files.list(storeDir)) {
+            return pathStream.filter(WorkDirSnapshotStore::isSnapshot)
+                .collect(Collectors.toList());
+        }
+    }
+
+    private Snapshot readSnapshot(Path snapshotPath) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(snapshotPath)) {
+            return JsonUtils.DEFAULT_JSON_MAPPER.readValue(inputStream, Snapshot.class);
+        }
+    }
+
+    private void writeSnapshot(Snapshot snapshot, Path snapshotPath) throws IOException {
+        Files.createDirectories(snapshotPath.getParent());
+        Path tempPath = Files.createTempFile(snapshotPath.getParent(), "snapshot", ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(tempPath)) {
+                JsonUtils.DEFAULT_JSON_MAPPER.writeValue(outputStream, snapshot);
+            }
+            Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    private Path chunkPath(String hash) {
+        return storeDir.resolve(CHUNK_DIR).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static String toEntryPath(Path relativePath) {
+        List<String> names = new ArrayList<>(relativePath.getNameCount());
+        relativePath.forEach(name -> names.add(name.toString()));
+        return String.join("/", names);
+    }
+
+    /**
+     * Manifest of a snapshot.
+     */
+    @Data
+    public static class Snapshot {
+
+        /**
+         * File name of the directory backed up.
+         */
+        private String root;
+
+        private long createTime;
+
+        private List<FileEntry> files = new ArrayList<>();
+    }
+
+    @Data
+    public static class FileEntry {
+
+        /**
+         * Path relative to the directory backed up, separated by '/'.
+         */
+        private String path;
+
+        private long size;
+
+        private long lastModified;
+
+        /**
+         * Hashes of the chunks in order.
+         */
+        private List<String> chunks = new ArrayList<>();
+    }
+}
@@ -0,0 +1,174 @@
+package run.halo.app.task;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import run.halo.app.config.properties.HaloProperties;
+import run.halo.app.event.post.PostsRenderedEvent;
+import run.halo.app.exception.BadRequestException;
+import run.halo.app.model.dto.PostRenderingDTO;
+import run.halo.app.service.PostService;
+
+/**
+ * Renders the format content of all posts and sheets again, such as after the markdown engine
+ * is changed.
+ *
+ * <p>Posts and sheets are read in id order by batches, rendered on a work-stealing pool and
+ * written back in jdbc batches. The id of the last post written is saved as a checkpoint after
+ * every batch, so an interrupted run can be resumed from it. The batches publish no events, so
+ * a {@link PostsRenderedEvent} is published once the run ends to refresh what shows the content.
+ *
+ * @author guqing
+ */
+@Slf4j
+@Component
+public class PostRenderingTask {
+
+    private static final int BATCH_SIZE = 200;
+
+    private static final String CHECKPOINT_FILE = ".post-rendering.checkpoint";
+
+    private final PostService postService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Path checkpointPath;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile long total;
+
+    private volatile long rendered;
+
+    private volatile int checkpoint;
+
+    private volatile long startTime;
+
+    private volatile long endTime;
+
+    private volatile String error;
+
+    public PostRenderingTask(PostService postService, ApplicationEventPublisher eventPublisher,
+        HaloProperties haloProperties) {
+        this.postService = postService;
+        this.eventPublisher = eventPublisher;
+        this.checkpointPath = Paths.get(haloProperties.getWorkDir(), CHECKPOINT_FILE);
+    }
+
+    /**
+     * Starts rendering in background.
+     *
+     * @param resume whether to resume from the checkpoint of the last interrupted run
+     * @return progress of the run
+     */
+    @NonNull
+    public PostRenderingDTO start(boolean resume) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("Posts are being rendered, please try again later");
+        }
+
+        try {
+            checkpoint = resume ? readCheckpoint() : 0;
+            total = postService.countAfter(checkpoint);
+            rendered = 0;
+            error = null;
+            startTime = System.currentTimeMillis();
+            endTime = 0;
+
+            Thread thread = new Thread(this::render, "post-rendering");
+            thread.setDaemon(true);
+            thread.start();
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return getProgress();
+    }
+
+    /**
+     * Gets the progress of the current or last run.
+     *
+     * @return progress
+     */
+    @NonNull
+    public PostRenderingDTO getProgress() {
+        long elapsedMillis = 0;
+        if (startTime > 0) {
+            elapsedMillis = (running.get() ? System.currentTimeMillis() : endTime) - startTime;
+        }
+
+        PostRenderingDTO progress = new PostRenderingDTO();
+        progress.setRunning(running.get());
+        progress.setTotal(total);
+        progress.setRendered(rendered);
+        progress.setCheckpoint(checkpoint);
+        progress.setStartTime(startTime);
+        progress.setElapsedMillis(elapsedMillis);
+        progress.setPostsPerSecond(elapsedMillis > 0 ? rendered * 1000.0 / elapsedMillis : 0);
+        progress.setError(error);
+        return progress;
+    }
+
+    private void render() {
+        log.info("Rendering [{}] posts and sheets after id [{}]", total, checkpoint);
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Integer> postIds;
+            while (!(postIds = postService.renderAfter(checkpoint, BATCH_SIZE, pool)).isEmpty()) {
+                checkpoint = postIds.get(postIds.size() - 1);
+                rendered += postIds.size();
+                writeCheckpoint(checkpoint);
+            }
+            Files.deleteIfExists(checkpointPath);
+            log.info("Rendered [{}] posts and sheets in [{}] ms", rendered,
+                System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            error = e.getMessage();
+            log.error("Failed to render posts and sheets after id [{}]", checkpoint, e);
+        } finally {
+            pool.shutdown();
+            if (rendered > 0) {
+                // Also after a failure, as the batches before it were written
+                publishRendered();
+            }
+            endTime = System.currentTimeMillis();
+            running.set(false);
+        }
+    }
+
+    private void publishRendered() {
+        try {
+            eventPublisher.publishEvent(new PostsRenderedEvent(this));
+        } catch (RuntimeException e) {
+            log.error("Failed to refresh the content of rendered posts and sheets", e);
+        }
+    }
+
+    private int readCheckpoint() {
+        try {
+            if (Files.notExists(checkpointPath)) {
+                return 0;
+            }
+            String content = Files.readString(checkpointPath, StandardCharsets.UTF_8).trim();
+            return StringUtils.isNumeric(content) ? Integer.parseInt(content) : 0;
+        } catch (IOException e) {
+            log.warn("Failed to read the post rendering checkpoint [{}]", checkpointPath, e);
+            return 0;
+        }
+    }
+
+    private void writeCheckpoint(int postId) throws IOException {
+        Files.createDirectories(checkpointPath.getParent());
+        Files.writeString(checkpointPath, String.valueOf(postId), StandardCharsets.UTF_8);
+    }
+}
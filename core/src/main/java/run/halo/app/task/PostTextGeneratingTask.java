@@ -0,0 +1,93 @@
+package run.halo.app.task;
+
+import com.google.common.collect.Lists;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import run.halo.app.event.options.OptionUpdatedEvent;
+import run.halo.app.model.properties.PostProperties;
+import run.halo.app.service.OptionService;
+import run.halo.app.service.PostService;
+
+/**
+ * Generates the plain text, summary and word count of posts and sheets in background, so that
+ * rendering them needs no html processing.
+ *
+ * <p>Posts and sheets saved without the generated text, such as the ones created before it was
+ * introduced or imported, are backfilled periodically. The summaries are regenerated from the
+ * plain text after the summary length is changed.
+ *
+ * @author guqing
+ */
+@Slf4j
+@Component
+public class PostTextGeneratingTask {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final OptionService optionService;
+
+    private final PostService postService;
+
+    private volatile Integer summaryLength;
+
+    public PostTextGeneratingTask(OptionService optionService, PostService postService) {
+        this.optionService = optionService;
+        this.postService = postService;
+    }
+
+    /**
+     * Backfills the posts and sheets without generated text.
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelay = 60 * 60 * 1000)
+    public synchronized void backfill() {
+        // Queries of the base post repository cover sheets as well
+        List<Integer> postIds = postService.listIdsWithoutPlainText();
+        if (postIds.isEmpty()) {
+            return;
+        }
+
+        log.info("Generating text of [{}] posts and sheets", postIds.size());
+        for (List<Integer> batch : Lists.partition(postIds, BATCH_SIZE)) {
+            postService.refreshGeneratedText(batch);
+        }
+        log.info("Generated text of [{}] posts and sheets", postIds.size());
+    }
+
+    /**
+     * Regenerates the summaries if the summary length is changed.
+     *
+     * @param event option updated event
+     */
+    @Async
+    @EventListener
+    public synchronized void onOptionUpdated(OptionUpdatedEvent event) {
+        Integer currentSummaryLength = getSummaryLength();
+        Integer previousSummaryLength = summaryLength;
+        summaryLength = currentSummaryLength;
+        if (previousSummaryLength == null || previousSummaryLength.equals(currentSummaryLength)) {
+            return;
+        }
+
+        List<Integer> postIds = postService.listAllIds();
+        log.info("Summary length changed from [{}] to [{}], regenerating summaries of [{}] posts "
+            + "and sheets", previousSummaryLength, currentSummaryLength, postIds.size());
+        for (List<Integer> batch : Lists.partition(postIds, BATCH_SIZE)) {
+            postService.refreshGeneratedSummary(batch);
+        }
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStarted() {
+        summaryLength = getSummaryLength();
+    }
+
+    private Integer getSummaryLength() {
+        return optionService.getByPropertyOrDefault(PostProperties.SUMMARY_LENGTH, Integer.class,
+            PostProperties.SUMMARY_LENGTH.defaultValue(Integer.class));
+    }
+}
@@ -0,0 +1,300 @@
+package run.halo.app.theme;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import run.halo.app.handler.theme.config.support.ThemeProperty;
+
+/**
+ * In-memory registry of the installed themes and their files.
+ *
+ * <p>The themes root is scanned once and the result is kept until something under it changes.
+ * A {@link WatchService} watches the root and every directory of the themes, any change drops
+ * the result and the next lookup scans again. Changes made by halo itself should call
+ * {@link #invalidate()} as well, since file systems may deliver watch events late or not at all.
+ *
+ * <p>Theme properties returned are copies and may be modified by the caller.
+ *
+ * @author guqing
+ */
+@Slf4j
+public class ThemeRegistry implements Closeable {
+
+    /**
+     * Maximum depth of the files listed in a theme, which also bounds linked directories.
+     */
+    private static final int MAX_THEME_DEPTH = 32;
+
+    private final Path themeRootPath;
+
+    /**
+     * Registered themes keyed by theme id, null if the themes root needs to be scanned again.
+     */
+    private volatile Map<String, RegisteredTheme> themes;
+
+    /**
+     * Increased on every invalidation, so a scan which overlaps one is not kept.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private WatchService watchService;
+
+    public ThemeRegistry(@NonNull Path themeRootPath) {
+        Assert.notNull(themeRootPath, "Theme root path must not be null");
+        this.themeRootPath = themeRootPath;
+    }
+
+    /**
+     * Starts watching the themes root on a daemon thread. Without it the registry is only
+     * refreshed by {@link #invalidate()}.
+     */
+    public synchronized void startWatching() {
+        if (watchService != null) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("Failed to watch the themes root [{}], changes made outside of halo will not "
+                + "be noticed until the themes are reloaded", themeRootPath, e);
+            return;
+        }
+        Thread thread = new Thread(this::watch, "theme-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        invalidate();
+    }
+
+    /**
+     * Lists all themes.
+     *
+     * @param activatedThemeId id of the activated theme
+     * @return a list of theme property
+     */
+    @NonNull
+    public List<ThemeProperty> listAll(@Nullable String activatedThemeId) {
+        return getThemes().values().stream()
+            .map(theme -> {
+                ThemeProperty property = copy(theme.property);
+                property.setActivated(StringUtils.equals(activatedThemeId, property.getId()));
+                return property;
+            })
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Fetches the theme property by theme id.
+     *
+     * @param themeId theme id
+     * @return an optional theme property
+     */
+    @NonNull
+    public Optional<ThemeProperty> fetchThemeProperty(@Nullable String themeId) {
+        return Optional.ofNullable(getThemes().get(themeId)).map(theme -> copy(theme.property));
+    }
+
+    /**
+     * Checks whether the theme has the file.
+     *
+     * @param themeId theme id
+     * @param relativePath path relative to the theme folder
+     * @return true if the file exists; false otherwise
+     */
+    public boolean fileExists(@Nullable String themeId, @Nullable String relativePath) {
+        RegisteredTheme theme = getThemes().get(themeId);
+        if (theme == null || StringUtils.isBlank(relativePath)) {
+            return false;
+        }
+        Path themePath = Paths.get(theme.property.getThemePath());
+        Path filePath = themePath.resolve(relativePath).normalize();
+        return filePath.startsWith(themePath)
+            && theme.files.contains(toRelativeName(themePath, filePath));
+    }
+
+    /**
+     * Lists the names of the files right under the theme folder.
+     *
+     * @param themeId theme id
+     * @return a list of file name
+     */
+    @NonNull
+    public List<String> listRootFileNames(@Nullable String themeId) {
+        RegisteredTheme theme = getThemes().get(themeId);
+        if (theme == null) {
+            return Collections.emptyList();
+        }
+        return theme.files.stream()
+            .filter(name -> !name.contains("/"))
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Drops the registered themes, the next lookup scans the themes root again.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        themes = null;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+
+    private Map<String, RegisteredTheme> getThemes() {
+        Map<String, RegisteredTheme> registeredThemes = themes;
+        if (registeredThemes != null) {
+            return registeredThemes;
+        }
+        synchronized (this) {
+            registeredThemes = themes;
+            if (registeredThemes != null) {
+                return registeredThemes;
+            }
+            long scanGeneration = generation.get();
+            registeredThemes = scan();
+            if (generation.get() == scanGeneration) {
+                themes = registeredThemes;
+            }
+            return registeredThemes;
+        }
+    }
+
+    private Map<String, RegisteredTheme> scan() {
+        try {
+            Files.createDirectories(themeRootPath);
+            register(themeRootPath);
+        } catch (IOException e) {
+            log.error("Failed to create directory: " + themeRootPath, e);
+        }
+
+        Map<String, RegisteredTheme> registeredThemes = new LinkedHashMap<>();
+        for (ThemeProperty property : ThemePropertyScanner.INSTANCE.scan(themeRootPath, null)) {
+            Path themePath = Paths.get(property.getThemePath());
+            Set<String> files = new HashSet<>();
+            try {
+                // Themes may be installed as links, and may link to shared directories
+                Files.walkFileTree(themePath, EnumSet.of(FileVisitOption.FOLLOW_LINKS),
+                    MAX_THEME_DEPTH, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir,
+                        BasicFileAttributes attrs) {
+                        // Register before listing, so files created meanwhile are noticed
+                        register(dir);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile()) {
+                            files.add(toRelativeName(themePath, file));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        // Such as a link cycle or a broken link, the other files are kept
+                        log.debug("Failed to visit theme file [{}]", file, e);
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                log.warn("Failed to list files of theme [{}]", property.getId(), e);
+            }
+            registeredThemes.putIfAbsent(property.getId(), new RegisteredTheme(property, files));
+        }
+        log.debug("Scanned [{}] themes under [{}]", registeredThemes.size(), themeRootPath);
+        return Collections.unmodifiableMap(registeredThemes);
+    }
+
+    private synchronized void register(Path dir) {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            // Registering a directory again returns the same key
+            dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | ClosedWatchServiceException e) {
+            log.debug("Failed to watch directory [{}]", dir, e);
+        }
+    }
+
+    private void watch() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                if (!key.pollEvents().isEmpty()) {
+                    invalidate();
+                }
+                // An invalid key means the directory is gone, the root watch reports it
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Stopped watching the themes root [{}]", themeRootPath);
+        }
+    }
+
+    private static String toRelativeName(Path themePath, Path file) {
+        List<String> names = new ArrayList<>();
+        themePath.relativize(file).forEach(name -> names.add(name.toString()));
+        return String.join("/", names);
+    }
+
+    private static ThemeProperty copy(ThemeProperty property) {
+        ThemeProperty copy = new ThemeProperty();
+        BeanUtils.copyProperties(property, copy);
+        return copy;
+    }
+
+    /**
+     * A scanned theme with the relative paths of its files, separated by '/'.
+     */
+    private static class RegisteredTheme {
+        final ThemeProperty property;
+        final Set<String> files;
+
+        RegisteredTheme(ThemeProperty property, Set<String> files) {
+            this.property = property;
+            this.files = files;
+        }
+    }
+}
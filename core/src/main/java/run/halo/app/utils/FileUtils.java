@@ -178,15 +178,11 @@ public class FileUtils {
      */
     public static void zip(@NonNull Path pathToZip, @NonNull Path pathOfArchive)
         throws IOException {
-        try (OutputStream outputStream = Files.newOutputStream(pathOfArchive)) {
-            try (ZipOutputStream zipOut = new ZipOutputStream(outputStream)) {
-                zip(pathToZip, zipOut);
-            }
-        }
+        zip(pathToZip, pathOfArchive, null);
     }
 
     /**
-     * Zips folder or file with filter.
+     * Zips folder or file with filter, the files are compressed in parallel.
      *
      * @param pathToZip file path to zip must not be null
      * @param pathOfArchive zip file path to archive must not be null
@@ -195,13 +191,29 @@ public class FileUtils {
      */
     public static void zip(@NonNull Path pathToZip, @NonNull Path pathOfArchive,
         @Nullable Predicate<Path> filter) throws IOException {
-        try (OutputStream outputStream = Files.newOutputStream(pathOfArchive)) {
-            try (ZipOutputStream zipOut = new ZipOutputStream(outputStream)) {
-                zip(pathToZip, zipOut, filter);
+        try (ParallelZipWriter zipWriter = new ParallelZipWriter(pathOfArchive)) {
+            try {
+                zip(pathToZip, zipWriter, filter);
+            } catch (IOException | RuntimeException e) {
+                zipWriter.abort();
+                throw e;
             }
         }
     }
 
+    /**
+     * Zips folder or file with filter into the parallel zip writer.
+     *
+     * @param pathToZip file path to zip must not be null
+     * @param zipWriter zip writer must not be null
+     * @param filter folder or file filter
+     * @throws IOException throws when failed to access file to be zipped
+     */
+    public static void zip(@NonNull Path pathToZip, @NonNull ParallelZipWriter zipWriter,
+        @Nullable Predicate<Path> filter) throws IOException {
+        zip(pathToZip, pathToZip.getFileName().toString(), zipWriter, filter);
+    }
+
     /**
      * Zips folder or file.
      *
@@ -288,6 +300,38 @@ public class FileUtils {
         }
     }
 
+    /**
+     * Zips folder or file with path filter into the parallel zip writer.
+     *
+     * @param fileToZip file path to zip must not be null
+     * @param fileName file name must not be blank
+     * @param zipWriter zip writer must not be null
+     * @param filter directory or file filter
+     * @throws IOException throws when failed to access file to be zipped
+     */
+    private static void zip(@NonNull Path fileToZip, @NonNull String fileName,
+        @NonNull ParallelZipWriter zipWriter, @Nullable Predicate<Path> filter)
+        throws IOException {
+        if (Files.isDirectory(fileToZip)) {
+            log.debug("Try to zip folder: [{}]", fileToZip);
+            String folderName = StringUtils.appendIfMissing(fileName, "/");
+            zipWriter.addDirectory(folderName,
+                Files.getLastModifiedTime(fileToZip).toMillis());
+
+            List<Path> subFiles;
+            try (Stream<Path> subPathStream = Files.list(fileToZip)) {
+                subFiles = filter != null
+                    ? subPathStream.filter(filter).collect(Collectors.toList())
+                    : subPathStream.collect(Collectors.toList());
+            }
+            for (Path subFileToZip : subFiles) {
+                zip(subFileToZip, folderName + subFileToZip.getFileName(), zipWriter, filter);
+            }
+        } else {
+            zipWriter.addFile(fileName, fileToZip);
+        }
+    }
+
 
     /**
      * Find root path.
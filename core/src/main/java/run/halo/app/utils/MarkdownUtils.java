@@ -1,5 +1,8 @@
 package run.halo.app.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.Hashing;
 import com.vladsch.flexmark.ext.attributes.AttributesExtension;
 import com.vladsch.flexmark.ext.autolink.AutolinkExtension;
 import com.vladsch.flexmark.ext.emoji.EmojiExtension;
@@ -21,6 +24,7 @@ import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.data.DataHolder;
 import com.vladsch.flexmark.util.data.MutableDataSet;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -28,8 +32,8 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
-import run.halo.app.model.support.HaloConst;
 import run.halo.app.utils.footnotes.FootnoteExtension;
+import run.halo.app.utils.shortcodes.ShortcodeExtension;
 
 /**
  * Markdown utils.
@@ -53,6 +57,7 @@ public class MarkdownUtils {
             SuperscriptExtension.create(),
             YamlFrontMatterExtension.create(),
             FootnoteExtension.create(),
+            ShortcodeExtension.create(),
             GitLabExtension.create()))
             .set(TocExtension.LEVELS, 255)
             .set(TablesExtension.WITH_CAPTION, false)
@@ -73,6 +78,20 @@ public class MarkdownUtils {
     private static final HtmlRenderer RENDERER = HtmlRenderer.builder(OPTIONS).build();
     private static final Pattern FRONT_MATTER = Pattern.compile("^(---)?[\\s\\S]*?---");
 
+    /**
+     * Max characters of the rendered html cached.
+     */
+    private static final long HTML_CACHE_MAX_WEIGHT = 32 * 1024 * 1024;
+
+    /**
+     * Rendered html keyed by the SHA-256 of the markdown, so the same content is rendered once
+     * no matter which post, sheet or journal it belongs to.
+     */
+    private static final Cache<String, String> HTML_CACHE = Caffeine.newBuilder()
+        .maximumWeight(HTML_CACHE_MAX_WEIGHT)
+        .weigher((String key, String html) -> key.length() + html.length())
+        .build();
+
     //    /**
     //     * Render html document to markdown document.
     //     *
@@ -94,27 +113,8 @@ public class MarkdownUtils {
             return StringUtils.EMPTY;
         }
 
-        // Render netease music short url.
-        if (markdown.contains(HaloConst.NETEASE_MUSIC_PREFIX)) {
-            markdown = markdown
-                .replaceAll(HaloConst.NETEASE_MUSIC_REG_PATTERN, HaloConst.NETEASE_MUSIC_IFRAME);
-        }
-
-        // Render bilibili video short url.
-        if (markdown.contains(HaloConst.BILIBILI_VIDEO_PREFIX)) {
-            markdown = markdown
-                .replaceAll(HaloConst.BILIBILI_VIDEO_REG_PATTERN, HaloConst.BILIBILI_VIDEO_IFRAME);
-        }
-
-        // Render youtube video short url.
-        if (markdown.contains(HaloConst.YOUTUBE_VIDEO_PREFIX)) {
-            markdown = markdown
-                .replaceAll(HaloConst.YOUTUBE_VIDEO_REG_PATTERN, HaloConst.YOUTUBE_VIDEO_IFRAME);
-        }
-
-        Node document = PARSER.parse(markdown);
-
-        return RENDERER.render(document);
+        String key = Hashing.sha256().hashString(markdown, StandardCharsets.UTF_8).toString();
+        return HTML_CACHE.get(key, k -> RENDERER.render(PARSER.parse(markdown)));
     }
 
     /**
@@ -0,0 +1,655 @@
+package run.halo.app.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Zip archive writer which compresses entries in parallel on a bounded pool.
+ *
+ * <p>Entries are compressed in memory by a pool shared by all writers and written into the
+ * archive in the order they were added, at most {@code maxPending} entries of a writer are in
+ * flight at a time. Files larger than {@link #IN_MEMORY_THRESHOLD} are not buffered: their
+ * checksum is computed by the pool and they are streamed into the archive by the writing thread.
+ * Already compressed media, such as images, videos and archives, are stored instead of deflated,
+ * and so is any entry deflating does not shrink.
+ *
+ * <p>Zip64 records are written when the archive needs them. Whether an entry uses zip64 sizes is
+ * decided once when its local header is written, and the central directory follows it. Files of
+ * {@link #MAX_STREAMED_DEFLATE_SIZE} bytes or more are stored, so a streamed deflated entry never
+ * needs zip64 sizes in its data descriptor.
+ *
+ * <p>If an entry fails, the archive is aborted: no central directory is written and an archive
+ * file created by the writer is deleted.
+ *
+ * @author guqing
+ */
+public class ParallelZipWriter implements Closeable {
+
+    /**
+     * Files larger than this are streamed instead of being compressed in memory.
+     */
+    static final int IN_MEMORY_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Files this large are stored, as their deflated size could need zip64 sizes that are only
+     * known after the data has been written.
+     */
+    static final long MAX_STREAMED_DEFLATE_SIZE = 0xFFFFFFFFL / 2;
+
+    private static final Set<String> STORED_EXTENSIONS = Set.of(
+        "jpg", "jpeg", "png", "gif", "webp", "ico", "heic", "avif",
+        "mp3", "mp4", "m4a", "m4v", "mov", "avi", "mkv", "webm", "ogg", "flac",
+        "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "jar", "woff", "woff2", "pdf");
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int VERSION_DEFAULT = 20;
+    private static final int VERSION_ZIP64 = 45;
+
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int FLAG_UTF8 = 1 << 11;
+
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private final CountingOutputStream out;
+
+    /**
+     * The archive file created by the writer, deleted if the archive is aborted.
+     */
+    @Nullable
+    private final Path archivePath;
+
+    private final int maxPending;
+
+    private final Deque<Future<PreparedEntry>> pending = new ArrayDeque<>();
+
+    private final List<CentralEntry> centralEntries = new ArrayList<>();
+
+    private final Set<String> names = new HashSet<>();
+
+    private boolean closed;
+
+    private boolean failed;
+
+    /**
+     * Creates a writer of the archive file, the file is deleted if the archive is aborted.
+     *
+     * @param archivePath path of the archive must not be null
+     * @throws IOException throws when the file cannot be opened
+     */
+    public ParallelZipWriter(@NonNull Path archivePath) throws IOException {
+        this(Files.newOutputStream(archivePath), archivePath);
+    }
+
+    /**
+     * Creates a writer of the output stream.
+     *
+     * @param outputStream output stream of the archive must not be null
+     */
+    public ParallelZipWriter(@NonNull OutputStream outputStream) {
+        this(outputStream, null);
+    }
+
+    private ParallelZipWriter(@NonNull OutputStream outputStream, @Nullable Path archivePath) {
+        Assert.notNull(outputStream, "Output stream must not be null");
+
+        this.out = new CountingOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+        this.archivePath = archivePath;
+        this.maxPending = Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    /**
+     * Adds a directory entry.
+     *
+     * @param name entry name, '/' is appended if missing
+     * @param lastModified last modified time in millis
+     */
+    public void addDirectory(@NonNull String name, long lastModified) throws IOException {
+        String directoryName = StringUtils.appendIfMissing(name, "/");
+        submit(directoryName, () -> PreparedEntry.inMemory(directoryName, lastModified,
+            ZipEntry.STORED, new byte[0], 0, 0));
+    }
+
+    /**
+     * Adds a file entry with the content of the file.
+     *
+     * @param name entry name must not be blank
+     * @param file file to add must not be null
+     */
+    public void addFile(@NonNull String name, @NonNull Path file) throws IOException {
+        Assert.notNull(file, "File must not be null");
+
+        long size = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        boolean stored = isCompressed(name) || size >= MAX_STREAMED_DEFLATE_SIZE;
+        if (size > IN_MEMORY_THRESHOLD) {
+            submit(name, () -> PreparedEntry.streamed(name, lastModified, file, size, stored,
+                stored ? checksum(file, size) : 0L));
+        } else {
+            submit(name, () -> prepare(name, lastModified, Files.readAllBytes(file), stored));
+        }
+    }
+
+    /**
+     * Adds a file entry with the content.
+     *
+     * @param name entry name must not be blank
+     * @param content content must not be null
+     * @param lastModified last modified time in millis
+     */
+    public void addBytes(@NonNull String name, @NonNull byte[] content, long lastModified)
+        throws IOException {
+        Assert.notNull(content, "Content must not be null");
+
+        boolean stored = isCompressed(name);
+        submit(name, () -> prepare(name, lastModified, content, stored));
+    }
+
+    /**
+     * Writes the remaining entries and the central directory, and closes the output stream. The
+     * archive is aborted instead if an entry failed.
+     *
+     * @throws IOException throws when an entry failed or the archive cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (failed) {
+            abort();
+            throw new IOException("Zip archive was aborted as an entry failed");
+        }
+        try {
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+            writeCentralDirectory();
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        }
+        closed = true;
+        out.close();
+    }
+
+    /**
+     * Discards the archive. Pending entries are cancelled, the output stream is closed without a
+     * central directory and the archive file is deleted if the writer created it.
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        failed = true;
+        pending.forEach(future -> future.cancel(true));
+        pending.clear();
+        try {
+            out.close();
+        } catch (IOException e) {
+            // Ignore this exception, the archive is discarded
+        }
+        if (archivePath != null) {
+            try {
+                Files.deleteIfExists(archivePath);
+            } catch (IOException e) {
+                // Ignore this exception, nothing else can be done with the partial archive
+            }
+        }
+    }
+
+    private void submit(String name, Callable<PreparedEntry> task) throws IOException {
+        Assert.hasText(name, "Entry name must not be blank");
+        if (closed) {
+            throw new IOException("Zip writer has been closed");
+        }
+        if (failed) {
+            throw new IOException("Zip writer failed on a previous entry");
+        }
+        if (!names.add(name)) {
+            throw new ZipException("duplicate entry: " + name);
+        }
+
+        pending.addLast(EXECUTOR.submit(task));
+        while (pending.size() > maxPending) {
+            writeNext();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        Future<PreparedEntry> future = pending.removeFirst();
+        try {
+            PreparedEntry entry;
+            try {
+                entry = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while compressing zip entries", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Failed to compress zip entry", e.getCause());
+            }
+
+            if (entry.file == null) {
+                writeInMemory(entry);
+            } else if (entry.method == ZipEntry.STORED) {
+                writeStoredFile(entry);
+            } else {
+                writeDeflatedFile(entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    private void writeInMemory(PreparedEntry entry) throws IOException {
+        long offset = out.getCount();
+        boolean zip64 = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+        writeLocalHeader(entry, 0, zip64, entry.crc, entry.compressedSize, entry.size);
+        out.write(entry.data, 0, entry.dataLength);
+        centralEntries.add(new CentralEntry(entry, 0, zip64, entry.crc, entry.compressedSize,
+            entry.size, offset));
+    }
+
+    private void writeStoredFile(PreparedEntry entry) throws IOException {
+        long offset = out.getCount();
+        boolean zip64 = entry.size >= ZIP64_MAGIC;
+        writeLocalHeader(entry, 0, zip64, entry.crc, entry.size, entry.size);
+        try (InputStream inputStream = Files.newInputStream(entry.file)) {
+            long copied = copy(inputStream, out, entry.size);
+            if (copied != entry.size) {
+                throw new ZipException("File " + entry.file + " was truncated while zipping");
+            }
+        }
+        centralEntries.add(new CentralEntry(entry, 0, zip64, entry.crc, entry.size, entry.size,
+            offset));
+    }
+
+    private void writeDeflatedFile(PreparedEntry entry) throws IOException {
+        long offset = out.getCount();
+        // Files close to the zip64 limit are stored, so sizes in the descriptor fit in 4 bytes
+        writeLocalHeader(entry, FLAG_DATA_DESCRIPTOR, false, 0, 0, 0);
+
+        CRC32 crc = new CRC32();
+        long dataStart = out.getCount();
+        long size;
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try (InputStream inputStream = Files.newInputStream(entry.file)) {
+            DeflaterOutputStream deflaterOut =
+                new DeflaterOutputStream(new NonClosingOutputStream(out), deflater, 64 * 1024);
+            size = copy(inputStream, deflaterOut, entry.size, crc);
+            deflaterOut.finish();
+        } finally {
+            deflater.end();
+        }
+        long compressedSize = out.getCount() - dataStart;
+        if (compressedSize >= ZIP64_MAGIC || size >= ZIP64_MAGIC) {
+            throw new ZipException("File " + entry.file + " grew too large while zipping");
+        }
+
+        writeInt(out, DATA_DESCRIPTOR_SIGNATURE);
+        writeInt(out, (int) crc.getValue());
+        writeInt(out, (int) compressedSize);
+        writeInt(out, (int) size);
+        centralEntries.add(new CentralEntry(entry, FLAG_DATA_DESCRIPTOR, false, crc.getValue(),
+            compressedSize, size, offset));
+    }
+
+    private void writeLocalHeader(PreparedEntry entry, int flags, boolean zip64, long crc,
+        long compressedSize, long size) throws IOException {
+        byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+        writeInt(out, LOCAL_HEADER_SIGNATURE);
+        writeShort(out, zip64 ? VERSION_ZIP64 : VERSION_DEFAULT);
+        writeShort(out, flags | FLAG_UTF8);
+        writeShort(out, entry.method);
+        writeInt(out, entry.dosTime);
+        writeInt(out, (int) crc);
+        writeInt(out, zip64 ? (int) ZIP64_MAGIC : (int) compressedSize);
+        writeInt(out, zip64 ? (int) ZIP64_MAGIC : (int) size);
+        writeShort(out, name.length);
+        writeShort(out, zip64 ? 20 : 0);
+        out.write(name);
+        if (zip64) {
+            writeShort(out, ZIP64_EXTRA_ID);
+            writeShort(out, 16);
+            writeLong(out, size);
+            writeLong(out, compressedSize);
+        }
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long centralOffset = out.getCount();
+        for (CentralEntry entry : centralEntries) {
+            byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer extra = ByteBuffer.allocate(28).order(ByteOrder.LITTLE_ENDIAN);
+            if (entry.zip64) {
+                extra.putLong(entry.size);
+                extra.putLong(entry.compressedSize);
+            }
+            if (entry.offset >= ZIP64_MAGIC) {
+                extra.putLong(entry.offset);
+            }
+            int extraLength = extra.position() == 0 ? 0 : extra.position() + 4;
+
+            writeInt(out, CENTRAL_HEADER_SIGNATURE);
+            writeShort(out, extraLength > 0 ? VERSION_ZIP64 : VERSION_DEFAULT);
+            writeShort(out, extraLength > 0 ? VERSION_ZIP64 : VERSION_DEFAULT);
+            writeShort(out, entry.flags | FLAG_UTF8);
+            writeShort(out, entry.method);
+            writeInt(out, entry.dosTime);
+            writeInt(out, (int) entry.crc);
+            writeInt(out, entry.zip64 ? (int) ZIP64_MAGIC : (int) entry.compressedSize);
+            writeInt(out, entry.zip64 ? (int) ZIP64_MAGIC : (int) entry.size);
+            writeShort(out, name.length);
+            writeShort(out, extraLength);
+            // Comment length, disk number and internal attributes
+            writeShort(out, 0);
+            writeShort(out, 0);
+            writeShort(out, 0);
+            writeInt(out, entry.name.endsWith("/") ? 0x10 : 0);
+            writeInt(out, (int) Math.min(entry.offset, ZIP64_MAGIC));
+            out.write(name);
+            if (extraLength > 0) {
+                writeShort(out, ZIP64_EXTRA_ID);
+                writeShort(out, extra.position());
+                out.write(extra.array(), 0, extra.position());
+            }
+        }
+        long centralSize = out.getCount() - centralOffset;
+        int count = centralEntries.size();
+
+        if (count >= ZIP64_MAGIC_COUNT || centralOffset >= ZIP64_MAGIC
+            || centralSize >= ZIP64_MAGIC) {
+            long zip64EndOffset = out.getCount();
+            writeInt(out, ZIP64_END_SIGNATURE);
+            writeLong(out, 44);
+            writeShort(out, VERSION_ZIP64);
+            writeShort(out, VERSION_ZIP64);
+            writeInt(out, 0);
+            writeInt(out, 0);
+            writeLong(out, count);
+            writeLong(out, count);
+            writeLong(out, centralSize);
+            writeLong(out, centralOffset);
+
+            writeInt(out, ZIP64_LOCATOR_SIGNATURE);
+            writeInt(out, 0);
+            writeLong(out, zip64EndOffset);
+            writeInt(out, 1);
+        }
+
+        writeInt(out, END_SIGNATURE);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, Math.min(count, ZIP64_MAGIC_COUNT));
+        writeShort(out, Math.min(count, ZIP64_MAGIC_COUNT));
+        writeInt(out, (int) Math.min(centralSize, ZIP64_MAGIC));
+        writeInt(out, (int) Math.min(centralOffset, ZIP64_MAGIC));
+        writeShort(out, 0);
+    }
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "zip-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    private static PreparedEntry prepare(String name, long lastModified, byte[] content,
+        boolean stored) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        if (stored || content.length == 0) {
+            return PreparedEntry.inMemory(name, lastModified, ZipEntry.STORED, content,
+                content.length, crc.getValue());
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2 + 64);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                compressed.write(buffer, 0, length);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        if (compressed.size() >= content.length) {
+            // Not worth deflating
+            return PreparedEntry.inMemory(name, lastModified, ZipEntry.STORED, content,
+                content.length, crc.getValue());
+        }
+        return PreparedEntry.inMemory(name, lastModified, ZipEntry.DEFLATED,
+            compressed.toByteArray(), content.length, crc.getValue());
+    }
+
+    private static long checksum(Path file, long size) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            copy(inputStream, OutputStream.nullOutputStream(), size, crc);
+        }
+        return crc.getValue();
+    }
+
+    private static long copy(InputStream in, OutputStream out, long limit) throws IOException {
+        return copy(in, out, limit, null);
+    }
+
+    private static long copy(InputStream in, OutputStream out, long limit, CRC32 crc)
+        throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long copied = 0;
+        while (copied < limit) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, limit - copied));
+            if (read < 0) {
+                break;
+            }
+            if (crc != null) {
+                crc.update(buffer, 0, read);
+            }
+            out.write(buffer, 0, read);
+            copied += read;
+        }
+        return copied;
+    }
+
+    static boolean isCompressed(String name) {
+        String extension = StringUtils.substringAfterLast(name, ".");
+        return STORED_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT));
+    }
+
+    private static int toDosTime(long millis) {
+        LocalDateTime time =
+            LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (time.getYear() - 1980) << 25
+            | time.getMonthValue() << 21
+            | time.getDayOfMonth() << 16
+            | time.getHour() << 11
+            | time.getMinute() << 5
+            | time.getSecond() >> 1;
+    }
+
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        writeShort(out, value & 0xFFFF);
+        writeShort(out, (value >>> 16) & 0xFFFF);
+    }
+
+    private static void writeLong(OutputStream out, long value) throws IOException {
+        writeInt(out, (int) value);
+        writeInt(out, (int) (value >>> 32));
+    }
+
+    /**
+     * Entry prepared by the pool, either compressed in memory or a file to be streamed.
+     */
+    private static class PreparedEntry {
+        final String name;
+        final int dosTime;
+        final int method;
+        final byte[] data;
+        final int dataLength;
+        final long compressedSize;
+        final long size;
+        final long crc;
+        final Path file;
+
+        private PreparedEntry(String name, long lastModified, int method, byte[] data,
+            long compressedSize, long size, long crc, Path file) {
+            this.name = name;
+            this.dosTime = toDosTime(lastModified);
+            this.method = method;
+            this.data = data;
+            this.dataLength = data == null ? 0 : data.length;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.crc = crc;
+            this.file = file;
+        }
+
+        static PreparedEntry inMemory(String name, long lastModified, int method, byte[] data,
+            long size, long crc) {
+            return new PreparedEntry(name, lastModified, method, data, data.length, size, crc,
+                null);
+        }
+
+        static PreparedEntry streamed(String name, long lastModified, Path file, long size,
+            boolean stored, long crc) {
+            return new PreparedEntry(name, lastModified,
+                stored ? ZipEntry.STORED : ZipEntry.DEFLATED, null, -1, size, crc, file);
+        }
+    }
+
+    private static class CentralEntry {
+        final String name;
+        final int flags;
+
+        /**
+         * Whether the sizes are in the zip64 extra field, as in the local header.
+         */
+        final boolean zip64;
+        final int method;
+        final int dosTime;
+        final long crc;
+        final long compressedSize;
+        final long size;
+        final long offset;
+
+        CentralEntry(PreparedEntry entry, int flags, boolean zip64, long crc, long compressedSize,
+            long size, long offset) {
+            this.name = entry.name;
+            this.flags = flags;
+            this.zip64 = zip64;
+            this.method = entry.method;
+            this.dosTime = entry.dosTime;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.offset = offset;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package run.halo.app.utils.shortcodes;
+
+import com.vladsch.flexmark.util.ast.DoNotDecorate;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.lang.NonNull;
+import run.halo.app.model.support.HaloConst;
+
+/**
+ * A media short code node, such as {@code [music:1234]}, rendered to an embedded player.
+ */
+public class Shortcode extends Node implements DoNotDecorate {
+
+    /**
+     * Supported short codes.
+     */
+    public enum Type {
+        NETEASE_MUSIC(HaloConst.NETEASE_MUSIC_PREFIX, HaloConst.NETEASE_MUSIC_REG_PATTERN,
+            HaloConst.NETEASE_MUSIC_IFRAME),
+        BILIBILI_VIDEO(HaloConst.BILIBILI_VIDEO_PREFIX, HaloConst.BILIBILI_VIDEO_REG_PATTERN,
+            HaloConst.BILIBILI_VIDEO_IFRAME),
+        YOUTUBE_VIDEO(HaloConst.YOUTUBE_VIDEO_PREFIX, HaloConst.YOUTUBE_VIDEO_REG_PATTERN,
+            HaloConst.YOUTUBE_VIDEO_IFRAME);
+
+        private final String prefix;
+        private final Pattern pattern;
+        private final String iframe;
+
+        Type(String prefix, String regex, String iframe) {
+            this.prefix = prefix;
+            this.pattern = Pattern.compile(regex);
+            this.iframe = iframe;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public Pattern getPattern() {
+            return pattern;
+        }
+
+        /**
+         * Renders the iframe of the matched short code.
+         *
+         * @param matcher matcher of the short code pattern positioned on a match
+         * @return iframe html
+         */
+        @NonNull
+        public String render(@NonNull Matcher matcher) {
+            StringBuilder html = new StringBuilder(iframe.length() + 32);
+            for (int i = 0; i < iframe.length(); i++) {
+                char c = iframe.charAt(i);
+                if (c == '$' && i + 1 < iframe.length()
+                    && Character.isDigit(iframe.charAt(i + 1))) {
+                    html.append(matcher.group(iframe.charAt(++i) - '0'));
+                } else {
+                    html.append(c);
+                }
+            }
+            return html.toString();
+        }
+    }
+
+    private final Type type;
+
+    private final String html;
+
+    public Shortcode(BasedSequence chars, Type type, String html) {
+        super(chars);
+        this.type = type;
+        this.html = html;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    @NonNull
+    @Override
+    public BasedSequence[] getSegments() {
+        return EMPTY_SEGMENTS;
+    }
+}
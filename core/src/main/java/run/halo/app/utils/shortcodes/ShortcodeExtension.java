@@ -0,0 +1,52 @@
+package run.halo.app.utils.shortcodes;
+
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.data.MutableDataHolder;
+import org.springframework.lang.NonNull;
+import run.halo.app.utils.shortcodes.internal.ShortcodeInlineParserExtension;
+import run.halo.app.utils.shortcodes.internal.ShortcodeNodeRenderer;
+
+/**
+ * Extension for media short codes
+ * <p>
+ * Create it with {@link #create()} and then configure it on the builders
+ * <p>
+ * The NetEase music, Bilibili video and YouTube video short codes in text regions are turned
+ * into {@link Shortcode} nodes while the document is parsed, instead of being replaced in the
+ * markdown source beforehand. Short codes in code spans and code blocks are left as they are.
+ */
+public class ShortcodeExtension implements Parser.ParserExtension,
+    HtmlRenderer.HtmlRendererExtension {
+
+    private ShortcodeExtension() {
+    }
+
+    public static ShortcodeExtension create() {
+        return new ShortcodeExtension();
+    }
+
+    @Override
+    public void extend(@NonNull HtmlRenderer.Builder htmlRendererBuilder,
+        @NonNull String rendererType) {
+        if (htmlRendererBuilder.isRendererType("HTML")) {
+            htmlRendererBuilder.nodeRendererFactory(new ShortcodeNodeRenderer.Factory());
+        }
+    }
+
+    @Override
+    public void extend(Parser.Builder parserBuilder) {
+        parserBuilder.customInlineParserExtensionFactory(
+            new ShortcodeInlineParserExtension.Factory());
+    }
+
+    @Override
+    public void rendererOptions(@NonNull MutableDataHolder options) {
+
+    }
+
+    @Override
+    public void parserOptions(MutableDataHolder options) {
+
+    }
+}
@@ -0,0 +1,80 @@
+package run.halo.app.utils.shortcodes.internal;
+
+import com.vladsch.flexmark.parser.InlineParser;
+import com.vladsch.flexmark.parser.InlineParserExtension;
+import com.vladsch.flexmark.parser.InlineParserExtensionFactory;
+import com.vladsch.flexmark.parser.LightInlineParser;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import java.util.Set;
+import java.util.regex.Matcher;
+import org.springframework.lang.NonNull;
+import run.halo.app.utils.shortcodes.Shortcode;
+
+/**
+ * Parses short codes starting at a {@code '['}, before it is taken as the opener of a link.
+ */
+public class ShortcodeInlineParserExtension implements InlineParserExtension {
+
+    @Override
+    public void finalizeDocument(@NonNull InlineParser inlineParser) {
+
+    }
+
+    @Override
+    public void finalizeBlock(@NonNull InlineParser inlineParser) {
+
+    }
+
+    @Override
+    public boolean parse(@NonNull LightInlineParser inlineParser) {
+        BasedSequence input = inlineParser.getInput();
+        int index = inlineParser.getIndex();
+        for (Shortcode.Type type : Shortcode.Type.values()) {
+            if (!input.matchChars(type.getPrefix(), index)) {
+                continue;
+            }
+            // Only a short code starting right here, a later one is parsed when it is reached
+            Matcher matcher = type.getPattern().matcher(input);
+            matcher.region(index, input.length());
+            if (!matcher.lookingAt()) {
+                return false;
+            }
+            inlineParser.flushTextNode();
+            inlineParser.setIndex(matcher.end());
+            BasedSequence chars = input.subSequence(matcher.start(), matcher.end());
+            inlineParser.getBlock().appendChild(new Shortcode(chars, type, type.render(matcher)));
+            return true;
+        }
+        return false;
+    }
+
+    public static class Factory implements InlineParserExtensionFactory {
+
+        @Override
+        public Set<Class<?>> getAfterDependents() {
+            return null;
+        }
+
+        @NonNull
+        @Override
+        public CharSequence getCharacters() {
+            return "[";
+        }
+
+        @Override
+        public Set<Class<?>> getBeforeDependents() {
+            return null;
+        }
+
+        @NonNull
+        @Override
+        public InlineParserExtension apply(@NonNull LightInlineParser lightInlineParser) {
+            return new ShortcodeInlineParserExtension();
+        }
+
+        @Override
+        public boolean affectsGlobalScope() {
+            return false;
+        }
+    }
+}
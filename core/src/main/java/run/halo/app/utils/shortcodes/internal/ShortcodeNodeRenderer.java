@@ -0,0 +1,33 @@
+package run.halo.app.utils.shortcodes.internal;
+
+import com.vladsch.flexmark.html.HtmlWriter;
+import com.vladsch.flexmark.html.renderer.NodeRenderer;
+import com.vladsch.flexmark.html.renderer.NodeRendererContext;
+import com.vladsch.flexmark.html.renderer.NodeRendererFactory;
+import com.vladsch.flexmark.html.renderer.NodeRenderingHandler;
+import com.vladsch.flexmark.util.data.DataHolder;
+import java.util.Collections;
+import java.util.Set;
+import org.springframework.lang.NonNull;
+import run.halo.app.utils.shortcodes.Shortcode;
+
+public class ShortcodeNodeRenderer implements NodeRenderer {
+
+    @Override
+    public Set<NodeRenderingHandler<?>> getNodeRenderingHandlers() {
+        return Collections.singleton(new NodeRenderingHandler<>(Shortcode.class, this::render));
+    }
+
+    private void render(Shortcode node, NodeRendererContext context, HtmlWriter html) {
+        html.raw(node.getHtml());
+    }
+
+    public static class Factory implements NodeRendererFactory {
+
+        @NonNull
+        @Override
+        public NodeRenderer apply(@NonNull DataHolder options) {
+            return new ShortcodeNodeRenderer();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package run.halo.app.cache;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import run.halo.app.cache.ContentPageCache.Page;
+
+/**
+ * Tests of {@link ContentPageCache}.
+ *
+ * @author guqing
+ */
+class ContentPageCacheTest {
+
+    private static final byte[] BODY = "<html></html>".getBytes(StandardCharsets.UTF_8);
+
+    private final ContentPageCache contentPageCache = new ContentPageCache();
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(
+            new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void putAndInvalidateTags() {
+        Page page = render(ContentPageCache.postTag(1));
+        contentPageCache.put("/archives/1", page);
+        assertSame(page, contentPageCache.get("/archives/1"));
+
+        contentPageCache.invalidate(ContentPageCache.postTag(1));
+        assertFalse(contentPageCache.get("/archives/1").isFresh());
+    }
+
+    @Test
+    void notBuildPageRenderedDuringInvalidation() {
+        contentPageCache.startRecording();
+        ContentPageCache.addTags(ContentPageCache.TAG_POSTS);
+        contentPageCache.invalidate(ContentPageCache.TAG_POSTS);
+
+        assertNull(contentPageCache.buildPage(BODY, Map.of()));
+    }
+
+    @Test
+    void notPutPageBuiltBeforeInvalidation() {
+        Page page = render(ContentPageCache.TAG_POSTS);
+        contentPageCache.invalidate(ContentPageCache.TAG_POSTS);
+
+        contentPageCache.put("/", page);
+        assertNull(contentPageCache.get("/"));
+
+        page = render(ContentPageCache.TAG_POSTS);
+        contentPageCache.invalidateAll();
+
+        contentPageCache.put("/", page);
+        assertNull(contentPageCache.get("/"));
+    }
+
+    private Page render(String... tags) {
+        contentPageCache.startRecording();
+        ContentPageCache.addTags(tags);
+        Page page = contentPageCache.buildPage(BODY, Map.of());
+        assertNotNull(page);
+        return page;
+    }
+}
@@ -0,0 +1,59 @@
+package run.halo.app.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import run.halo.app.cache.FeedDocumentCache.Document;
+import run.halo.app.cache.FeedDocumentCache.Generated;
+
+/**
+ * Tests of {@link FeedDocumentCache}.
+ *
+ * @author guqing
+ */
+class FeedDocumentCacheTest {
+
+    private final FeedDocumentCache feedDocumentCache = new FeedDocumentCache();
+
+    private final AtomicInteger generations = new AtomicInteger();
+
+    @Test
+    void keepDocumentUntilInvalidated() throws Exception {
+        Document document = feedDocumentCache.get("/atom.xml", false, this::generate);
+        assertSame(document, feedDocumentCache.get("/atom.xml", false, this::generate));
+        assertEquals(1, generations.get());
+
+        feedDocumentCache.invalidateCategoryDependents();
+        assertSame(document, feedDocumentCache.get("/atom.xml", false, this::generate));
+
+        feedDocumentCache.invalidateAll();
+        assertArrayEquals(bytes("2"),
+            feedDocumentCache.get("/atom.xml", false, this::generate).getBody());
+    }
+
+    @Test
+    void notKeepDocumentGeneratedDuringInvalidation() throws Exception {
+        Document document = feedDocumentCache.get("/sitemap.xml", true, () -> {
+            Generated generated = generate();
+            feedDocumentCache.invalidateCategoryDependents();
+            return generated;
+        });
+        assertArrayEquals(bytes("1"), document.getBody());
+
+        assertArrayEquals(bytes("2"),
+            feedDocumentCache.get("/sitemap.xml", true, this::generate).getBody());
+    }
+
+    private Generated generate() {
+        return new Generated(bytes(String.valueOf(generations.incrementAndGet())),
+            System.currentTimeMillis());
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,126 @@
+package run.halo.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import run.halo.app.config.properties.HaloProperties;
+import run.halo.app.event.post.PostUpdatedEvent;
+import run.halo.app.event.post.PostsRenderedEvent;
+import run.halo.app.model.entity.Post;
+import run.halo.app.model.enums.PostStatus;
+import run.halo.app.repository.PostRepository;
+import run.halo.app.service.OptionService;
+import run.halo.app.service.PostSearchService;
+
+/**
+ * Tests of {@link PostSearchServiceImpl} started in an application context with the async,
+ * scheduling and transaction infrastructure of the application.
+ *
+ * @author guqing
+ */
+class PostSearchServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+
+    private AnnotationConfigApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        HaloProperties haloProperties = new HaloProperties();
+        haloProperties.setWorkDir(tempDir.toString());
+
+        context = new AnnotationConfigApplicationContext();
+        context.register(InfrastructureConfiguration.class);
+        context.registerBean(PostRepository.class, () -> postRepository);
+        context.registerBean(OptionService.class, () -> mock(OptionService.class));
+        context.registerBean(HaloProperties.class, () -> haloProperties);
+        context.registerBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            TaskExecutor.class, SyncTaskExecutor::new);
+        context.registerBean(PostSearchServiceImpl.class);
+        context.refresh();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void buildOnStartedAndIndexUpdatedPosts() {
+        Post post = post(1, "Halo", "a blog engine");
+        when(postRepository.count()).thenReturn(1L);
+        when(postRepository.findAll(any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(post)));
+        when(postRepository.findAllIdsByStatus(PostStatus.PUBLISHED)).thenReturn(List.of(1, 2));
+
+        PostSearchService postSearchService = context.getBean(PostSearchService.class);
+        assertFalse(postSearchService.isReady());
+
+        context.publishEvent(
+            new ApplicationStartedEvent(new SpringApplication(), new String[0], context));
+        assertTrue(postSearchService.isReady());
+        assertEquals(List.of(1), postSearchService.search("blog", PostStatus.PUBLISHED, 10));
+
+        when(postRepository.findById(2)).thenReturn(Optional.of(post(2, "Notes", "blog notes")));
+        context.publishEvent(new PostUpdatedEvent(this, 2));
+        assertEquals(Set.of(1, 2),
+            new HashSet<>(postSearchService.search("blog", PostStatus.PUBLISHED, 10)));
+    }
+
+    @Test
+    void rebuildOnPostsRendered() {
+        when(postRepository.findAll(any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(post(1, "Halo", "rendered again"))));
+
+        context.publishEvent(new PostsRenderedEvent(this));
+
+        verify(postRepository, times(1)).findAll(any(Pageable.class));
+        assertEquals(List.of(1), context.getBean(PostSearchService.class)
+            .search("rendered", null, 10));
+    }
+
+    private static Post post(Integer id, String title, String plainText) {
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle(title);
+        post.setPlainText(plainText);
+        return post;
+    }
+
+    @EnableAsync
+    @EnableScheduling
+    @EnableTransactionManagement
+    @Configuration(proxyBeanMethods = false)
+    static class InfrastructureConfiguration {
+    }
+}
@@ -0,0 +1,148 @@
+package run.halo.app.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of {@link PostSearchIndex}.
+ *
+ * @author guqing
+ */
+class PostSearchIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void tokenizeWords() {
+        assertEquals(List.of("hello", "world", "2021"),
+            PostSearchIndex.tokenize("Hello, World! 2021", false));
+        assertEquals(List.of(), PostSearchIndex.tokenize("  ", false));
+    }
+
+    @Test
+    void tokenizeCjkIntoBigrams() {
+        assertEquals(List.of("全文", "文搜", "搜索"), PostSearchIndex.tokenize("全文搜索", false));
+        assertEquals(List.of("全", "全文", "文", "文搜", "搜", "搜索", "索"),
+            PostSearchIndex.tokenize("全文搜索", true));
+        assertEquals(List.of("文"), PostSearchIndex.tokenize("文", false));
+        assertEquals(List.of("halo", "博", "博客", "客", "v2"),
+            PostSearchIndex.tokenize("Halo博客 v2", true));
+    }
+
+    @Test
+    void searchRequiresAllTerms() {
+        PostSearchIndex index = new PostSearchIndex();
+        index.put(1, "Spring", "spring boot starter");
+        index.put(2, "Boot", "boots for hiking");
+
+        assertEquals(List.of(1), index.search("spring boot", 10));
+        assertEquals(List.of(), index.search("spring hiking", 10));
+        assertEquals(List.of(), index.search("", 10));
+    }
+
+    @Test
+    void rankByBm25() {
+        PostSearchIndex index = new PostSearchIndex();
+        index.put(1, "Notes", "a short note about caching and other things");
+        index.put(2, "Caching", "how pages are kept");
+        index.put(3, "Notes", "caching caching caching");
+        index.put(4, "Unrelated", "nothing to see here");
+
+        // Title terms weigh more than content terms, frequent terms more than rare ones
+        assertEquals(List.of(2, 3, 1), index.search("caching", 10));
+        assertEquals(List.of(2, 3), index.search("caching", 2));
+    }
+
+    @Test
+    void searchCjk() {
+        PostSearchIndex index = new PostSearchIndex();
+        index.put(1, "全文搜索", "使用倒排索引实现");
+        index.put(2, "缓存", "页面缓存的实现");
+
+        assertEquals(List.of(1), index.search("搜索", 10));
+        assertEquals(List.of(1), index.search("索引", 10));
+        assertEquals(Set.of(1, 2), new HashSet<>(index.search("实现", 10)));
+        assertEquals(List.of(2), index.search("缓", 10));
+    }
+
+    @Test
+    void filterBeforeLimit() {
+        PostSearchIndex index = new PostSearchIndex();
+        index.put(1, "Halo", "halo");
+        index.put(2, "Halo", "halo halo");
+        index.put(3, "Other", "halo");
+
+        assertEquals(List.of(2), index.search("halo", 1));
+        assertEquals(List.of(1), index.search("halo", 1, postId -> postId != 2));
+        assertEquals(List.of(1, 3), index.search("halo", 10, postId -> postId != 2));
+    }
+
+    @Test
+    void putReplacesAndRemove() {
+        PostSearchIndex index = new PostSearchIndex();
+        index.put(1, "Old", "old content");
+        index.put(1, "New", "new content");
+
+        assertEquals(1, index.size());
+        assertEquals(List.of(), index.search("old", 10));
+        assertEquals(List.of(1), index.search("new", 10));
+
+        index.remove(1);
+        assertEquals(0, index.size());
+        assertEquals(List.of(), index.search("new", 10));
+    }
+
+    @Test
+    void highlightEscapesHtml() {
+        assertEquals("&lt;b&gt;<mark>Halo</mark>&lt;/b&gt; &amp; friends",
+            PostSearchIndex.highlight("<b>Halo</b> & friends", "halo", 100));
+        assertEquals("&lt;script&gt;", PostSearchIndex.highlight("<script>", "missing", 100));
+        assertEquals("", PostSearchIndex.highlight(null, "halo", 100));
+    }
+
+    @Test
+    void highlightSnippet() {
+        String text = "0123456789 abcdefghij keyword klmnopqrst uvwxyz";
+
+        String snippet = PostSearchIndex.highlight(text, "keyword", 20);
+        assertTrue(snippet.startsWith("..."), snippet);
+        assertTrue(snippet.contains("<mark>keyword</mark>"), snippet);
+        assertTrue(snippet.endsWith("..."), snippet);
+        assertEquals("全文<mark>搜索</mark>", PostSearchIndex.highlight("全文搜索", "搜索", 100));
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        PostSearchIndex index = new PostSearchIndex();
+        index.put(1, "Spring", "spring boot starter");
+        index.put(2, "全文搜索", "caching caching");
+        index.put(3, "Caching", "pages");
+        Path path = tempDir.resolve("search/posts.idx");
+
+        index.write(path);
+        PostSearchIndex read = PostSearchIndex.read(path);
+
+        assertEquals(index.size(), read.size());
+        assertEquals(index.search("caching", 10), read.search("caching", 10));
+        assertEquals(List.of(2), read.search("搜索", 10));
+        assertEquals(List.of(1), read.search("spring boot", 10));
+    }
+
+    @Test
+    void readRejectsOtherFormats() throws IOException {
+        Path path = Files.write(tempDir.resolve("posts.idx"), new byte[] {0, 0, 0, 9});
+
+        assertThrows(IOException.class, () -> PostSearchIndex.read(path));
+    }
+}
@@ -0,0 +1,124 @@
+package run.halo.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Round trip tests of {@link ParallelZipWriter}.
+ *
+ * @author guqing
+ */
+class ParallelZipWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void roundTrip() throws IOException {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("root/", new byte[0]);
+        contents.put("root/empty.txt", new byte[0]);
+        contents.put("root/stored.png", randomBytes(4096));
+        contents.put("root/deflated.txt", repeatedText(64 * 1024));
+        contents.put("root/streamed-deflated.txt",
+            repeatedText(ParallelZipWriter.IN_MEMORY_THRESHOLD * 3));
+        contents.put("root/streamed-stored.png",
+            randomBytes(ParallelZipWriter.IN_MEMORY_THRESHOLD * 2));
+
+        Path archive = tempDir.resolve("archive.zip");
+        try (ParallelZipWriter zipWriter = new ParallelZipWriter(archive)) {
+            zipWriter.addDirectory("root", 0);
+            zipWriter.addBytes("root/empty.txt", new byte[0], System.currentTimeMillis());
+            zipWriter.addBytes("root/stored.png", contents.get("root/stored.png"),
+                System.currentTimeMillis());
+            zipWriter.addBytes("root/deflated.txt", contents.get("root/deflated.txt"),
+                System.currentTimeMillis());
+            zipWriter.addFile("root/streamed-deflated.txt",
+                write("streamed-deflated.txt", contents.get("root/streamed-deflated.txt")));
+            zipWriter.addFile("root/streamed-stored.png",
+                write("streamed-stored.png", contents.get("root/streamed-stored.png")));
+        }
+
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            assertEquals(contents.size(), zipFile.size());
+            for (Map.Entry<String, byte[]> content : contents.entrySet()) {
+                ZipEntry entry = zipFile.getEntry(content.getKey());
+                assertNotNull(entry, content.getKey());
+                assertEquals(content.getValue().length, entry.getSize());
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    assertArrayEquals(content.getValue(), inputStream.readAllBytes(),
+                        content.getKey());
+                }
+            }
+            assertTrue(zipFile.getEntry("root/").isDirectory());
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("root/stored.png").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("root/deflated.txt").getMethod());
+            assertEquals(ZipEntry.DEFLATED,
+                zipFile.getEntry("root/streamed-deflated.txt").getMethod());
+            assertEquals(ZipEntry.STORED,
+                zipFile.getEntry("root/streamed-stored.png").getMethod());
+        }
+
+        try (ZipInputStream zipIn = new ZipInputStream(Files.newInputStream(archive))) {
+            for (Map.Entry<String, byte[]> content : contents.entrySet()) {
+                ZipEntry entry = zipIn.getNextEntry();
+                assertNotNull(entry, content.getKey());
+                assertEquals(content.getKey(), entry.getName());
+                assertArrayEquals(content.getValue(), zipIn.readAllBytes(), content.getKey());
+            }
+            assertNull(zipIn.getNextEntry());
+        }
+    }
+
+    @Test
+    void abortOnFailedEntry() throws IOException {
+        Path file = write("truncated.png", randomBytes(ParallelZipWriter.IN_MEMORY_THRESHOLD * 2));
+        Path archive = tempDir.resolve("aborted.zip");
+
+        ParallelZipWriter zipWriter = new ParallelZipWriter(archive);
+        zipWriter.addBytes("first.txt", repeatedText(1024), System.currentTimeMillis());
+        zipWriter.addFile("truncated.png", file);
+        Files.write(file, new byte[16]);
+
+        assertThrows(IOException.class, zipWriter::close);
+        assertFalse(Files.exists(archive));
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(tempDir.resolve(name), content);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] repeatedText(int length) {
+        byte[] text = "Halo parallel zip writer round trip\n".getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = text[i % text.length];
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,41 @@
+package run.halo.app.utils.shortcodes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import run.halo.app.utils.MarkdownUtils;
+
+/**
+ * Tests of the short codes rendered by {@link ShortcodeExtension}.
+ *
+ * @author guqing
+ */
+class ShortcodeExtensionTest {
+
+    @Test
+    void renderShortcode() {
+        String html = MarkdownUtils.renderHtml("listen [music:123] now");
+
+        assertTrue(html.startsWith("<p>listen <iframe "), html);
+        assertTrue(html.contains("id=123&"), html);
+        assertTrue(html.endsWith("</iframe> now</p>\n"), html);
+    }
+
+    @Test
+    void keepTextBeforeLaterShortcode() {
+        String html = MarkdownUtils.renderHtml("see [music:abc] and then [music:123] end");
+
+        assertTrue(html.startsWith("<p>see [music:abc] and then <iframe "), html);
+        assertTrue(html.contains("id=123&"), html);
+        assertFalse(html.contains("id=abc"), html);
+        assertTrue(html.endsWith("</iframe> end</p>\n"), html);
+    }
+
+    @Test
+    void keepLinks() {
+        assertEquals("<p>a <a href=\"https://halo.run\">link</a></p>\n",
+            MarkdownUtils.renderHtml("a [link](https://halo.run)"));
+    }
+}
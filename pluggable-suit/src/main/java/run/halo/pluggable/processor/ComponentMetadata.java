@@ -0,0 +1,146 @@
+package run.halo.pluggable.processor;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Build-time metadata of a plugin class, generated by {@link PluggableAnnotationProcessor} so
+ * the class can be registered without scanning or reflection.
+ *
+ * @author guqing
+ * @see ComponentMetadataIndex
+ */
+public final class ComponentMetadata {
+
+    /**
+     * The stereotype annotation a class is declared with, from the most specialized one.
+     * The ordinal is stored in the index.
+     */
+    public enum Stereotype {
+        EXTENSION,
+        REST_CONTROLLER,
+        CONTROLLER,
+        SERVICE,
+        REPOSITORY,
+        CONFIGURATION,
+        COMPONENT,
+        NONE;
+
+        public boolean isComponent() {
+            return this != NONE;
+        }
+
+        public boolean isController() {
+            return this == CONTROLLER || this == REST_CONTROLLER;
+        }
+    }
+
+    private final String className;
+    private final Stereotype stereotype;
+    private final boolean applicationListener;
+    private final boolean entity;
+    private final Set<String> extensionPoints;
+    private final List<String> eventListenerMethods;
+
+    public ComponentMetadata(String className, Stereotype stereotype,
+        boolean applicationListener, boolean entity, Set<String> extensionPoints,
+        List<String> eventListenerMethods) {
+        this.className = Objects.requireNonNull(className, "The className must not be null.");
+        this.stereotype = Objects.requireNonNull(stereotype, "The stereotype must not be null.");
+        this.applicationListener = applicationListener;
+        this.entity = entity;
+        this.extensionPoints = Collections.unmodifiableSet(new LinkedHashSet<>(extensionPoints));
+        this.eventListenerMethods = List.copyOf(eventListenerMethods);
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public Stereotype getStereotype() {
+        return stereotype;
+    }
+
+    /**
+     * @return true if the class implements {@code ApplicationListener}
+     */
+    public boolean isApplicationListener() {
+        return applicationListener;
+    }
+
+    /**
+     * @return true if the class is annotated with {@code javax.persistence.Entity}
+     */
+    public boolean isEntity() {
+        return entity;
+    }
+
+    /**
+     * @return binary names of the extension point interfaces the class implements, including
+     *     {@code org.pf4j.ExtensionPoint} itself
+     */
+    public Set<String> getExtensionPoints() {
+        return extensionPoints;
+    }
+
+    /**
+     * @return names of the methods annotated with {@code @EventListener}
+     */
+    public List<String> getEventListenerMethods() {
+        return eventListenerMethods;
+    }
+
+    public boolean isComponent() {
+        return stereotype.isComponent();
+    }
+
+    public boolean isController() {
+        return stereotype.isController();
+    }
+
+    public boolean isListener() {
+        return applicationListener || !eventListenerMethods.isEmpty();
+    }
+
+    public boolean isExtPoint() {
+        return !extensionPoints.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ComponentMetadata that = (ComponentMetadata) o;
+        return applicationListener == that.applicationListener
+            && entity == that.entity
+            && className.equals(that.className)
+            && stereotype == that.stereotype
+            && extensionPoints.equals(that.extensionPoints)
+            && eventListenerMethods.equals(that.eventListenerMethods);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(className, stereotype, applicationListener, entity, extensionPoints,
+            eventListenerMethods);
+    }
+
+    @Override
+    public String toString() {
+        return "ComponentMetadata{"
+            + "className='" + className + '\''
+            + ", stereotype=" + stereotype
+            + ", applicationListener=" + applicationListener
+            + ", entity=" + entity
+            + ", extensionPoints=" + extensionPoints
+            + ", eventListenerMethods=" + eventListenerMethods
+            + '}';
+    }
+}
@@ -0,0 +1,119 @@
+package run.halo.pluggable.processor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Versioned binary index of {@link ComponentMetadata}, stored in
+ * {@link #INDEX_RESOURCE} of a plugin jar.
+ *
+ * <p>Layout: {@code [magic:4][version:2][count:4]} followed by each entry as
+ * {@code [className:utf][stereotype:1][flags:1][extensionPoints:2][utf...]
+ * [eventListenerMethods:2][utf...]}.
+ *
+ * @author guqing
+ */
+public final class ComponentMetadataIndex {
+
+    public static final String INDEX_RESOURCE = "META-INF/plugin-components.bin";
+
+    private static final int MAGIC = 0x48504349; // HPCI
+
+    public static final short VERSION = 1;
+
+    private static final int FLAG_APPLICATION_LISTENER = 1;
+    private static final int FLAG_ENTITY = 1 << 1;
+
+    private ComponentMetadataIndex() {
+    }
+
+    public static void write(OutputStream outputStream, Collection<ComponentMetadata> entries)
+        throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(entries.size());
+        for (ComponentMetadata entry : entries) {
+            out.writeUTF(entry.getClassName());
+            out.writeByte(entry.getStereotype().ordinal());
+            int flags = 0;
+            if (entry.isApplicationListener()) {
+                flags |= FLAG_APPLICATION_LISTENER;
+            }
+            if (entry.isEntity()) {
+                flags |= FLAG_ENTITY;
+            }
+            out.writeByte(flags);
+            writeStrings(out, entry.getExtensionPoints());
+            writeStrings(out, entry.getEventListenerMethods());
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads the index.
+     *
+     * @param inputStream index input stream
+     * @return metadata keyed by class name, in the order they were written
+     * @throws IOException if the stream is not an index of a supported version
+     */
+    public static Map<String, ComponentMetadata> read(InputStream inputStream)
+        throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a plugin component metadata index");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported plugin component metadata index version: "
+                + version);
+        }
+
+        ComponentMetadata.Stereotype[] stereotypes = ComponentMetadata.Stereotype.values();
+        int count = in.readInt();
+        Map<String, ComponentMetadata> result = new LinkedHashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            String className = in.readUTF();
+            int stereotype = in.readUnsignedByte();
+            if (stereotype >= stereotypes.length) {
+                throw new IOException("Unknown stereotype " + stereotype + " of " + className);
+            }
+            int flags = in.readUnsignedByte();
+            Set<String> extensionPoints = readStrings(in, new LinkedHashSet<>());
+            List<String> eventListenerMethods = readStrings(in, new ArrayList<>());
+            result.put(className, new ComponentMetadata(className, stereotypes[stereotype],
+                (flags & FLAG_APPLICATION_LISTENER) != 0, (flags & FLAG_ENTITY) != 0,
+                extensionPoints, eventListenerMethods));
+        }
+        return result;
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> strings)
+        throws IOException {
+        out.writeShort(strings.size());
+        for (String string : strings) {
+            out.writeUTF(string);
+        }
+    }
+
+    private static <C extends Collection<String>> C readStrings(DataInputStream in, C strings)
+        throws IOException {
+        int size = in.readUnsignedShort();
+        for (int i = 0; i < size; i++) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+}
@@ -3,6 +3,7 @@ package run.halo.pluggable.processor;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -31,6 +32,14 @@ public abstract class ComponentStorage {
 
     public abstract void write(Set<String> extensions);
 
+    /**
+     * Writes the metadata of components, it's not required by the storage.
+     *
+     * @param metadata component metadata
+     */
+    public void writeMetadata(Collection<ComponentMetadata> metadata) {
+    }
+
     /**
      * Helper method.
      */
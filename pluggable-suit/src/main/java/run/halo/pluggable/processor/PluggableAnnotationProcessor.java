@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -20,20 +21,27 @@ import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
 import org.pf4j.Extension;
 import org.pf4j.ExtensionPoint;
 import org.pf4j.processor.ExtensionStorage;
 import org.pf4j.util.ClassUtils;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.RestController;
+import run.halo.pluggable.processor.ComponentMetadata.Stereotype;
 
 
 /**
@@ -42,6 +50,10 @@ import org.springframework.web.bind.annotation.RestController;
  * ({@link ProcessingEnvironment#getOptions()}) or system property.
  * In both variants the option/property name is {@code pf4j.storageClassName}.
  *
+ * <p>Besides the component names, a {@link ComponentMetadata} is collected for every component
+ * and JPA entity so that the plugin can be registered without scanning or reflection. Both are
+ * collected over all processing rounds and written once in the final round.
+ *
  * @author guqing
  */
 public class PluggableAnnotationProcessor extends AbstractProcessor {
@@ -52,11 +64,29 @@ public class PluggableAnnotationProcessor extends AbstractProcessor {
         Component.class,
         Configuration.class);
 
+    /**
+     * Stereotypes by annotation name.
+     */
+    private static final Map<String, Stereotype> STEREOTYPES = new LinkedHashMap<>();
+
+    static {
+        STEREOTYPES.put(Extension.class.getName(), Stereotype.EXTENSION);
+        STEREOTYPES.put(RestController.class.getName(), Stereotype.REST_CONTROLLER);
+        STEREOTYPES.put(Controller.class.getName(), Stereotype.CONTROLLER);
+        STEREOTYPES.put(Service.class.getName(), Stereotype.SERVICE);
+        STEREOTYPES.put(Repository.class.getName(), Stereotype.REPOSITORY);
+        STEREOTYPES.put(Configuration.class.getName(), Stereotype.CONFIGURATION);
+        STEREOTYPES.put(Component.class.getName(), Stereotype.COMPONENT);
+    }
+
+    private static final String ENTITY_ANNOTATION_NAME = "javax.persistence.Entity";
+
     private static final String STORAGE_CLASS_NAME = "halo.pluggable.storageClassName";
     private static final String IGNORE_EXTENSION_POINT = "halo.pluggable.ignoreExtensionPoint";
 
     private final Map<String, Set<String>> extensions = new HashMap<>();
     private final Set<String> components = new LinkedHashSet<>();
+    private final Map<String, ComponentMetadata> componentMetadata = new LinkedHashMap<>();
     // the key is the extension point
     private Map<String, Set<String>> oldExtensions = new HashMap<>();
     // the key is the extension point
@@ -97,6 +127,9 @@ public class PluggableAnnotationProcessor extends AbstractProcessor {
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
         if (roundEnv.processingOver()) {
+            // Components of all rounds are collected, write them once
+            storage.write(components);
+            storage.writeMetadata(componentMetadata.values());
             return false;
         }
 
@@ -118,8 +151,18 @@ public class PluggableAnnotationProcessor extends AbstractProcessor {
                 processExtensionElement(element);
             }
         }
-        // write extensions
-        storage.write(components);
+        // process jpa entities, they are not components but still indexed
+        TypeElement entityAnnotation =
+            processingEnv.getElementUtils().getTypeElement(ENTITY_ANNOTATION_NAME);
+        if (entityAnnotation != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(entityAnnotation)) {
+                if (element instanceof TypeElement) {
+                    TypeElement entityElement = (TypeElement) element;
+                    componentMetadata.putIfAbsent(getBinaryName(entityElement),
+                        createMetadata(entityElement));
+                }
+            }
+        }
 
         return false;
     }
@@ -169,6 +212,10 @@ public class PluggableAnnotationProcessor extends AbstractProcessor {
         return this.components;
     }
 
+    public Map<String, ComponentMetadata> getComponentMetadata() {
+        return componentMetadata;
+    }
+
     public Map<String, Set<String>> getOldExtensions() {
         return oldExtensions;
     }
@@ -201,6 +248,106 @@ public class PluggableAnnotationProcessor extends AbstractProcessor {
         String extension = getBinaryName(extensionElement);
         System.out.println("components: " + extension);
         components.add(extension);
+        componentMetadata.put(extension, createMetadata(extensionElement));
+    }
+
+    private ComponentMetadata createMetadata(TypeElement element) {
+        Types typeUtils = processingEnv.getTypeUtils();
+
+        boolean applicationListener = false;
+        TypeElement listenerElement = processingEnv.getElementUtils()
+            .getTypeElement(ApplicationListener.class.getName());
+        if (listenerElement != null) {
+            applicationListener = typeUtils.isAssignable(typeUtils.erasure(element.asType()),
+                typeUtils.erasure(listenerElement.asType()));
+        }
+
+        List<String> eventListenerMethods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(element.getEnclosedElements())) {
+            if (hasAnnotation(method, EventListener.class.getName())) {
+                eventListenerMethods.add(method.getSimpleName().toString());
+            }
+        }
+
+        Set<String> extensionPoints = new LinkedHashSet<>();
+        collectExtensionPoints(element.asType(), extensionPoints);
+
+        return new ComponentMetadata(getBinaryName(element), resolveStereotype(element),
+            applicationListener, hasAnnotation(element, ENTITY_ANNOTATION_NAME), extensionPoints,
+            eventListenerMethods);
+    }
+
+    private Stereotype resolveStereotype(Element element) {
+        Stereotype resolved = Stereotype.NONE;
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            Element annotationElement = annotationMirror.getAnnotationType().asElement();
+            String annotationName = getBinaryName((TypeElement) annotationElement);
+            Stereotype stereotype = STEREOTYPES.get(annotationName);
+            if (stereotype == null) {
+                // nested extension annotations, e.g. @SpinnakerExtension
+                for (Map.Entry<String, Stereotype> entry : STEREOTYPES.entrySet()) {
+                    if (hasDirectAnnotation(annotationElement, entry.getKey())) {
+                        stereotype = entry.getValue();
+                        break;
+                    }
+                }
+            }
+            if (stereotype != null && stereotype.ordinal() < resolved.ordinal()) {
+                resolved = stereotype;
+            }
+        }
+        return resolved;
+    }
+
+    private void collectExtensionPoints(TypeMirror typeMirror, Set<String> extensionPoints) {
+        Types typeUtils = processingEnv.getTypeUtils();
+        for (TypeMirror superType : typeUtils.directSupertypes(typeMirror)) {
+            if (superType.getKind() != TypeKind.DECLARED) {
+                continue;
+            }
+            TypeElement superElement = getElement(superType);
+            if (superElement.getKind() == ElementKind.INTERFACE
+                && isExtensionPoint(superType)) {
+                extensionPoints.add(getBinaryName(superElement));
+            }
+            collectExtensionPoints(superType, extensionPoints);
+        }
+    }
+
+    private boolean isExtensionPoint(TypeMirror typeMirror) {
+        TypeElement extensionPointElement = processingEnv.getElementUtils()
+            .getTypeElement(ExtensionPoint.class.getName());
+        Types typeUtils = processingEnv.getTypeUtils();
+        return extensionPointElement != null && typeUtils.isAssignable(
+            typeUtils.erasure(typeMirror), extensionPointElement.asType());
+    }
+
+    /**
+     * Whether the element is annotated with the annotation directly or by one of its
+     * annotations, e.g. {@code @TransactionalEventListener} for {@code @EventListener}.
+     */
+    private boolean hasAnnotation(Element element, String annotationName) {
+        if (hasDirectAnnotation(element, annotationName)) {
+            return true;
+        }
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            if (hasDirectAnnotation(annotationMirror.getAnnotationType().asElement(),
+                annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasDirectAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            TypeElement annotationElement =
+                (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (annotationElement.getQualifiedName().contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @SuppressWarnings("unchecked")
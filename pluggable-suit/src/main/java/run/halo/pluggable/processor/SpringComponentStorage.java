@@ -3,7 +3,9 @@ package run.halo.pluggable.processor;
 import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.NoSuchFileException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -64,4 +66,19 @@ public class SpringComponentStorage extends ComponentStorage {
             error(e.toString());
         }
     }
+
+    @Override
+    public void writeMetadata(Collection<ComponentMetadata> metadata) {
+        try {
+            FileObject file = getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                ComponentMetadataIndex.INDEX_RESOURCE);
+            try (OutputStream outputStream = file.openOutputStream()) {
+                ComponentMetadataIndex.write(outputStream, metadata);
+            }
+        } catch (IOException e) {
+            // Written once in the final round, so a FilerException is a failure as well,
+            // without the index the plugin falls back to reflection
+            error("Failed to write %s: %s", ComponentMetadataIndex.INDEX_RESOURCE, e);
+        }
+    }
 }
@@ -3,15 +3,21 @@ package run.halo.pluggable.processor;
 import static com.google.testing.compile.CompilationSubject.assertThat;
 import static com.google.testing.compile.Compiler.javac;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.google.testing.compile.Compilation;
 import com.google.testing.compile.JavaFileObjects;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 import org.junit.jupiter.api.Test;
 import org.pf4j.processor.ExtensionAnnotationProcessor;
 import org.pf4j.processor.LegacyExtensionStorage;
@@ -111,6 +117,34 @@ public class PluggableAnnotationProcessorTest {
             "public @interface SpinnakerExtension {",
             "}");
 
+    public static final JavaFileObject GreetingListener = JavaFileObjects.forSourceLines(
+        "GreetingListener",
+        "package test;",
+        "import org.springframework.context.event.EventListener;",
+        "import org.springframework.web.bind.annotation.RestController;",
+        "",
+        "@RestController",
+        "public class GreetingListener extends WhazzupGreeting {",
+        "   @EventListener(Object.class)",
+        "    public void onEvent(Object event) {",
+        "    }",
+        "}");
+
+    public static final JavaFileObject Entity = JavaFileObjects.forSourceLines(
+        "Entity",
+        "package javax.persistence;",
+        "",
+        "public @interface Entity {",
+        "}");
+
+    public static final JavaFileObject GreetingEntity = JavaFileObjects.forSourceLines(
+        "GreetingEntity",
+        "package test;",
+        "",
+        "@javax.persistence.Entity",
+        "public class GreetingEntity {",
+        "}");
+
     @Test
     public void getSupportedAnnotationTypes() {
         PluggableAnnotationProcessor instance = new PluggableAnnotationProcessor();
@@ -164,6 +198,39 @@ public class PluggableAnnotationProcessorTest {
         assertEquals(Set.of("test.WhazzupGreeting"), processor.getComponents());
     }
 
+    @Test
+    public void componentMetadata() throws IOException {
+        PluggableAnnotationProcessor processor = new PluggableAnnotationProcessor();
+        Compilation compilation = javac().withProcessors(processor)
+            .compile(Greeting, WhazzupGreeting, GreetingListener, Entity, GreetingEntity);
+        assertThat(compilation).succeededWithoutWarnings();
+        assertEquals(Set.of("test.WhazzupGreeting", "test.GreetingListener"),
+            processor.getComponents());
+
+        Map<String, ComponentMetadata> metadata = processor.getComponentMetadata();
+        ComponentMetadata whazzup = metadata.get("test.WhazzupGreeting");
+        assertEquals(ComponentMetadata.Stereotype.SERVICE, whazzup.getStereotype());
+        assertEquals(Set.of("test.Greeting", "org.pf4j.ExtensionPoint"),
+            whazzup.getExtensionPoints());
+        assertFalse(whazzup.isListener());
+
+        ComponentMetadata listener = metadata.get("test.GreetingListener");
+        assertEquals(ComponentMetadata.Stereotype.REST_CONTROLLER, listener.getStereotype());
+        assertTrue(listener.isController());
+        assertTrue(listener.isExtPoint());
+        assertEquals(List.of("onEvent"), listener.getEventListenerMethods());
+
+        ComponentMetadata entity = metadata.get("test.GreetingEntity");
+        assertEquals(ComponentMetadata.Stereotype.NONE, entity.getStereotype());
+        assertTrue(entity.isEntity());
+
+        JavaFileObject index = compilation.generatedFile(StandardLocation.CLASS_OUTPUT,
+            ComponentMetadataIndex.INDEX_RESOURCE).orElseThrow();
+        try (InputStream inputStream = index.openInputStream()) {
+            assertEquals(metadata, ComponentMetadataIndex.read(inputStream));
+        }
+    }
+
     @Test
     public void compileNestedExtensionAnnotation() {
         PluggableAnnotationProcessor processor = new PluggableAnnotationProcessor();